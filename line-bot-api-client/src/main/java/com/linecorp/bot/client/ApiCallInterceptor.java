@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Interceptor of API calls made by {@link LineMessagingClientImpl}.
+ *
+ * <p>Unlike okhttp {@link okhttp3.Interceptor}, which runs on dispatcher threads,
+ * this works on asynchronous {@link Call}s before they are enqueued.
+ * So implementations can delay, retry or reject calls without blocking any thread.
+ */
+interface ApiCallInterceptor {
+    /**
+     * Intercept an API call.
+     *
+     * @return future of raw response. Completed exceptionally on I/O failure.
+     */
+    <T> CompletableFuture<Response<T>> intercept(Chain<T> chain);
+
+    interface Chain<T> {
+        ApiEndpoint endpoint();
+
+        Call<T> call();
+
+        /**
+         * Deadline of the call given by the caller, or null.
+         */
+        default Instant deadline() {
+            return null;
+        }
+
+        /**
+         * Returns a chain whose enqueued calls are not cancelled when the caller cancels,
+         * for a call shared by multiple callers.
+         */
+        default Chain<T> withoutCancellation() {
+            return this;
+        }
+
+        /**
+         * Reason why the caller gave up on the call, e.g.
+         * {@link com.linecorp.bot.client.exception.CallTimeoutException}, or null if not cancelled.
+         */
+        default Throwable cancellationCause() {
+            return null;
+        }
+
+        /**
+         * Pass the call to the next interceptor, or enqueue it if this is the last one.
+         */
+        CompletableFuture<Response<T>> proceed(Call<T> call);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Logical endpoint of the Messaging API called by {@link LineMessagingClient}.
+ */
+@Getter
+@AllArgsConstructor
+public enum ApiEndpoint {
+    REPLY_MESSAGE(EndpointFamily.REPLY, false),
+    PUSH_MESSAGE(EndpointFamily.PUSH, false),
+    MULTICAST(EndpointFamily.MULTICAST, false),
+    GET_MESSAGE_CONTENT(EndpointFamily.CONTENT, true),
+    GET_PROFILE(EndpointFamily.PROFILE, true),
+    GET_MEMBER_PROFILE(EndpointFamily.PROFILE, true),
+    GET_MEMBERS_IDS(EndpointFamily.GROUP, true),
+    LEAVE_GROUP(EndpointFamily.GROUP, false),
+    LEAVE_ROOM(EndpointFamily.GROUP, false),
+    GET_RICH_MENU(EndpointFamily.RICH_MENU, true),
+    CREATE_RICH_MENU(EndpointFamily.RICH_MENU, false),
+    DELETE_RICH_MENU(EndpointFamily.RICH_MENU, false),
+    GET_RICH_MENU_ID_OF_USER(EndpointFamily.RICH_MENU, true),
+    LINK_RICH_MENU_TO_USER(EndpointFamily.RICH_MENU, false),
+    UNLINK_RICH_MENU_FROM_USER(EndpointFamily.RICH_MENU, false),
+    GET_RICH_MENU_IMAGE(EndpointFamily.RICH_MENU, true),
+    SET_RICH_MENU_IMAGE(EndpointFamily.RICH_MENU, false),
+    GET_RICH_MENU_LIST(EndpointFamily.RICH_MENU, true);
+
+    /**
+     * Family of this endpoint.
+     */
+    private final EndpointFamily family;
+
+    /**
+     * Whether calling this endpoint multiple times has the same effect as calling it once.
+     */
+    private final boolean idempotent;
+}
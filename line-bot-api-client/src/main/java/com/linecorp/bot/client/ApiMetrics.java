@@ -0,0 +1,225 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Metrics of HTTP requests made by {@link LineMessagingClient}, recorded per {@link ApiEndpoint}.
+ *
+ * <p>All counters are lock free. Recorded values are:
+ * <ul>
+ * <li>Latency histogram.</li>
+ * <li>Number of responses by HTTP status code.</li>
+ * <li>Number of failures by exception type. Error responses are counted by the exception they are
+ * converted to, e.g. {@code NotFoundException} for 404. I/O failures are counted by their own type.</li>
+ * <li>Number of requests in flight.</li>
+ * </ul>
+ *
+ * <p>Use {@link #getSnapshot(ApiEndpoint)} to read values, or {@link #addListener(ApiMetricsListener)}
+ * to bridge them to a metrics library.
+ *
+ * <pre>{@code
+ * ApiMetrics apiMetrics = new ApiMetrics();
+ * LineMessagingClient client = LineMessagingClient
+ *         .builder(channelToken)
+ *         .apiMetrics(apiMetrics)
+ *         .build();
+ * }</pre>
+ */
+@Slf4j
+public final class ApiMetrics {
+    private static final long[] DEFAULT_BUCKET_BOUNDS = {
+            5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000
+    };
+
+    private final long[] bucketBoundsNanos;
+    private final List<Long> bucketBounds;
+    private final Map<ApiEndpoint, EndpointMetrics> endpoints = new EnumMap<>(ApiEndpoint.class);
+    private final List<ApiMetricsListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Create metrics with default latency buckets, from 5 milliseconds to 10 seconds.
+     */
+    public ApiMetrics() {
+        this(DEFAULT_BUCKET_BOUNDS);
+    }
+
+    /**
+     * Create metrics with given upper bounds of latency buckets in milliseconds, in ascending order.
+     * Latencies exceeding the last bound are counted by an extra overflow bucket.
+     */
+    public ApiMetrics(@NonNull final long... bucketBounds) {
+        final long[] sorted = bucketBounds.clone();
+        Arrays.sort(sorted);
+        this.bucketBoundsNanos = Arrays.stream(sorted).map(TimeUnit.MILLISECONDS::toNanos).toArray();
+        this.bucketBounds = unmodifiableList(Arrays.stream(sorted).boxed().collect(Collectors.toList()));
+        for (ApiEndpoint endpoint : ApiEndpoint.values()) {
+            endpoints.put(endpoint, new EndpointMetrics(sorted.length + 1));
+        }
+    }
+
+    /**
+     * Add a listener which receives each measurement.
+     */
+    public void addListener(@NonNull final ApiMetricsListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Returns current values of the endpoint.
+     */
+    public EndpointSnapshot getSnapshot(@NonNull final ApiEndpoint endpoint) {
+        final EndpointMetrics metrics = endpoints.get(endpoint);
+        final List<Long> bucketCounts = new ArrayList<>(metrics.buckets.length);
+        for (LongAdder bucket : metrics.buckets) {
+            bucketCounts.add(bucket.sum());
+        }
+        return new EndpointSnapshot(endpoint,
+                                    metrics.count.sum(),
+                                    metrics.inFlight.sum(),
+                                    TimeUnit.NANOSECONDS.toMillis(metrics.totalLatencyNanos.sum()),
+                                    bucketBounds,
+                                    unmodifiableList(bucketCounts),
+                                    sum(metrics.statusCounts),
+                                    sum(metrics.exceptionCounts));
+    }
+
+    void onCallStarted(final ApiEndpoint endpoint) {
+        endpoints.get(endpoint).inFlight.increment();
+        for (ApiMetricsListener listener : listeners) {
+            try {
+                listener.onCallStarted(endpoint);
+            } catch (RuntimeException e) {
+                log.warn("ApiMetricsListener threw an exception", e);
+            }
+        }
+    }
+
+    void onCallCompleted(final ApiEndpoint endpoint, final long latencyNanos, final int statusCode,
+                         final Class<? extends Throwable> exceptionType) {
+        final EndpointMetrics metrics = endpoints.get(endpoint);
+        metrics.inFlight.decrement();
+        metrics.count.increment();
+        metrics.totalLatencyNanos.add(latencyNanos);
+        metrics.buckets[bucketIndex(latencyNanos)].increment();
+        if (statusCode >= 0) {
+            metrics.statusCounts.computeIfAbsent(statusCode, ignored -> new LongAdder()).increment();
+        }
+        if (exceptionType != null) {
+            metrics.exceptionCounts.computeIfAbsent(exceptionType.getSimpleName(), ignored -> new LongAdder())
+                                   .increment();
+        }
+
+        for (ApiMetricsListener listener : listeners) {
+            try {
+                listener.onCallCompleted(endpoint, latencyNanos, statusCode, exceptionType);
+            } catch (RuntimeException e) {
+                log.warn("ApiMetricsListener threw an exception", e);
+            }
+        }
+    }
+
+    private int bucketIndex(final long latencyNanos) {
+        final int index = Arrays.binarySearch(bucketBoundsNanos, latencyNanos);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static <K> Map<K, Long> sum(final Map<K, LongAdder> counters) {
+        final Map<K, Long> result = new LinkedHashMap<>();
+        counters.forEach((key, counter) -> result.put(key, counter.sum()));
+        return unmodifiableMap(result);
+    }
+
+    private static final class EndpointMetrics {
+        final LongAdder count = new LongAdder();
+        final LongAdder inFlight = new LongAdder();
+        final LongAdder totalLatencyNanos = new LongAdder();
+        final LongAdder[] buckets;
+        final ConcurrentMap<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+        final ConcurrentMap<String, LongAdder> exceptionCounts = new ConcurrentHashMap<>();
+
+        EndpointMetrics(final int bucketCount) {
+            buckets = new LongAdder[bucketCount];
+            for (int i = 0; i < bucketCount; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+    }
+
+    /**
+     * Values of an endpoint at a point in time.
+     */
+    @Value
+    public static class EndpointSnapshot {
+        ApiEndpoint endpoint;
+
+        /**
+         * Number of completed requests.
+         */
+        long count;
+
+        /**
+         * Number of requests in flight.
+         */
+        long inFlight;
+
+        /**
+         * Sum of latencies of completed requests in milliseconds.
+         */
+        long totalLatencyMillis;
+
+        /**
+         * Upper bounds of latency buckets in milliseconds.
+         */
+        List<Long> bucketBounds;
+
+        /**
+         * Number of requests in each latency bucket.
+         * Has one more element than {@link #getBucketBounds()}, counting latencies exceeding the last bound.
+         */
+        List<Long> bucketCounts;
+
+        /**
+         * Number of responses by HTTP status code.
+         */
+        Map<Integer, Long> statusCounts;
+
+        /**
+         * Number of failures by simple name of exception type.
+         */
+        Map<String, Long> exceptionCounts;
+    }
+}
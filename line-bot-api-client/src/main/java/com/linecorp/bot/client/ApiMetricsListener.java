@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+/**
+ * Listener of API calls measured by {@link ApiMetrics}.
+ *
+ * <p>Implement this to bridge measurements to a metrics library. {@link MicrometerApiMetricsListener}
+ * does it for Micrometer.
+ *
+ * <p>Methods are called on the thread completing the call, so they should return quickly.
+ */
+public interface ApiMetricsListener {
+    /**
+     * Called when an HTTP request of the endpoint is about to be sent.
+     */
+    default void onCallStarted(ApiEndpoint endpoint) {
+    }
+
+    /**
+     * Called when an HTTP request of the endpoint completed.
+     *
+     * @param statusCode HTTP status code. -1 if no response is received.
+     * @param exceptionType type of exception the call results in. {@code null} if succeeded.
+     */
+    default void onCallCompleted(ApiEndpoint endpoint, long latencyNanos, int statusCode,
+                                 Class<? extends Throwable> exceptionType) {
+    }
+}
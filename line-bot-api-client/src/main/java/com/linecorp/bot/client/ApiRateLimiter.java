@@ -0,0 +1,335 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Client side rate limiter of API calls, configured per {@link EndpointFamily}.
+ *
+ * <p>Each family has a token bucket. Calls exceeding the rate are queued and sent later by a timer,
+ * so no thread is blocked while waiting. Calls cancelled or timed out while queued don't consume permits.
+ *
+ * <p>When the server answers {@code 429 Too Many Requests}, the rate of the family is decreased
+ * by {@link Builder#backoffRatio(double)}, and recovers linearly to the configured rate over
+ * {@link Builder#recoveryPeriod(long)}. So the client converges to the max sustainable throughput
+ * instead of alternating between bursts and error storms.
+ *
+ * <pre>{@code
+ * LineMessagingClient client = LineMessagingClient
+ *         .builder(channelToken)
+ *         .rateLimiter(ApiRateLimiter.builder()
+ *                                    .permitsPerSecond(EndpointFamily.PUSH, 100)
+ *                                    .build())
+ *         .build();
+ * }</pre>
+ */
+@Slf4j
+public final class ApiRateLimiter {
+    private static final long THROTTLE_COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<EndpointFamily, Bucket> buckets = new EnumMap<>(EndpointFamily.class);
+    private final ScheduledExecutorService scheduler;
+    private final LongSupplier ticker;
+
+    private ApiRateLimiter(final Builder builder) {
+        this.scheduler = builder.scheduler != null ? builder.scheduler : DefaultScheduler.get();
+        this.ticker = builder.ticker;
+        builder.permitsPerSecond.forEach((family, permitsPerSecond) -> buckets.put(
+                family, new Bucket(permitsPerSecond, builder)));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Current rate of the family in permits per second.
+     * {@link Double#POSITIVE_INFINITY} if the family is not limited.
+     */
+    public double getCurrentRate(final EndpointFamily family) {
+        final Bucket bucket = buckets.get(family);
+        return bucket != null ? bucket.currentRate() : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Number of calls of the family waiting for a permit.
+     */
+    public int getQueueSize(final EndpointFamily family) {
+        final Bucket bucket = buckets.get(family);
+        return bucket != null ? bucket.queueSize() : 0;
+    }
+
+    /**
+     * Run {@code task} when a permit of the family is available.
+     * The task runs on the calling thread if a permit is available immediately.
+     *
+     * @param cancelled whether the caller gave up. A queued task is run as soon as it's found cancelled,
+     *                  without consuming a permit, so it should check it again and give up.
+     */
+    void acquire(final EndpointFamily family, final BooleanSupplier cancelled, final Runnable task) {
+        final Bucket bucket = buckets.get(family);
+        if (bucket == null) {
+            task.run();
+        } else {
+            bucket.acquire(new Waiter(cancelled, task));
+        }
+    }
+
+    /**
+     * Notify the server answered {@code 429 Too Many Requests}.
+     */
+    void onTooManyRequests(final EndpointFamily family) {
+        final Bucket bucket = buckets.get(family);
+        if (bucket != null) {
+            bucket.decreaseRate();
+        }
+    }
+
+    public static final class Builder {
+        private final Map<EndpointFamily, Double> permitsPerSecond = new EnumMap<>(EndpointFamily.class);
+        private double burstSeconds = 1;
+        private double backoffRatio = 0.5;
+        private double minimumRatio = 0.05;
+        private long recoveryPeriod = 30_000;
+        private ScheduledExecutorService scheduler;
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder() {
+        }
+
+        /**
+         * Limit calls of the family. Families not specified are not limited.
+         */
+        public Builder permitsPerSecond(@NonNull final EndpointFamily family, final double permitsPerSecond) {
+            if (permitsPerSecond <= 0) {
+                throw new IllegalArgumentException("permitsPerSecond should be positive: " + permitsPerSecond);
+            }
+            this.permitsPerSecond.put(family, permitsPerSecond);
+            return this;
+        }
+
+        /**
+         * Max burst size in seconds of the rate. Default: 1 second.
+         */
+        public Builder burstSeconds(final double burstSeconds) {
+            this.burstSeconds = burstSeconds;
+            return this;
+        }
+
+        /**
+         * Ratio to multiply the rate when the server answers 429. Default: 0.5.
+         */
+        public Builder backoffRatio(final double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * Lower bound of the rate, relative to the configured rate. Default: 0.05.
+         */
+        public Builder minimumRatio(final double minimumRatio) {
+            this.minimumRatio = minimumRatio;
+            return this;
+        }
+
+        /**
+         * Time in milliseconds to recover from the minimum rate to the configured rate. Default: 30 seconds.
+         */
+        public Builder recoveryPeriod(final long recoveryPeriod) {
+            this.recoveryPeriod = recoveryPeriod;
+            return this;
+        }
+
+        /**
+         * Scheduler to send queued calls. Default: shared daemon thread of this library.
+         */
+        public Builder scheduler(@NonNull final ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        Builder ticker(@NonNull final LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public ApiRateLimiter build() {
+            return new ApiRateLimiter(this);
+        }
+    }
+
+    private static final class Waiter {
+        private final BooleanSupplier cancelled;
+        private final Runnable task;
+
+        Waiter(final BooleanSupplier cancelled, final Runnable task) {
+            this.cancelled = cancelled;
+            this.task = task;
+        }
+    }
+
+    private final class Bucket {
+        private final double maxRate;
+        private final double minRate;
+        private final double burstSeconds;
+        private final double backoffRatio;
+        private final long recoveryNanos;
+        private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+        private double rate;
+        private double tokens;
+        private long lastRefillNanos;
+        private long lastThrottledNanos;
+        private boolean drainScheduled;
+
+        Bucket(final double permitsPerSecond, final Builder builder) {
+            this.maxRate = permitsPerSecond;
+            this.minRate = permitsPerSecond * builder.minimumRatio;
+            this.burstSeconds = builder.burstSeconds;
+            this.backoffRatio = builder.backoffRatio;
+            this.recoveryNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(builder.recoveryPeriod, 1));
+            this.rate = permitsPerSecond;
+            this.tokens = capacity();
+            this.lastRefillNanos = ticker.getAsLong();
+            this.lastThrottledNanos = lastRefillNanos - THROTTLE_COOLDOWN_NANOS;
+        }
+
+        void acquire(final Waiter waiter) {
+            final List<Waiter> cancelled = new ArrayList<>();
+            final boolean acquired;
+            synchronized (this) {
+                refill();
+                pollCancelled(cancelled);
+                acquired = waiters.isEmpty() && tokens >= 1;
+                if (acquired) {
+                    tokens -= 1;
+                } else {
+                    waiters.add(waiter);
+                    scheduleDrain();
+                }
+            }
+            run(cancelled);
+            if (acquired) {
+                waiter.task.run();
+            }
+        }
+
+        void decreaseRate() {
+            synchronized (this) {
+                refill();
+                if (lastRefillNanos - lastThrottledNanos < THROTTLE_COOLDOWN_NANOS) {
+                    // Responses of calls sent before the last decrease. Already handled.
+                    return;
+                }
+                lastThrottledNanos = lastRefillNanos;
+                rate = Math.max(minRate, rate * backoffRatio);
+                tokens = Math.min(tokens, 0);
+                log.debug("Rate limit decreased to {}/s", rate);
+            }
+        }
+
+        synchronized double currentRate() {
+            refill();
+            return rate;
+        }
+
+        synchronized int queueSize() {
+            return waiters.size();
+        }
+
+        private void drain() {
+            final List<Waiter> ready = new ArrayList<>();
+            synchronized (this) {
+                drainScheduled = false;
+                refill();
+                pollCancelled(ready);
+                while (!waiters.isEmpty() && tokens >= 1) {
+                    tokens -= 1;
+                    ready.add(waiters.poll());
+                    pollCancelled(ready);
+                }
+                scheduleDrain();
+            }
+            run(ready);
+        }
+
+        private void run(final List<Waiter> ready) {
+            for (Waiter waiter : ready) {
+                try {
+                    waiter.task.run();
+                } catch (RuntimeException e) {
+                    log.warn("Rate limited task threw an exception", e);
+                }
+            }
+        }
+
+        // Must be called with lock held.
+        private void pollCancelled(final List<Waiter> cancelled) {
+            while (!waiters.isEmpty() && waiters.peek().cancelled.getAsBoolean()) {
+                cancelled.add(waiters.poll());
+            }
+        }
+
+        // Must be called with lock held.
+        private void scheduleDrain() {
+            if (drainScheduled || waiters.isEmpty()) {
+                return;
+            }
+            final long delayNanos = (long) Math.ceil((1 - tokens) / rate * TimeUnit.SECONDS.toNanos(1));
+            try {
+                scheduler.schedule(this::drain, Math.max(delayNanos, 0), NANOSECONDS);
+                drainScheduled = true;
+            } catch (RejectedExecutionException e) {
+                log.warn("Failed to schedule rate limited calls", e);
+            }
+        }
+
+        // Must be called with lock held.
+        private void refill() {
+            final long now = ticker.getAsLong();
+            final long elapsedNanos = now - lastRefillNanos;
+            if (elapsedNanos <= 0) {
+                return;
+            }
+            lastRefillNanos = now;
+            if (rate < maxRate) {
+                rate = Math.min(maxRate, rate + (maxRate - minRate) * elapsedNanos / recoveryNanos);
+            }
+            tokens = Math.min(capacity(), tokens + rate * elapsedNanos / TimeUnit.SECONDS.toNanos(1));
+        }
+
+        private double capacity() {
+            return Math.max(1, rate * burstSeconds);
+        }
+    }
+}
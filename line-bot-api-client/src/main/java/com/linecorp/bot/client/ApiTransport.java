@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.util.concurrent.CompletableFuture;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Transport which executes API calls of {@link LineMessagingClient}, after all client side policies,
+ * e.g. {@link LineMessagingClientBuilder#retryPolicy(RetryPolicy)}, are applied.
+ *
+ * <p>The default transport enqueues calls to okhttp. Implement this to answer calls without the network,
+ * e.g. by a stub in tests, or to send them by another HTTP client.
+ *
+ * @see LineMessagingClientBuilder#transport(ApiTransport)
+ */
+public interface ApiTransport {
+    /**
+     * Execute an API call.
+     *
+     * @param endpoint endpoint of the call.
+     * @param call call created by Retrofit. Its {@link Call#request()} doesn't have headers added by okhttp
+     * interceptors, e.g. {@code Authorization}. {@link Call#isCanceled()} turns true when the caller gives up.
+     * @return future of raw response. Completed exceptionally on I/O failure.
+     */
+    <T> CompletableFuture<Response<T>> execute(ApiEndpoint endpoint, Call<T> call);
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import com.linecorp.bot.client.exception.GeneralLineMessagingException;
+import com.linecorp.bot.client.exception.LineMessagingException;
+import com.linecorp.bot.model.Multicast;
+import com.linecorp.bot.model.PushMessage;
+import com.linecorp.bot.model.ReplyMessage;
+import com.linecorp.bot.model.message.Message;
+import com.linecorp.bot.model.profile.MembersIdsResponse;
+import com.linecorp.bot.model.profile.UserProfileResponse;
+import com.linecorp.bot.model.response.BotApiResponse;
+import com.linecorp.bot.model.richmenu.RichMenu;
+import com.linecorp.bot.model.richmenu.RichMenuIdResponse;
+import com.linecorp.bot.model.richmenu.RichMenuListResponse;
+import com.linecorp.bot.model.richmenu.RichMenuResponse;
+
+/**
+ * Synchronous variant of {@link LineMessagingClient}.
+ *
+ * <p>Each method executes the HTTP request on the calling thread and returns its result,
+ * without allocating a future nor handing the call over to dispatcher threads.
+ * Suitable for applications which block on each API call anyway.
+ *
+ * <p>Client side policies of {@link LineMessagingClientBuilder}, e.g. rate limiter and retry policy,
+ * are not applied, because they are asynchronous. For the same reason, overloads of
+ * {@link LineMessagingClient} taking the number of calls in flight have no blocking counterparts.
+ *
+ * @see LineMessagingClientBuilder#buildBlockingClient()
+ */
+public interface BlockingLineMessagingClient {
+    /**
+     * Reply to messages from users.
+     *
+     * @see LineMessagingClient#replyMessage(ReplyMessage)
+     */
+    BotApiResponse replyMessage(ReplyMessage replyMessage) throws LineMessagingException;
+
+    /**
+     * Reply to messages from users, before the deadline of the reply token.
+     *
+     * <p>The deadline is ignored, as the call is sent immediately on the calling thread.
+     *
+     * @see LineMessagingClient#replyMessage(ReplyMessage, Instant)
+     */
+    default BotApiResponse replyMessage(ReplyMessage replyMessage, Instant deadline)
+            throws LineMessagingException {
+        return replyMessage(replyMessage);
+    }
+
+    /**
+     * Send messages to users when you want to.
+     *
+     * @see LineMessagingClient#pushMessage(PushMessage)
+     */
+    BotApiResponse pushMessage(PushMessage pushMessage) throws LineMessagingException;
+
+    /**
+     * Send messages to users, preferring pushes with earlier deadlines.
+     *
+     * <p>The deadline is ignored, as the call is sent immediately on the calling thread.
+     *
+     * @see LineMessagingClient#pushMessage(PushMessage, Instant)
+     */
+    default BotApiResponse pushMessage(PushMessage pushMessage, Instant deadline) throws LineMessagingException {
+        return pushMessage(pushMessage);
+    }
+
+    /**
+     * Send messages to multiple users at any time.
+     *
+     * @see LineMessagingClient#multicast(Multicast)
+     */
+    BotApiResponse multicast(Multicast multicast) throws LineMessagingException;
+
+    /**
+     * Send messages to an arbitrary number of users, in chunks of 150 users sent one by one.
+     *
+     * @return result of the chunks. Chunks failed to be sent are reported by
+     * {@link MulticastResult#getFailedChunks()} instead of an exception.
+     *
+     * @see LineMessagingClient#multicast(Iterable, List)
+     */
+    default MulticastResult multicast(Iterable<String> to, List<Message> messages) {
+        return MulticastSplitter.multicastSequentially(
+                to.iterator(), chunk -> multicast(new Multicast(chunk, messages)));
+    }
+
+    /**
+     * Reply to messages from users with messages prepared by {@link PreparedMessages#of(List)}.
+     *
+     * @see LineMessagingClient#replyMessage(String, PreparedMessages)
+     */
+    default BotApiResponse replyMessage(String replyToken, PreparedMessages messages)
+            throws LineMessagingException {
+        return replyMessage(new ReplyMessage(replyToken, messages.getMessages()));
+    }
+
+    /**
+     * Send messages prepared by {@link PreparedMessages#of(List)} to a user.
+     *
+     * @see LineMessagingClient#pushMessage(String, PreparedMessages)
+     */
+    default BotApiResponse pushMessage(String to, PreparedMessages messages) throws LineMessagingException {
+        return pushMessage(new PushMessage(to, messages.getMessages()));
+    }
+
+    /**
+     * Send messages prepared by {@link PreparedMessages#of(List)} to multiple users.
+     *
+     * @see LineMessagingClient#multicast(Set, PreparedMessages)
+     */
+    default BotApiResponse multicast(Set<String> to, PreparedMessages messages) throws LineMessagingException {
+        return multicast(new Multicast(to, messages.getMessages()));
+    }
+
+    /**
+     * Download image, video, and audio data sent from users.
+     * Close the stream of the response after reading it.
+     *
+     * @see LineMessagingClient#getMessageContent(String)
+     */
+    MessageContentResponse getMessageContent(String messageId) throws LineMessagingException;
+
+    /**
+     * Get user profile information.
+     *
+     * @see LineMessagingClient#getProfile(String)
+     */
+    UserProfileResponse getProfile(String userId) throws LineMessagingException;
+
+    /**
+     * Get group member profile.
+     *
+     * @see LineMessagingClient#getGroupMemberProfile(String, String)
+     */
+    UserProfileResponse getGroupMemberProfile(String groupId, String userId) throws LineMessagingException;
+
+    /**
+     * Get room member profile.
+     *
+     * @see LineMessagingClient#getRoomMemberProfile(String, String)
+     */
+    UserProfileResponse getRoomMemberProfile(String roomId, String userId) throws LineMessagingException;
+
+    /**
+     * Get (a part of) group member list.
+     *
+     * @see LineMessagingClient#getGroupMembersIds(String, String)
+     */
+    MembersIdsResponse getGroupMembersIds(String groupId, String start) throws LineMessagingException;
+
+    /**
+     * Get (a part of) room member list.
+     *
+     * @see LineMessagingClient#getRoomMembersIds(String, String)
+     */
+    MembersIdsResponse getRoomMembersIds(String roomId, String start) throws LineMessagingException;
+
+    /**
+     * Get all member IDs of a group, fetching pages of {@link #getGroupMembersIds(String, String)}
+     * on the consuming thread when it reaches them.
+     *
+     * <p>If fetching a page failed, the stream throws {@link java.util.concurrent.CompletionException}
+     * with the cause.
+     *
+     * @see LineMessagingClient#getGroupMembersIdsStream(String)
+     */
+    default Stream<String> getGroupMembersIdsStream(String groupId) {
+        return MembersIdsIterator.blockingStream(start -> getGroupMembersIds(groupId, start));
+    }
+
+    /**
+     * Get all member IDs of a room, fetching pages of {@link #getRoomMembersIds(String, String)}
+     * on the consuming thread when it reaches them.
+     *
+     * @see #getGroupMembersIdsStream(String)
+     * @see LineMessagingClient#getRoomMembersIdsStream(String)
+     */
+    default Stream<String> getRoomMembersIdsStream(String roomId) {
+        return MembersIdsIterator.blockingStream(start -> getRoomMembersIds(roomId, start));
+    }
+
+    /**
+     * Leave a group.
+     *
+     * @see LineMessagingClient#leaveGroup(String)
+     */
+    BotApiResponse leaveGroup(String groupId) throws LineMessagingException;
+
+    /**
+     * Leave a room.
+     *
+     * @see LineMessagingClient#leaveRoom(String)
+     */
+    BotApiResponse leaveRoom(String roomId) throws LineMessagingException;
+
+    /**
+     * Get a rich menu.
+     *
+     * @see LineMessagingClient#getRichMenu(String)
+     */
+    RichMenuResponse getRichMenu(String richMenuId) throws LineMessagingException;
+
+    /**
+     * Creates a rich menu.
+     *
+     * @see LineMessagingClient#createRichMenu(RichMenu)
+     */
+    RichMenuIdResponse createRichMenu(RichMenu richMenu) throws LineMessagingException;
+
+    /**
+     * Deletes a rich menu.
+     *
+     * @see LineMessagingClient#deleteRichMenu(String)
+     */
+    BotApiResponse deleteRichMenu(String richMenuId) throws LineMessagingException;
+
+    /**
+     * Get rich menu ID of user.
+     *
+     * @see LineMessagingClient#getRichMenuIdOfUser(String)
+     */
+    RichMenuIdResponse getRichMenuIdOfUser(String userId) throws LineMessagingException;
+
+    /**
+     * Link rich menu to user.
+     *
+     * @see LineMessagingClient#linkRichMenuIdToUser(String, String)
+     */
+    BotApiResponse linkRichMenuIdToUser(String userId, String richMenuId) throws LineMessagingException;
+
+    /**
+     * Unlink rich menu from user.
+     *
+     * @see LineMessagingClient#unlinkRichMenuIdFromUser(String)
+     */
+    BotApiResponse unlinkRichMenuIdFromUser(String userId) throws LineMessagingException;
+
+    /**
+     * Download rich menu image.
+     * Close the stream of the response after reading it.
+     *
+     * @see LineMessagingClient#getRichMenuImage(String)
+     */
+    MessageContentResponse getRichMenuImage(String richMenuId) throws LineMessagingException;
+
+    /**
+     * Upload rich menu image.
+     *
+     * @see LineMessagingClient#setRichMenuImage(String, String, byte[])
+     */
+    BotApiResponse setRichMenuImage(String richMenuId, String contentType, byte[] content)
+            throws LineMessagingException;
+
+    /**
+     * Upload a rich menu image from a file.
+     *
+     * <p>The default implementation reads the whole file into memory.
+     * Implementations may stream the file instead.
+     *
+     * @see LineMessagingClient#setRichMenuImage(String, String, Path)
+     */
+    default BotApiResponse setRichMenuImage(String richMenuId, String contentType, Path image)
+            throws LineMessagingException {
+        final byte[] content;
+        try {
+            content = Files.readAllBytes(image);
+        } catch (IOException e) {
+            throw new GeneralLineMessagingException(e.getMessage(), null, e);
+        }
+        return setRichMenuImage(richMenuId, contentType, content);
+    }
+
+    /**
+     * Upload a rich menu image from a file channel, from its current position to the end.
+     *
+     * @see LineMessagingClient#setRichMenuImage(String, String, FileChannel)
+     */
+    default BotApiResponse setRichMenuImage(String richMenuId, String contentType, FileChannel image)
+            throws LineMessagingException {
+        final byte[] content;
+        try {
+            content = RichMenuImageUploads.readAll(image);
+        } catch (IOException e) {
+            throw new GeneralLineMessagingException(e.getMessage(), null, e);
+        }
+        return setRichMenuImage(richMenuId, contentType, content);
+    }
+
+    /**
+     * Upload a rich menu image from a stream. The stream is not closed.
+     *
+     * @param length number of bytes to be read from {@code image}.
+     *
+     * @see LineMessagingClient#setRichMenuImage(String, String, InputStream, long)
+     */
+    default BotApiResponse setRichMenuImage(String richMenuId, String contentType, InputStream image,
+                                            long length) throws LineMessagingException {
+        final byte[] content;
+        try {
+            content = RichMenuImageUploads.readAll(image, length);
+        } catch (IOException e) {
+            throw new GeneralLineMessagingException(e.getMessage(), null, e);
+        }
+        return setRichMenuImage(richMenuId, contentType, content);
+    }
+
+    /**
+     * Upload images of multiple rich menus one by one.
+     *
+     * @param images image files keyed by rich menu ID.
+     *
+     * @return failure causes keyed by rich menu ID. Empty if all uploads succeeded.
+     *
+     * @see LineMessagingClient#setRichMenuImages(Map, String)
+     */
+    default Map<String, Throwable> setRichMenuImages(Map<String, Path> images, String contentType) {
+        final Map<String, Throwable> failures = new LinkedHashMap<>();
+        for (Entry<String, Path> image : images.entrySet()) {
+            try {
+                setRichMenuImage(image.getKey(), contentType, image.getValue());
+            } catch (LineMessagingException | RuntimeException e) {
+                failures.put(image.getKey(), e);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Gets a list of all uploaded rich menus.
+     *
+     * @see LineMessagingClient#getRichMenuList()
+     */
+    RichMenuListResponse getRichMenuList() throws LineMessagingException;
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static java.util.Collections.emptyList;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import com.linecorp.bot.client.exception.GeneralLineMessagingException;
+import com.linecorp.bot.client.exception.LineMessagingException;
+import com.linecorp.bot.model.Multicast;
+import com.linecorp.bot.model.PushMessage;
+import com.linecorp.bot.model.ReplyMessage;
+import com.linecorp.bot.model.message.Message;
+import com.linecorp.bot.model.profile.MembersIdsResponse;
+import com.linecorp.bot.model.profile.UserProfileResponse;
+import com.linecorp.bot.model.response.BotApiResponse;
+import com.linecorp.bot.model.richmenu.RichMenu;
+import com.linecorp.bot.model.richmenu.RichMenuIdResponse;
+import com.linecorp.bot.model.richmenu.RichMenuListResponse;
+import com.linecorp.bot.model.richmenu.RichMenuResponse;
+
+import lombok.AllArgsConstructor;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Implementation of {@link BlockingLineMessagingClient} executing calls by {@link Call#execute()}.
+ */
+@AllArgsConstructor(onConstructor = @__(@SuppressWarnings("deprecation")))
+class BlockingLineMessagingClientImpl implements BlockingLineMessagingClient {
+    private static final ExceptionConverter EXCEPTION_CONVERTER = new ExceptionConverter();
+    private static final String ORG_TYPE_GROUP = "group";
+    private static final String ORG_TYPE_ROOM = "room";
+    private static final BotApiResponse BOT_API_SUCCESS_RESPONSE = new BotApiResponse("", emptyList());
+
+    @SuppressWarnings("deprecation")
+    private final LineMessagingService retrofitImpl;
+
+    @Override
+    public BotApiResponse replyMessage(final ReplyMessage replyMessage) throws LineMessagingException {
+        return execute(retrofitImpl.replyMessage(replyMessage));
+    }
+
+    @Override
+    public BotApiResponse pushMessage(final PushMessage pushMessage) throws LineMessagingException {
+        return execute(retrofitImpl.pushMessage(pushMessage));
+    }
+
+    @Override
+    public BotApiResponse multicast(final Multicast multicast) throws LineMessagingException {
+        return execute(retrofitImpl.multicast(multicast));
+    }
+
+    @Override
+    public BotApiResponse replyMessage(final String replyToken, final PreparedMessages messages)
+            throws LineMessagingException {
+        return execute(retrofitImpl.replyMessageRaw(
+                preparedBody(LineMessagingClientImpl.REPLY_TOKEN_PREFIX, replyToken, messages)));
+    }
+
+    @Override
+    public BotApiResponse pushMessage(final String to, final PreparedMessages messages)
+            throws LineMessagingException {
+        return execute(retrofitImpl.pushMessageRaw(preparedBody(LineMessagingClientImpl.TO_PREFIX, to, messages)));
+    }
+
+    @Override
+    public BotApiResponse multicast(final Set<String> to, final PreparedMessages messages)
+            throws LineMessagingException {
+        return execute(retrofitImpl.multicastRaw(preparedBody(LineMessagingClientImpl.TO_PREFIX, to, messages)));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation serializes {@code messages} only once and reuses it for all chunks.
+     */
+    @Override
+    public MulticastResult multicast(final Iterable<String> to, final List<Message> messages) {
+        final PreparedMessages prepared = PreparedMessages.of(messages);
+        return MulticastSplitter.multicastSequentially(to.iterator(), chunk -> multicast(chunk, prepared));
+    }
+
+    @Override
+    public MessageContentResponse getMessageContent(final String messageId) throws LineMessagingException {
+        return executeContent(retrofitImpl.getMessageContent(messageId));
+    }
+
+    @Override
+    public UserProfileResponse getProfile(final String userId) throws LineMessagingException {
+        return execute(retrofitImpl.getProfile(userId));
+    }
+
+    @Override
+    public UserProfileResponse getGroupMemberProfile(final String groupId, final String userId)
+            throws LineMessagingException {
+        return execute(retrofitImpl.getMemberProfile(ORG_TYPE_GROUP, groupId, userId));
+    }
+
+    @Override
+    public UserProfileResponse getRoomMemberProfile(final String roomId, final String userId)
+            throws LineMessagingException {
+        return execute(retrofitImpl.getMemberProfile(ORG_TYPE_ROOM, roomId, userId));
+    }
+
+    @Override
+    public MembersIdsResponse getGroupMembersIds(final String groupId, final String start)
+            throws LineMessagingException {
+        return execute(retrofitImpl.getMembersIds(ORG_TYPE_GROUP, groupId, start));
+    }
+
+    @Override
+    public MembersIdsResponse getRoomMembersIds(final String roomId, final String start)
+            throws LineMessagingException {
+        return execute(retrofitImpl.getMembersIds(ORG_TYPE_ROOM, roomId, start));
+    }
+
+    @Override
+    public BotApiResponse leaveGroup(final String groupId) throws LineMessagingException {
+        return execute(retrofitImpl.leaveGroup(groupId));
+    }
+
+    @Override
+    public BotApiResponse leaveRoom(final String roomId) throws LineMessagingException {
+        return execute(retrofitImpl.leaveRoom(roomId));
+    }
+
+    @Override
+    public RichMenuResponse getRichMenu(final String richMenuId) throws LineMessagingException {
+        return execute(retrofitImpl.getRichMenu(richMenuId));
+    }
+
+    @Override
+    public RichMenuIdResponse createRichMenu(final RichMenu richMenu) throws LineMessagingException {
+        return execute(retrofitImpl.createRichMenu(richMenu));
+    }
+
+    @Override
+    public BotApiResponse deleteRichMenu(final String richMenuId) throws LineMessagingException {
+        execute(retrofitImpl.deleteRichMenu(richMenuId));
+        return BOT_API_SUCCESS_RESPONSE;
+    }
+
+    @Override
+    public RichMenuIdResponse getRichMenuIdOfUser(final String userId) throws LineMessagingException {
+        return execute(retrofitImpl.getRichMenuIdOfUser(userId));
+    }
+
+    @Override
+    public BotApiResponse linkRichMenuIdToUser(final String userId, final String richMenuId)
+            throws LineMessagingException {
+        execute(retrofitImpl.linkRichMenuToUser(userId, richMenuId));
+        return BOT_API_SUCCESS_RESPONSE;
+    }
+
+    @Override
+    public BotApiResponse unlinkRichMenuIdFromUser(final String userId) throws LineMessagingException {
+        execute(retrofitImpl.unlinkRichMenuIdFromUser(userId));
+        return BOT_API_SUCCESS_RESPONSE;
+    }
+
+    @Override
+    public MessageContentResponse getRichMenuImage(final String richMenuId) throws LineMessagingException {
+        return executeContent(retrofitImpl.getRichMenuImage(richMenuId));
+    }
+
+    @Override
+    public BotApiResponse setRichMenuImage(
+            final String richMenuId, final String contentType, final byte[] content)
+            throws LineMessagingException {
+        final RequestBody requestBody = RequestBody.create(MediaType.parse(contentType), content);
+        execute(retrofitImpl.uploadRichMenuImage(richMenuId, requestBody));
+        return BOT_API_SUCCESS_RESPONSE;
+    }
+
+    @Override
+    public BotApiResponse setRichMenuImage(final String richMenuId, final String contentType, final Path image)
+            throws LineMessagingException {
+        final RequestBody requestBody;
+        try {
+            requestBody = StreamingRequestBody.of(MediaType.parse(contentType), image);
+        } catch (IOException e) {
+            throw new GeneralLineMessagingException(e.getMessage(), null, e);
+        }
+        execute(retrofitImpl.uploadRichMenuImage(richMenuId, requestBody));
+        return BOT_API_SUCCESS_RESPONSE;
+    }
+
+    @Override
+    public BotApiResponse setRichMenuImage(
+            final String richMenuId, final String contentType, final FileChannel image)
+            throws LineMessagingException {
+        final RequestBody requestBody;
+        try {
+            requestBody = StreamingRequestBody.of(MediaType.parse(contentType), image);
+        } catch (IOException e) {
+            throw new GeneralLineMessagingException(e.getMessage(), null, e);
+        }
+        execute(retrofitImpl.uploadRichMenuImage(richMenuId, requestBody));
+        return BOT_API_SUCCESS_RESPONSE;
+    }
+
+    @Override
+    public BotApiResponse setRichMenuImage(
+            final String richMenuId, final String contentType, final InputStream image, final long length)
+            throws LineMessagingException {
+        final RequestBody requestBody = StreamingRequestBody.of(MediaType.parse(contentType), image, length);
+        execute(retrofitImpl.uploadRichMenuImage(richMenuId, requestBody));
+        return BOT_API_SUCCESS_RESPONSE;
+    }
+
+    @Override
+    public RichMenuListResponse getRichMenuList() throws LineMessagingException {
+        return execute(retrofitImpl.getRichMenuList());
+    }
+
+    private static RequestBody preparedBody(final byte[] prefix, final Object value,
+                                            final PreparedMessages messages) throws LineMessagingException {
+        try {
+            return LineMessagingClientImpl.preparedBody(prefix, value, messages);
+        } catch (UncheckedIOException e) {
+            throw new GeneralLineMessagingException(e.getMessage(), null, e);
+        }
+    }
+
+    private static <T> T execute(final Call<T> call) throws LineMessagingException {
+        final Response<T> response = executeRaw(call);
+        if (!response.isSuccessful()) {
+            throw EXCEPTION_CONVERTER.apply(response);
+        }
+        return response.body();
+    }
+
+    private static MessageContentResponse executeContent(final Call<ResponseBody> call)
+            throws LineMessagingException {
+        final Response<ResponseBody> response = executeRaw(call);
+        if (!response.isSuccessful()) {
+            throw EXCEPTION_CONVERTER.apply(response);
+        }
+        try {
+            return LineMessagingClientImpl.ResponseBodyCallbackAdaptor.convert(response);
+        } catch (RuntimeException e) {
+            response.body().close();
+            throw new GeneralLineMessagingException(e.getMessage(), null, e);
+        }
+    }
+
+    private static <T> Response<T> executeRaw(final Call<T> call) throws LineMessagingException {
+        try {
+            return call.execute();
+        } catch (IOException e) {
+            throw new GeneralLineMessagingException(e.getMessage(), null, e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import com.linecorp.bot.client.BulkResult.FailedItem;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs an API call for each of a large number of IDs, e.g. linking a rich menu to a cohort of users,
+ * with bounded concurrency.
+ *
+ * <p>IDs are pulled from the source only when a call in flight is completed, so a slow server slows down
+ * reading of the source instead of piling up calls. Memory usage is proportional to the concurrency,
+ * not to the number of IDs. Failures don't stop the execution and are reported by {@link BulkResult}.
+ *
+ * <pre>{@code
+ * BulkExecutor executor = BulkExecutor.builder()
+ *         .concurrency(32)
+ *         .progressListener((completed, failed) -> log.info("{} done, {} failed", completed, failed))
+ *         .build();
+ * BulkResult result = executor
+ *         .execute(userIds, userId -> client.linkRichMenuIdToUser(userId, richMenuId))
+ *         .join();
+ * }</pre>
+ *
+ * <p>An instance has no state and can be shared by multiple executions.
+ */
+@Slf4j
+public final class BulkExecutor {
+    private final int concurrency;
+    private final long progressInterval;
+    private final int maxReportedFailures;
+    private final BulkProgressListener progressListener;
+
+    private BulkExecutor(final Builder builder) {
+        this.concurrency = builder.concurrency;
+        this.progressInterval = builder.progressInterval;
+        this.maxReportedFailures = builder.maxReportedFailures;
+        this.progressListener = builder.progressListener;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Run {@code operation} for all IDs of the stream. The stream is closed when all calls are completed.
+     */
+    public CompletableFuture<BulkResult> execute(
+            @NonNull final Stream<String> ids,
+            @NonNull final Function<String, ? extends CompletableFuture<?>> operation) {
+        return execute(ids.iterator(), operation).whenComplete((result, t) -> ids.close());
+    }
+
+    /**
+     * Run {@code operation} for all IDs of the iterator.
+     *
+     * @return future completed when all calls are completed. Completed exceptionally only when
+     * {@code ids} throws an exception.
+     */
+    public CompletableFuture<BulkResult> execute(
+            @NonNull final Iterator<String> ids,
+            @NonNull final Function<String, ? extends CompletableFuture<?>> operation) {
+        final Execution execution = new Execution();
+        return ConcurrencyWindow.run(ids, concurrency, operation, execution::onCompleted)
+                                .thenApply(ignored -> execution.result());
+    }
+
+    private class Execution {
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final Queue<FailedItem> failures = new ConcurrentLinkedQueue<>();
+
+        void onCompleted(final String id, final Throwable t) {
+            long failedCount = failed.get();
+            if (t != null) {
+                failedCount = failed.incrementAndGet();
+                if (failedCount <= maxReportedFailures) {
+                    failures.add(new FailedItem(id, t));
+                }
+            }
+            final long completedCount = completed.incrementAndGet();
+            if (progressListener != null && completedCount % progressInterval == 0) {
+                notifyProgress(completedCount, failedCount);
+            }
+        }
+
+        BulkResult result() {
+            final long completedCount = completed.get();
+            final long failedCount = failed.get();
+            if (progressListener != null && completedCount % progressInterval != 0) {
+                // Report the last partial interval.
+                notifyProgress(completedCount, failedCount);
+            }
+            return new BulkResult(completedCount, failedCount, new ArrayList<>(failures));
+        }
+
+        private void notifyProgress(final long completedCount, final long failedCount) {
+            try {
+                progressListener.onProgress(completedCount, failedCount);
+            } catch (RuntimeException e) {
+                log.warn("Progress listener threw an exception", e);
+            }
+        }
+    }
+
+    public static final class Builder {
+        private int concurrency = 16;
+        private long progressInterval = 1000;
+        private int maxReportedFailures = 10_000;
+        private BulkProgressListener progressListener;
+
+        private Builder() {
+        }
+
+        /**
+         * Max number of API calls in flight. Default: 16.
+         */
+        public Builder concurrency(final int concurrency) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("concurrency should be positive: " + concurrency);
+            }
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Listener notified each {@link #progressInterval(long)} completed calls and at the end.
+         */
+        public Builder progressListener(@NonNull final BulkProgressListener progressListener) {
+            this.progressListener = progressListener;
+            return this;
+        }
+
+        /**
+         * Number of completed calls between progress notifications. Default: 1000.
+         */
+        public Builder progressInterval(final long progressInterval) {
+            if (progressInterval < 1) {
+                throw new IllegalArgumentException("progressInterval should be positive: " + progressInterval);
+            }
+            this.progressInterval = progressInterval;
+            return this;
+        }
+
+        /**
+         * Max number of failures kept in {@link BulkResult#getFailures()}. Default: 10000.
+         * Further failures are only counted, so the result stays small even if the server is down.
+         */
+        public Builder maxReportedFailures(final int maxReportedFailures) {
+            if (maxReportedFailures < 0) {
+                throw new IllegalArgumentException(
+                        "maxReportedFailures should not be negative: " + maxReportedFailures);
+            }
+            this.maxReportedFailures = maxReportedFailures;
+            return this;
+        }
+
+        public BulkExecutor build() {
+            return new BulkExecutor(this);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.util.List;
+
+import lombok.Value;
+
+/**
+ * Result of {@link BulkExecutor#execute(java.util.Iterator, java.util.function.Function)}.
+ */
+@Value
+public class BulkResult {
+    /**
+     * Number of API calls made.
+     */
+    long completedCount;
+
+    /**
+     * Number of API calls failed.
+     */
+    long failedCount;
+
+    /**
+     * IDs whose call failed, up to {@link BulkExecutor.Builder#maxReportedFailures(int)}.
+     * Empty if all calls succeeded.
+     */
+    List<FailedItem> failures;
+
+    /**
+     * Returns true if all calls succeeded.
+     */
+    public boolean isSucceeded() {
+        return failedCount == 0;
+    }
+
+    /**
+     * Returns true if some failures are counted but not kept in {@link #getFailures()}.
+     */
+    public boolean isFailuresTruncated() {
+        return failedCount > failures.size();
+    }
+
+    @Value
+    public static class FailedItem {
+        /**
+         * ID passed to the failed API call.
+         */
+        String id;
+
+        /**
+         * Cause of the failure. Usually an instance of
+         * {@link com.linecorp.bot.client.exception.LineMessagingException}.
+         */
+        Throwable cause;
+    }
+}
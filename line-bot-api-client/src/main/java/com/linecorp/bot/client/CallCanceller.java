@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import retrofit2.Call;
+
+/**
+ * Cancels {@link Call}s enqueued for an API call of {@link LineMessagingClientImpl},
+ * including retries and hedged attempts, when the caller gives up on the result.
+ */
+final class CallCanceller {
+    private List<Call<?>> calls = new ArrayList<>(1);
+    private boolean cancelled;
+    private Throwable cause;
+
+    /**
+     * Register a call about to be enqueued.
+     *
+     * @return false if already cancelled. The call should not be enqueued then.
+     */
+    synchronized boolean register(final Call<?> call) {
+        if (cancelled) {
+            return false;
+        }
+        calls.add(call);
+        return true;
+    }
+
+    /**
+     * Reason why the caller gave up, or null if not cancelled.
+     */
+    synchronized Throwable cause() {
+        return cause;
+    }
+
+    /**
+     * Cancel registered calls, releasing their connections and dispatcher slots,
+     * and reject calls registered later.
+     *
+     * @param cause reason why the caller gave up, e.g. {@link java.util.concurrent.CancellationException}.
+     */
+    void cancel(final Throwable cause) {
+        final List<Call<?>> toCancel;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            this.cause = cause;
+            toCancel = calls;
+            calls = null;
+        }
+        for (Call<?> call : toCancel) {
+            call.cancel();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link CompletableFuture} returned by {@link LineMessagingClientImpl}, which cancels the underlying
+ * {@link retrofit2.Call}s when it's cancelled or completed exceptionally by the caller, e.g. on timeout.
+ *
+ * <p>Futures derived from it, e.g. by {@link #thenApply(java.util.function.Function)},
+ * don't propagate cancellation as usual.
+ */
+class CallFuture<T> extends CompletableFuture<T> {
+    private final CallCanceller canceller;
+
+    CallFuture() {
+        this(new CallCanceller());
+    }
+
+    CallFuture(final CallCanceller canceller) {
+        this.canceller = canceller;
+    }
+
+    CallCanceller canceller() {
+        return canceller;
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        final boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            canceller.cancel(new CancellationException());
+        }
+        return cancelled;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Calls still in flight are cancelled. It's a no-op for calls already completed.
+     */
+    @Override
+    public boolean completeExceptionally(final Throwable ex) {
+        final boolean completed = super.completeExceptionally(ex);
+        if (completed) {
+            canceller.cancel(ex);
+        }
+        return completed;
+    }
+}
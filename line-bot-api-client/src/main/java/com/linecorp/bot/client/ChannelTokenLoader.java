@@ -0,0 +1,38 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loader of a channel access token, called by {@link RefreshingChannelTokenSupplier}
+ * when the current token is about to expire.
+ *
+ * <p>Typically it issues a new token with the channel ID and the channel secret.
+ */
+@FunctionalInterface
+public interface ChannelTokenLoader {
+    /**
+     * Load a new channel access token. Don't block; complete the future when the token is issued.
+     *
+     * <p>Called on the thread of {@link RefreshingChannelTokenSupplier.Builder#scheduler(
+     * java.util.concurrent.ScheduledExecutorService)}, by default the single thread shared by
+     * the schedulers of this library, or on a thread calling the supplier when a reload is overdue.
+     * Blocking here delays the other tasks on that thread, e.g. timeouts of API calls.
+     */
+    CompletableFuture<IssuedChannelToken> load();
+}
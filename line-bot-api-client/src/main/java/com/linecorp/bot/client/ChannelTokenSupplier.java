@@ -16,6 +16,7 @@
 
 package com.linecorp.bot.client;
 
+import java.io.IOException;
 import java.util.function.Supplier;
 
 /**
@@ -26,4 +27,13 @@ import java.util.function.Supplier;
  */
 @FunctionalInterface
 public interface ChannelTokenSupplier extends Supplier<String> {
+    /**
+     * Returns the value of {@code Authorization} header sent with API calls.
+     *
+     * <p>Override it to return a pre-formatted value, or to fail the call by {@link IOException}
+     * when no token is available.
+     */
+    default String authorizationHeader() throws IOException {
+        return "Bearer " + get();
+    }
 }
@@ -0,0 +1,379 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.linecorp.bot.client.exception.CircuitBreakerOpenException;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Client side circuit breaker of API calls, keeping independent state per {@link EndpointFamily}.
+ *
+ * <p>Outcomes of the last {@link Builder#windowSize(int)} calls are recorded. A call is a failure if it fails
+ * by I/O error, including timeouts, or if its status code is converted to
+ * {@link com.linecorp.bot.client.exception.LineServerException} or
+ * {@link com.linecorp.bot.client.exception.GeneralLineMessagingException}, i.e. 5xx and unknown codes.
+ * Client errors like 400 don't count. A call is slow if it takes longer than {@link Builder#slowCallDuration(long)}.
+ * Calls cancelled by the caller aren't recorded, except the ones timed out by
+ * {@link LineMessagingClientBuilder#callTimeout(long)}, which are failures.
+ *
+ * <p>When the failure rate or the slow call rate reaches its threshold, the circuit opens and calls fail
+ * immediately with {@link CircuitBreakerOpenException} for {@link Builder#openDuration(long)}.
+ * Then the circuit becomes half-open and lets {@link Builder#halfOpenCalls(int)} calls through as probes.
+ * The circuit closes if they are healthy, or opens again otherwise.
+ *
+ * <pre>{@code
+ * LineMessagingClient client = LineMessagingClient
+ *         .builder(channelToken)
+ *         .circuitBreaker(CircuitBreaker.builder().openDuration(10_000).build())
+ *         .build();
+ * }</pre>
+ */
+@Slf4j
+public final class CircuitBreaker {
+    public enum State {
+        /** Calls are sent and their outcomes are recorded. */
+        CLOSED,
+
+        /** Calls fail immediately. */
+        OPEN,
+
+        /** Limited number of calls are sent to probe the server. */
+        HALF_OPEN,
+    }
+
+    private final Map<EndpointFamily, FamilyCircuit> circuits = new EnumMap<>(EndpointFamily.class);
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier ticker;
+
+    private CircuitBreaker(final Builder builder) {
+        this.windowSize = builder.windowSize;
+        this.minimumCalls = Math.min(builder.minimumCalls, builder.windowSize);
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(builder.slowCallDuration);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(builder.openDuration);
+        this.halfOpenCalls = builder.halfOpenCalls;
+        this.ticker = builder.ticker;
+        for (EndpointFamily family : EndpointFamily.values()) {
+            circuits.put(family, new FamilyCircuit(family));
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Current state of the circuit of the family.
+     */
+    public State getState(@NonNull final EndpointFamily family) {
+        return circuits.get(family).state();
+    }
+
+    /**
+     * Ratio of failed calls among recorded calls of the family, between 0 and 1.
+     */
+    public double getFailureRate(@NonNull final EndpointFamily family) {
+        return circuits.get(family).failureRate();
+    }
+
+    /**
+     * Ask for a permission to send a call of the family.
+     *
+     * @throws CircuitBreakerOpenException if the circuit is open.
+     */
+    Permit acquire(final EndpointFamily family) throws CircuitBreakerOpenException {
+        return circuits.get(family).acquire();
+    }
+
+    /**
+     * Record outcome of a call permitted by {@link #acquire(EndpointFamily)}.
+     */
+    void onComplete(final Permit permit, final boolean failure) {
+        final boolean slow = ticker.getAsLong() - permit.startNanos >= slowCallNanos;
+        permit.circuit.onComplete(permit, failure, slow);
+    }
+
+    /**
+     * Release the permission of a call cancelled by the caller, whose outcome says nothing about the server.
+     */
+    void onCancel(final Permit permit) {
+        permit.circuit.onCancel(permit);
+    }
+
+    /**
+     * Permission of a call, tied to the state of the circuit which granted it. Outcomes of calls permitted
+     * before the last state change are ignored, so a late response doesn't count as a probe or
+     * in the fresh window.
+     */
+    static final class Permit {
+        private final FamilyCircuit circuit;
+        private final long generation;
+        private final boolean probe;
+        private final long startNanos;
+        // Guarded by the circuit.
+        private boolean released;
+
+        private Permit(final FamilyCircuit circuit, final long generation, final boolean probe,
+                       final long startNanos) {
+            this.circuit = circuit;
+            this.generation = generation;
+            this.probe = probe;
+            this.startNanos = startNanos;
+        }
+    }
+
+    private final class FamilyCircuit {
+        private static final byte FAILURE = 1;
+        private static final byte SLOW = 2;
+
+        private final EndpointFamily family;
+        // Ring buffer of outcomes in CLOSED state.
+        private final byte[] outcomes = new byte[windowSize];
+        private int next;
+        private int recorded;
+        private int failures;
+        private int slowCalls;
+
+        private State state = State.CLOSED;
+        // Incremented on each state change.
+        private long generation;
+        private long openedNanos;
+        private int probesPermitted;
+        private int probesCompleted;
+        private int probeFailures;
+        private int slowProbes;
+
+        FamilyCircuit(final EndpointFamily family) {
+            this.family = family;
+        }
+
+        synchronized State state() {
+            return state;
+        }
+
+        synchronized double failureRate() {
+            return recorded == 0 ? 0 : (double) failures / recorded;
+        }
+
+        synchronized long acquire() throws CircuitBreakerOpenException {
+            final long now = ticker.getAsLong();
+            if (state == State.OPEN && now - openedNanos >= openNanos) {
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.OPEN || state == State.HALF_OPEN && probesPermitted >= halfOpenCalls) {
+                throw new CircuitBreakerOpenException("Circuit breaker of " + family + " is " + state);
+            }
+            final boolean probe = state == State.HALF_OPEN;
+            if (probe) {
+                probesPermitted++;
+            }
+            return new Permit(this, generation, probe, now);
+        }
+
+        synchronized void onComplete(final Permit permit, final boolean failure, final boolean slow) {
+            if (!release(permit)) {
+                // Permitted before the last state change, e.g. sent before the circuit opened.
+                return;
+            }
+            switch (state) {
+                case CLOSED:
+                    record(failure, slow);
+                    if (recorded >= minimumCalls && isUnhealthy(failures, slowCalls, recorded)) {
+                        transitionTo(State.OPEN);
+                    }
+                    break;
+                case HALF_OPEN:
+                    probesCompleted++;
+                    probeFailures += failure ? 1 : 0;
+                    slowProbes += slow ? 1 : 0;
+                    if (probesCompleted >= halfOpenCalls) {
+                        transitionTo(isUnhealthy(probeFailures, slowProbes, probesCompleted)
+                                     ? State.OPEN : State.CLOSED);
+                    }
+                    break;
+                case OPEN:
+                    // Not reachable, as the generation changes on opening.
+                    break;
+            }
+        }
+
+        synchronized void onCancel(final Permit permit) {
+            // Let another probe through, or the circuit would stay half-open forever.
+            if (release(permit) && permit.probe) {
+                probesPermitted--;
+            }
+        }
+
+        /**
+         * Mark the permit used.
+         *
+         * @return false if it's already used, or granted before the last state change.
+         */
+        private boolean release(final Permit permit) {
+            if (permit.released) {
+                return false;
+            }
+            permit.released = true;
+            return permit.generation == generation;
+        }
+
+        private boolean isUnhealthy(final int failureCount, final int slowCount, final int total) {
+            return (double) failureCount / total >= failureRateThreshold
+                   || (double) slowCount / total >= slowCallRateThreshold;
+        }
+
+        private void record(final boolean failure, final boolean slow) {
+            final byte outcome = (byte) ((failure ? FAILURE : 0) | (slow ? SLOW : 0));
+            if (recorded == outcomes.length) {
+                final byte evicted = outcomes[next];
+                failures -= evicted & FAILURE;
+                slowCalls -= (evicted & SLOW) >> 1;
+            } else {
+                recorded++;
+            }
+            outcomes[next] = outcome;
+            next = (next + 1) % outcomes.length;
+            failures += outcome & FAILURE;
+            slowCalls += (outcome & SLOW) >> 1;
+        }
+
+        private void transitionTo(final State newState) {
+            log.info("Circuit breaker of {} changed from {} to {}", family, state, newState);
+            state = newState;
+            generation++;
+            switch (newState) {
+                case OPEN:
+                    openedNanos = ticker.getAsLong();
+                    break;
+                case HALF_OPEN:
+                    probesPermitted = 0;
+                    probesCompleted = 0;
+                    probeFailures = 0;
+                    slowProbes = 0;
+                    break;
+                case CLOSED:
+                    next = 0;
+                    recorded = 0;
+                    failures = 0;
+                    slowCalls = 0;
+                    break;
+            }
+        }
+    }
+
+    public static final class Builder {
+        private int windowSize = 100;
+        private int minimumCalls = 20;
+        private double failureRateThreshold = 0.5;
+        private double slowCallRateThreshold = 0.8;
+        private long slowCallDuration = 5_000;
+        private long openDuration = 30_000;
+        private int halfOpenCalls = 5;
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder() {
+        }
+
+        /**
+         * Number of last calls whose outcomes are recorded. Default: 100.
+         */
+        public Builder windowSize(final int windowSize) {
+            if (windowSize < 1) {
+                throw new IllegalArgumentException("windowSize should be positive: " + windowSize);
+            }
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /**
+         * Min number of recorded calls to evaluate the rates. Default: 20.
+         */
+        public Builder minimumCalls(final int minimumCalls) {
+            if (minimumCalls < 1) {
+                throw new IllegalArgumentException("minimumCalls should be positive: " + minimumCalls);
+            }
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * Ratio of failed calls to open the circuit, between 0 and 1. Default: 0.5.
+         */
+        public Builder failureRateThreshold(final double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * Ratio of slow calls to open the circuit, between 0 and 1. Default: 0.8.
+         */
+        public Builder slowCallRateThreshold(final double slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            return this;
+        }
+
+        /**
+         * Duration in milliseconds to regard a call as slow. Default: 5 seconds.
+         */
+        public Builder slowCallDuration(final long slowCallDuration) {
+            this.slowCallDuration = slowCallDuration;
+            return this;
+        }
+
+        /**
+         * Duration in milliseconds to keep the circuit open before probing. Default: 30 seconds.
+         */
+        public Builder openDuration(final long openDuration) {
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        /**
+         * Number of probe calls in half-open state. Default: 5.
+         */
+        public Builder halfOpenCalls(final int halfOpenCalls) {
+            if (halfOpenCalls < 1) {
+                throw new IllegalArgumentException("halfOpenCalls should be positive: " + halfOpenCalls);
+            }
+            this.halfOpenCalls = halfOpenCalls;
+            return this;
+        }
+
+        Builder ticker(@NonNull final LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public CircuitBreaker build() {
+            return new CircuitBreaker(this);
+        }
+    }
+}
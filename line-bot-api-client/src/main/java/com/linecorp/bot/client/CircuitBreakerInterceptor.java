@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.linecorp.bot.client.exception.CallTimeoutException;
+import com.linecorp.bot.client.exception.CircuitBreakerOpenException;
+import com.linecorp.bot.client.exception.GeneralLineMessagingException;
+import com.linecorp.bot.client.exception.LineServerException;
+
+import lombok.AllArgsConstructor;
+import retrofit2.Response;
+
+/**
+ * {@link ApiCallInterceptor} which applies {@link CircuitBreaker}.
+ */
+@AllArgsConstructor
+class CircuitBreakerInterceptor implements ApiCallInterceptor {
+    private final CircuitBreaker circuitBreaker;
+
+    @Override
+    public <T> CompletableFuture<Response<T>> intercept(final Chain<T> chain) {
+        final EndpointFamily family = chain.endpoint().getFamily();
+        final CircuitBreaker.Permit permit;
+        try {
+            permit = circuitBreaker.acquire(family);
+        } catch (CircuitBreakerOpenException e) {
+            return Futures.failedFuture(e);
+        }
+
+        final CompletableFuture<Response<T>> future;
+        try {
+            future = chain.proceed(chain.call());
+        } catch (RuntimeException e) {
+            circuitBreaker.onComplete(permit, true);
+            throw e;
+        }
+        future.whenComplete((response, t) -> {
+            if (!chain.call().isCanceled()) {
+                circuitBreaker.onComplete(permit, t != null || isServerFailure(response));
+            } else if (chain.cancellationCause() instanceof CallTimeoutException) {
+                circuitBreaker.onComplete(permit, true);
+            } else {
+                // Cancelled by the caller or by hedging.
+                circuitBreaker.onCancel(permit);
+            }
+        });
+        return future;
+    }
+
+    private static boolean isServerFailure(final Response<?> response) {
+        if (response.isSuccessful()) {
+            return false;
+        }
+        final Class<?> exceptionType = ExceptionConverter.exceptionTypeOf(response.code());
+        return exceptionType == LineServerException.class || exceptionType == GeneralLineMessagingException.class;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * {@link ApiCallInterceptor} which lets identical concurrent calls of read endpoints share a single call.
+ *
+ * <p>Nothing is cached after the call completes, so callers never see stale data.
+ * Endpoints returning binary content aren't coalesced because their response body can be read only once.
+ */
+@Slf4j
+class CoalescingInterceptor implements ApiCallInterceptor {
+    private static final Set<ApiEndpoint> STREAMING_ENDPOINTS =
+            EnumSet.of(ApiEndpoint.GET_MESSAGE_CONTENT, ApiEndpoint.GET_RICH_MENU_IMAGE);
+
+    private final ConcurrentMap<String, CompletableFuture<SharedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    @Override
+    public <T> CompletableFuture<Response<T>> intercept(final Chain<T> chain) {
+        final ApiEndpoint endpoint = chain.endpoint();
+        final String key = endpoint.isIdempotent() && !STREAMING_ENDPOINTS.contains(endpoint)
+                           ? keyOf(chain.call()) : null;
+        if (key == null) {
+            return chain.proceed(chain.call());
+        }
+
+        final CompletableFuture<SharedResponse> leader = new CompletableFuture<>();
+        final CompletableFuture<SharedResponse> existing = inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            return existing.thenApply(SharedResponse::<T>copy);
+        }
+
+        CompletableFuture<Response<T>> responseFuture;
+        try {
+            // Followers share the call, so the leader giving up doesn't cancel it.
+            responseFuture = chain.withoutCancellation().proceed(chain.call());
+        } catch (RuntimeException e) {
+            responseFuture = Futures.failedFuture(e);
+        }
+        responseFuture.whenComplete((response, t) -> {
+            inFlight.remove(key, leader);
+            if (t != null) {
+                leader.completeExceptionally(Futures.unwrap(t));
+            } else {
+                leader.complete(new SharedResponse(response));
+            }
+        });
+        return leader.thenApply(SharedResponse::<T>copy);
+    }
+
+    /**
+     * Number of distinct calls in flight.
+     */
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private static String keyOf(final Call<?> call) {
+        final Request request;
+        try {
+            request = call.request();
+        } catch (RuntimeException e) {
+            log.debug("Failed to create request. Skip coalescing.", e);
+            return null;
+        }
+        return request.method() + ' ' + request.url();
+    }
+
+    /**
+     * Response which can be passed to multiple callers.
+     * Error body is buffered because it's consumed by {@link ExceptionConverter} of each caller.
+     */
+    @AllArgsConstructor
+    private static final class SharedResponse {
+        private final Response<?> response;
+        private final MediaType errorContentType;
+        private final byte[] errorBody;
+
+        SharedResponse(final Response<?> response) {
+            this(response,
+                 response.errorBody() != null ? response.errorBody().contentType() : null,
+                 bufferErrorBody(response));
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> Response<T> copy() {
+            if (response.isSuccessful()) {
+                // Same endpoint and url, so the body type is same.
+                return (Response<T>) response;
+            }
+            return Response.error(ResponseBody.create(errorContentType, errorBody), response.raw());
+        }
+
+        private static byte[] bufferErrorBody(final Response<?> response) {
+            final ResponseBody body = response.errorBody();
+            if (body == null) {
+                return new byte[0];
+            }
+            try {
+                return body.bytes();
+            } catch (IOException e) {
+                log.debug("Failed to read error body", e);
+                return new byte[0];
+            } finally {
+                body.close();
+            }
+        }
+    }
+}
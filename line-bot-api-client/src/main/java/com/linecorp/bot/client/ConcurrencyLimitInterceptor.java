@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.time.Instant;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+import com.linecorp.bot.client.exception.DeadlineExceededException;
+
+import retrofit2.Response;
+
+/**
+ * {@link ApiCallInterceptor} which limits the number of in-flight calls of a client.
+ *
+ * <p>Excess calls wait without blocking any thread, so a busy client can't occupy all slots
+ * of a {@link okhttp3.Dispatcher} shared with other clients. They are sent in FIFO order,
+ * or in order of priority and deadline if an {@link OutboundScheduler} is given.
+ */
+class ConcurrencyLimitInterceptor implements ApiCallInterceptor {
+    private final int maxConcurrency;
+    private final OutboundScheduler scheduler;
+    private final Queue<PendingCall> waiting = new PriorityQueue<>();
+    private long sequence;
+    private int running;
+    private boolean draining;
+
+    ConcurrencyLimitInterceptor(final int maxConcurrency) {
+        this(maxConcurrency, null);
+    }
+
+    /**
+     * @param scheduler orders waiting calls and drops expired replies. Nullable.
+     */
+    ConcurrencyLimitInterceptor(final int maxConcurrency, final OutboundScheduler scheduler) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency should be positive: " + maxConcurrency);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public <T> CompletableFuture<Response<T>> intercept(final Chain<T> chain) {
+        final CompletableFuture<Response<T>> future = new CompletableFuture<>();
+        final Instant deadline = chain.deadline();
+        final Runnable task = () -> {
+            if (future.isDone()) {
+                // Cancelled while waiting.
+                release();
+                return;
+            }
+            if (scheduler != null && scheduler.isExpired(chain.endpoint(), deadline)) {
+                release();
+                future.completeExceptionally(new DeadlineExceededException(
+                        "Deadline of " + chain.endpoint() + " passed before sending: " + deadline));
+                return;
+            }
+            try {
+                chain.proceed(chain.call()).whenComplete((response, t) -> {
+                    release();
+                    if (t != null) {
+                        future.completeExceptionally(Futures.unwrap(t));
+                    } else {
+                        future.complete(response);
+                    }
+                });
+            } catch (RuntimeException e) {
+                release();
+                future.completeExceptionally(e);
+            }
+        };
+
+        synchronized (this) {
+            if (running >= maxConcurrency || !waiting.isEmpty()) {
+                final int priority = scheduler != null ? scheduler.priorityOf(chain.endpoint()) : 0;
+                final long deadlineMillis = scheduler != null && deadline != null ? deadline.toEpochMilli()
+                                                                                   : Long.MAX_VALUE;
+                waiting.add(new PendingCall(priority, deadlineMillis, sequence++, task));
+                return future;
+            }
+            running++;
+        }
+        task.run();
+        return future;
+    }
+
+    synchronized int waitingCount() {
+        return waiting.size();
+    }
+
+    private void release() {
+        synchronized (this) {
+            running--;
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        // Loop instead of recursion, as calls failing synchronously release their slots while started here.
+        for (;;) {
+            final PendingCall next;
+            synchronized (this) {
+                if (running >= maxConcurrency || waiting.isEmpty()) {
+                    draining = false;
+                    return;
+                }
+                next = waiting.poll();
+                running++;
+            }
+            next.task.run();
+        }
+    }
+
+    /**
+     * Waiting call ordered by priority, then by deadline, then by arrival.
+     */
+    private static final class PendingCall implements Comparable<PendingCall> {
+        final int priority;
+        final long deadlineMillis;
+        final long sequence;
+        final Runnable task;
+
+        PendingCall(final int priority, final long deadlineMillis, final long sequence, final Runnable task) {
+            this.priority = priority;
+            this.deadlineMillis = deadlineMillis;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(final PendingCall o) {
+            if (priority != o.priority) {
+                return Integer.compare(priority, o.priority);
+            }
+            if (deadlineMillis != o.deadlineMillis) {
+                return Long.compare(deadlineMillis, o.deadlineMillis);
+            }
+            return Long.compare(sequence, o.sequence);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs asynchronous tasks for each element of an {@link Iterator} with bounded concurrency.
+ *
+ * <p>Elements are pulled from the source lazily, only when a slot of the window becomes free.
+ * So memory usage is proportional to the concurrency, not to the number of elements.
+ * No thread is blocked while waiting for tasks.
+ */
+@Slf4j
+final class ConcurrencyWindow<T> {
+    private static final Object END_OF_SOURCE = new Object();
+
+    private final Iterator<? extends T> source;
+    private final Function<? super T, ? extends CompletableFuture<?>> task;
+    private final BiConsumer<? super T, ? super Throwable> completionHandler;
+    private final AtomicInteger activeLanes;
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    private ConcurrencyWindow(final Iterator<? extends T> source,
+                              final int concurrency,
+                              final Function<? super T, ? extends CompletableFuture<?>> task,
+                              final BiConsumer<? super T, ? super Throwable> completionHandler) {
+        this.source = source;
+        this.task = task;
+        this.completionHandler = completionHandler;
+        this.activeLanes = new AtomicInteger(concurrency);
+    }
+
+    /**
+     * Run {@code task} for all elements of {@code source}.
+     *
+     * @param completionHandler called with element and failure cause (null on success)
+     * each time a task is completed.
+     * @return future completed when all tasks are completed.
+     * Completed exceptionally only when {@code source} throws an exception.
+     */
+    static <T> CompletableFuture<Void> run(
+            final Iterator<? extends T> source,
+            final int concurrency,
+            final Function<? super T, ? extends CompletableFuture<?>> task,
+            final BiConsumer<? super T, ? super Throwable> completionHandler) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency should be positive: " + concurrency);
+        }
+
+        final ConcurrencyWindow<T> window = new ConcurrencyWindow<>(source, concurrency, task, completionHandler);
+        for (int i = 0; i < concurrency; i++) {
+            window.runLane();
+        }
+        return window.done;
+    }
+
+    private void runLane() {
+        while (!done.isDone()) {
+            final Object next = poll();
+            if (next == END_OF_SOURCE) {
+                break;
+            }
+
+            @SuppressWarnings("unchecked")
+            final T element = (T) next;
+            final CompletableFuture<?> future = invoke(element);
+            if (!future.isDone()) {
+                future.whenComplete((ignored, t) -> {
+                    handleCompletion(element, t);
+                    runLane();
+                });
+                return;
+            }
+            // Already completed. Continue in this loop instead of recursion to keep stack shallow.
+            future.whenComplete((ignored, t) -> handleCompletion(element, t));
+        }
+
+        if (activeLanes.decrementAndGet() == 0) {
+            done.complete(null);
+        }
+    }
+
+    private Object poll() {
+        try {
+            synchronized (source) {
+                return source.hasNext() ? source.next() : END_OF_SOURCE;
+            }
+        } catch (RuntimeException e) {
+            done.completeExceptionally(e);
+            return END_OF_SOURCE;
+        }
+    }
+
+    private CompletableFuture<?> invoke(final T element) {
+        try {
+            return task.apply(element);
+        } catch (RuntimeException e) {
+            return Futures.failedFuture(e);
+        }
+    }
+
+    private void handleCompletion(final T element, final Throwable t) {
+        try {
+            completionHandler.accept(element, t == null ? null : Futures.unwrap(t));
+        } catch (RuntimeException e) {
+            log.warn("Completion handler threw an exception: {}", element, e);
+        }
+    }
+}
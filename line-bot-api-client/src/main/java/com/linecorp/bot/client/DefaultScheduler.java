@@ -0,0 +1,55 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holder of the scheduler shared by client side policies when no scheduler is specified.
+ *
+ * <p>Tasks scheduled on it must only hand work over to other threads, e.g. enqueue calls to okhttp,
+ * so a single daemon thread is enough. Futures returned to users must not be completed on it,
+ * as their callbacks would delay all other tasks.
+ */
+final class DefaultScheduler {
+    private DefaultScheduler() {
+    }
+
+    static ScheduledExecutorService get() {
+        return Holder.INSTANCE;
+    }
+
+    private static final class Holder {
+        static final ScheduledExecutorService INSTANCE = create();
+
+        private static ScheduledExecutorService create() {
+            final AtomicInteger threadCount = new AtomicInteger();
+            final ThreadFactory threadFactory = runnable -> {
+                final Thread thread = new Thread(runnable,
+                                                 "line-bot-client-scheduler-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, threadFactory);
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+    }
+}
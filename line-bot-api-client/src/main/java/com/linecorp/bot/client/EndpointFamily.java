@@ -0,0 +1,47 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+/**
+ * Group of API endpoints sharing the same traffic characteristics.
+ *
+ * <p>Client side policies, e.g. rate limiting, are configured per family.
+ *
+ * @see ApiEndpoint#getFamily()
+ */
+public enum EndpointFamily {
+    /** Reply message API. */
+    REPLY,
+
+    /** Push message API. */
+    PUSH,
+
+    /** Multicast API. */
+    MULTICAST,
+
+    /** Content download API. */
+    CONTENT,
+
+    /** Profile APIs of users and group/room members. */
+    PROFILE,
+
+    /** Group and room APIs, e.g. member IDs and leave. */
+    GROUP,
+
+    /** Rich menu APIs. */
+    RICH_MENU,
+}
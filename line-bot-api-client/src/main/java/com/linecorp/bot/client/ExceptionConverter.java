@@ -19,7 +19,12 @@ package com.linecorp.bot.client;
 import static java.util.Collections.singletonMap;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import com.fasterxml.jackson.databind.InjectableValues;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -35,16 +40,44 @@ import com.linecorp.bot.client.exception.TooManyRequestsException;
 import com.linecorp.bot.client.exception.UnauthorizedException;
 import com.linecorp.bot.model.error.ErrorResponse;
 
+import lombok.AllArgsConstructor;
 import okhttp3.ResponseBody;
 import retrofit2.Response;
 
 class ExceptionConverter implements Function<Response<?>, LineMessagingException> {
     public static final ObjectReader OBJECT_READER = new ObjectMapper().readerFor(ErrorResponse.class);
 
+    private static final Map<Integer, ExceptionFactory> FACTORIES = createFactories();
+
+    /**
+     * Factory of status codes not in {@link #FACTORIES}.
+     */
+    private static final ExceptionFactory DEFAULT_FACTORY = new ExceptionFactory(
+            GeneralLineMessagingException.class,
+            (message, errorResponse) -> new GeneralLineMessagingException(message, errorResponse, null),
+            GeneralLineMessagingException::new);
+
+    /**
+     * If true, exceptions are created without stack traces, and their error responses are parsed
+     * from buffered error bodies on first access.
+     */
+    private final boolean lightweight;
+
+    ExceptionConverter() {
+        this(false);
+    }
+
+    ExceptionConverter(final boolean lightweight) {
+        this.lightweight = lightweight;
+    }
+
     @Override
     public LineMessagingException apply(Response<?> response) {
         final String requestId = response.headers().get("x-line-request-id");
         try {
+            if (lightweight) {
+                return applyLightweight(requestId, response);
+            }
             return applyInternal(requestId, response);
         } catch (Exception e) {
             final ErrorResponse errorResponse = new ErrorResponse(requestId, null, null);
@@ -54,34 +87,78 @@ class ExceptionConverter implements Function<Response<?>, LineMessagingException
 
     private static LineMessagingException applyInternal(final String requestId, final Response<?> response)
             throws IOException {
-        final int code = response.code();
         final ResponseBody responseBody = response.errorBody();
 
         final ErrorResponse errorResponse = OBJECT_READER
                 .with(new InjectableValues.Std(singletonMap("requestId", requestId)))
                 .readValue(responseBody.byteStream());
 
-        switch (code) {
-            case 400:
-                return new BadRequestException(
-                        errorResponse.getMessage(), errorResponse);
-            case 401:
-                return new UnauthorizedException(
-                        errorResponse.getMessage(), errorResponse);
-            case 403:
-                return new ForbiddenException(
-                        errorResponse.getMessage(), errorResponse);
-            case 404:
-                return new NotFoundException(
-                        errorResponse.getMessage(), errorResponse);
-            case 429:
-                return new TooManyRequestsException(
-                        errorResponse.getMessage(), errorResponse);
-            case 500:
-                return new LineServerException(
-                        errorResponse.getMessage(), errorResponse);
+        return factoryOf(response.code()).eager.apply(errorResponse.getMessage(), errorResponse);
+    }
+
+    private static LineMessagingException applyLightweight(final String requestId, final Response<?> response)
+            throws IOException {
+        final byte[] errorBody = response.errorBody().bytes();
+        final Supplier<ErrorResponse> errorResponseLoader = () -> parseErrorResponse(requestId, errorBody);
+
+        return factoryOf(response.code()).lightweight.create(requestId, errorResponseLoader, false);
+    }
+
+    /**
+     * Parse the error body. Returns an error response without message if the body is malformed,
+     * as the exception to hold it is already created.
+     */
+    private static ErrorResponse parseErrorResponse(final String requestId, final byte[] errorBody) {
+        try {
+            return OBJECT_READER
+                    .with(new InjectableValues.Std(singletonMap("requestId", requestId)))
+                    .readValue(errorBody);
+        } catch (IOException e) {
+            return new ErrorResponse(requestId, null, null);
         }
+    }
+
+    /**
+     * Returns type of the exception converted from a response of the status code.
+     */
+    static Class<? extends LineMessagingException> exceptionTypeOf(final int code) {
+        return factoryOf(code).type;
+    }
+
+    private static ExceptionFactory factoryOf(final int code) {
+        return FACTORIES.getOrDefault(code, DEFAULT_FACTORY);
+    }
+
+    private static Map<Integer, ExceptionFactory> createFactories() {
+        final Map<Integer, ExceptionFactory> factories = new HashMap<>();
+        factories.put(400, new ExceptionFactory(
+                BadRequestException.class, BadRequestException::new, BadRequestException::new));
+        factories.put(401, new ExceptionFactory(
+                UnauthorizedException.class, UnauthorizedException::new, UnauthorizedException::new));
+        factories.put(403, new ExceptionFactory(
+                ForbiddenException.class, ForbiddenException::new, ForbiddenException::new));
+        factories.put(404, new ExceptionFactory(
+                NotFoundException.class, NotFoundException::new, NotFoundException::new));
+        factories.put(429, new ExceptionFactory(
+                TooManyRequestsException.class, TooManyRequestsException::new, TooManyRequestsException::new));
+        factories.put(500, new ExceptionFactory(
+                LineServerException.class, LineServerException::new, LineServerException::new));
+        return Collections.unmodifiableMap(factories);
+    }
+
+    /**
+     * Creates exceptions of a status code, eagerly parsed or lightweight.
+     */
+    @AllArgsConstructor
+    private static final class ExceptionFactory {
+        final Class<? extends LineMessagingException> type;
+        final BiFunction<String, ErrorResponse, LineMessagingException> eager;
+        final LightweightConstructor lightweight;
+    }
 
-        return new GeneralLineMessagingException(errorResponse.getMessage(), errorResponse, null);
+    @FunctionalInterface
+    private interface LightweightConstructor {
+        LineMessagingException create(String requestId, Supplier<ErrorResponse> errorResponseLoader,
+                                      boolean writableStackTrace);
     }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+class Futures {
+    /**
+     * Returns the original exception if {@code t} is a {@link CompletionException}
+     * thrown by a dependent stage.
+     */
+    Throwable unwrap(final Throwable t) {
+        if (t instanceof CompletionException && t.getCause() != null) {
+            return t.getCause();
+        }
+        return t;
+    }
+
+    <T> CompletableFuture<T> failedFuture(final Throwable t) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(t);
+        return future;
+    }
+
+    /**
+     * Complete {@code to} with the result of {@code from} when it's completed.
+     */
+    <T> void forward(final CompletableFuture<? extends T> from, final CompletableFuture<T> to) {
+        from.whenComplete((result, t) -> {
+            if (t != null) {
+                to.completeExceptionally(unwrap(t));
+            } else {
+                to.complete(result);
+            }
+        });
+    }
+}
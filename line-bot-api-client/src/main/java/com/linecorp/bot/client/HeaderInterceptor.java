@@ -31,9 +31,8 @@ class HeaderInterceptor implements Interceptor {
 
     @Override
     public Response intercept(Chain chain) throws IOException {
-        final String channelToken = channelTokenSupplier.get();
         Request request = chain.request().newBuilder()
-                               .addHeader("Authorization", "Bearer " + channelToken)
+                               .addHeader("Authorization", channelTokenSupplier.authorizationHeader())
                                .addHeader("User-Agent", USER_AGENT)
                                .build();
         return chain.proceed(request);
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+
+import lombok.AllArgsConstructor;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * {@link ApiCallInterceptor} which applies {@link HedgingPolicy}.
+ */
+@AllArgsConstructor
+class HedgingInterceptor implements ApiCallInterceptor {
+    private final HedgingPolicy hedgingPolicy;
+
+    @Override
+    public <T> CompletableFuture<Response<T>> intercept(final Chain<T> chain) {
+        final ApiEndpoint endpoint = chain.endpoint();
+        if (!hedgingPolicy.isHedged(endpoint)) {
+            return chain.proceed(chain.call());
+        }
+
+        hedgingPolicy.onCall();
+        final Hedge<T> hedge = new Hedge<>(chain);
+        hedge.attempt(chain.call(), true);
+        hedge.scheduleHedge(hedgingPolicy.getDelay(endpoint));
+        return hedge.future;
+    }
+
+    private final class Hedge<T> {
+        private final Chain<T> chain;
+        private final CompletableFuture<Response<T>> future = new CompletableFuture<>();
+
+        // Guarded by this.
+        private Call<T> primary;
+        private Call<T> secondary;
+        private long primaryStartNanos;
+        private boolean primarySampled;
+        private int inFlight;
+        private boolean decided;
+        private ScheduledFuture<?> timer;
+
+        Hedge(final Chain<T> chain) {
+            this.chain = chain;
+        }
+
+        void scheduleHedge(final long delay) {
+            try {
+                final ScheduledFuture<?> scheduled = hedgingPolicy.scheduler().schedule(
+                        this::sendHedge, delay, MILLISECONDS);
+                synchronized (this) {
+                    timer = scheduled;
+                }
+                if (decided()) {
+                    scheduled.cancel(false);
+                }
+            } catch (RejectedExecutionException e) {
+                // Not hedged. The first attempt goes on.
+            }
+        }
+
+        private void sendHedge() {
+            final Call<T> call;
+            synchronized (this) {
+                if (decided || chain.call().isCanceled() || !hedgingPolicy.tryAcquireHedge()) {
+                    return;
+                }
+                call = primary.clone();
+            }
+            attempt(call, false);
+        }
+
+        void attempt(final Call<T> call, final boolean isPrimary) {
+            synchronized (this) {
+                if (isPrimary) {
+                    primary = call;
+                    primaryStartNanos = hedgingPolicy.nanoTime();
+                } else {
+                    secondary = call;
+                }
+                inFlight++;
+            }
+
+            CompletableFuture<Response<T>> responseFuture;
+            try {
+                responseFuture = chain.proceed(call);
+            } catch (RuntimeException e) {
+                responseFuture = Futures.failedFuture(e);
+            }
+            responseFuture.whenComplete(
+                    (response, t) -> onComplete(call, response, t != null ? Futures.unwrap(t) : null));
+        }
+
+        private void onComplete(final Call<T> call, final Response<T> response, final Throwable t) {
+            final boolean won;
+            final Call<T> loser;
+            final long primaryLatencyNanos;
+            synchronized (this) {
+                inFlight--;
+                // A failure wins only when the other attempt isn't in flight.
+                won = !decided && (response != null || inFlight == 0);
+                if (won) {
+                    decided = true;
+                    if (timer != null) {
+                        timer.cancel(false);
+                    }
+                }
+                loser = call == primary ? secondary : primary;
+                primaryLatencyNanos = samplePrimaryLatency(call, response, won);
+            }
+            if (primaryLatencyNanos >= 0) {
+                hedgingPolicy.recordLatency(chain.endpoint(), NANOSECONDS.toMillis(primaryLatencyNanos));
+            }
+
+            if (!won) {
+                if (response != null) {
+                    // Response of the loser which arrived before cancellation.
+                    discard(response);
+                }
+                return;
+            }
+            if (loser != null) {
+                loser.cancel();
+            }
+            if (t != null) {
+                future.completeExceptionally(t);
+            } else {
+                future.complete(response);
+            }
+        }
+
+        /**
+         * Returns latency of the primary attempt to record once, or -1.
+         */
+        private long samplePrimaryLatency(final Call<T> call, final Response<T> response, final boolean won) {
+            // Hedged attempts are sent only when the primary one is slow. So a winning hedged attempt
+            // samples the primary one, which is cancelled, with the time elapsed so far.
+            final boolean sampled = call == primary ? response != null : won && response != null && inFlight > 0;
+            if (!sampled || primarySampled) {
+                return -1;
+            }
+            primarySampled = true;
+            return hedgingPolicy.nanoTime() - primaryStartNanos;
+        }
+
+        private synchronized boolean decided() {
+            return decided;
+        }
+
+        private void discard(final Response<T> response) {
+            if (response.errorBody() != null) {
+                response.errorBody().close();
+            }
+            final Object body = response.body();
+            if (body instanceof Closeable) {
+                try {
+                    ((Closeable) body).close();
+                } catch (IOException e) {
+                    // Nothing to do for a discarded response.
+                }
+            }
+        }
+    }
+}
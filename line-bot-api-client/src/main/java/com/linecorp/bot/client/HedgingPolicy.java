@@ -0,0 +1,281 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.LongSupplier;
+
+import lombok.NonNull;
+
+/**
+ * Policy to send a second attempt of an idempotent call when the first one is slower than usual,
+ * and take the response which arrives first.
+ *
+ * <p>The hedging delay of each endpoint is the {@link Builder#percentile(double)} of latencies of recent calls,
+ * bounded by {@link Builder#minDelay(long)} and {@link Builder#maxDelay(long)}. When the first attempt
+ * completes, the other one is cancelled. So only calls slower than the percentile cost an extra request.
+ *
+ * <p>Hedging is also limited by a budget shared by all calls. Each call refills
+ * {@link Builder#budgetRatio(double)} of a token and each hedged attempt consumes a token,
+ * so extra load stays below the ratio even if the server slows down as a whole.
+ *
+ * <p>Latencies of first attempts are recorded. A first attempt cancelled because the hedged one won is
+ * recorded with the time elapsed until then, so the percentile doesn't drift toward fast attempts.
+ *
+ * <p>A client with a hedging policy uses HTTP/1.1, so both attempts are sent on separate connections
+ * instead of being multiplexed on the same slow one. Enabling HTTP/2 by
+ * {@link LineMessagingClientBuilder#http2Enabled(boolean)} together with it fails to build.
+ *
+ * <pre>{@code
+ * LineMessagingClient client = LineMessagingClient
+ *         .builder(channelToken)
+ *         .hedgingPolicy(HedgingPolicy.builder().percentile(0.9).build())
+ *         .build();
+ * }</pre>
+ */
+public final class HedgingPolicy {
+    private static final Set<ApiEndpoint> DEFAULT_ENDPOINTS = Collections.unmodifiableSet(EnumSet.of(
+            ApiEndpoint.GET_PROFILE, ApiEndpoint.GET_MEMBER_PROFILE, ApiEndpoint.GET_MEMBERS_IDS,
+            ApiEndpoint.GET_RICH_MENU, ApiEndpoint.GET_RICH_MENU_ID_OF_USER, ApiEndpoint.GET_RICH_MENU_LIST));
+
+    /**
+     * Number of recent latencies kept for each endpoint.
+     */
+    private static final int SAMPLE_SIZE = 128;
+
+    /**
+     * Number of new samples to recompute the percentile.
+     */
+    private static final int RECOMPUTE_INTERVAL = 16;
+
+    private final Set<ApiEndpoint> endpoints;
+    private final double percentile;
+    private final long minDelay;
+    private final long maxDelay;
+    private final double budgetRatio;
+    private final double budget;
+    private final ScheduledExecutorService scheduler;
+    private final LongSupplier ticker;
+    private final Map<ApiEndpoint, LatencySamples> samples = new EnumMap<>(ApiEndpoint.class);
+
+    // Guarded by this.
+    private double budgetTokens;
+
+    private HedgingPolicy(final Builder builder) {
+        this.endpoints = builder.endpoints;
+        this.percentile = builder.percentile;
+        this.minDelay = builder.minDelay;
+        this.maxDelay = builder.maxDelay;
+        this.budgetRatio = builder.budgetRatio;
+        this.budget = builder.budget;
+        this.scheduler = builder.scheduler != null ? builder.scheduler : DefaultScheduler.get();
+        this.ticker = builder.ticker;
+        this.budgetTokens = budget;
+        endpoints.forEach(endpoint -> samples.put(endpoint, new LatencySamples()));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Current hedging delay of the endpoint in milliseconds, or -1 if the endpoint is not hedged.
+     */
+    public long getDelay(@NonNull final ApiEndpoint endpoint) {
+        final LatencySamples latencySamples = samples.get(endpoint);
+        if (latencySamples == null) {
+            return -1;
+        }
+        final long delay = latencySamples.percentile();
+        return Math.max(minDelay, Math.min(maxDelay, delay >= 0 ? delay : maxDelay));
+    }
+
+    /**
+     * Remaining tokens of the hedging budget.
+     */
+    public synchronized double getBudgetTokens() {
+        return budgetTokens;
+    }
+
+    boolean isHedged(final ApiEndpoint endpoint) {
+        return endpoints.contains(endpoint);
+    }
+
+    ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
+    long nanoTime() {
+        return ticker.getAsLong();
+    }
+
+    /**
+     * Notify a call of a hedged endpoint started. Refills the budget.
+     */
+    synchronized void onCall() {
+        budgetTokens = Math.min(budget, budgetTokens + budgetRatio);
+    }
+
+    /**
+     * Consume a token of the budget to send a hedged attempt.
+     *
+     * @return false if the budget is exhausted.
+     */
+    synchronized boolean tryAcquireHedge() {
+        if (budgetTokens < 1) {
+            return false;
+        }
+        budgetTokens -= 1;
+        return true;
+    }
+
+    /**
+     * Record latency of a first attempt which received a response, or the time elapsed until it's cancelled.
+     */
+    void recordLatency(final ApiEndpoint endpoint, final long latencyMillis) {
+        final LatencySamples latencySamples = samples.get(endpoint);
+        if (latencySamples != null) {
+            latencySamples.add(latencyMillis);
+        }
+    }
+
+    private final class LatencySamples {
+        private final long[] latencies = new long[SAMPLE_SIZE];
+        private int next;
+        private int count;
+        private int addedSinceComputed;
+        private long cachedPercentile = -1;
+
+        synchronized void add(final long latency) {
+            latencies[next] = latency;
+            next = (next + 1) % latencies.length;
+            count = Math.min(count + 1, latencies.length);
+            addedSinceComputed++;
+        }
+
+        synchronized long percentile() {
+            if (count < RECOMPUTE_INTERVAL) {
+                // Not enough samples to estimate.
+                return -1;
+            }
+            if (cachedPercentile < 0 || addedSinceComputed >= RECOMPUTE_INTERVAL) {
+                final long[] sorted = Arrays.copyOf(latencies, count);
+                Arrays.sort(sorted);
+                cachedPercentile = sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+                addedSinceComputed = 0;
+            }
+            return cachedPercentile;
+        }
+    }
+
+    public static final class Builder {
+        private Set<ApiEndpoint> endpoints = DEFAULT_ENDPOINTS;
+        private double percentile = 0.95;
+        private long minDelay = 10;
+        private long maxDelay = 1_000;
+        private double budgetRatio = 0.05;
+        private double budget = 10;
+        private ScheduledExecutorService scheduler;
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder() {
+        }
+
+        /**
+         * Endpoints to hedge. Must be idempotent.
+         * Default: profile, member IDs and rich menu read endpoints. Content downloads aren't hedged by default.
+         */
+        public Builder endpoints(@NonNull final Set<ApiEndpoint> endpoints) {
+            for (ApiEndpoint endpoint : endpoints) {
+                if (!endpoint.isIdempotent()) {
+                    throw new IllegalArgumentException("Non idempotent endpoint can't be hedged: " + endpoint);
+                }
+            }
+            this.endpoints = endpoints.isEmpty() ? Collections.emptySet()
+                                                 : Collections.unmodifiableSet(EnumSet.copyOf(endpoints));
+            return this;
+        }
+
+        /**
+         * Percentile of recent latencies to send a hedged attempt after, between 0 and 1. Default: 0.95.
+         */
+        public Builder percentile(final double percentile) {
+            if (percentile <= 0 || percentile > 1) {
+                throw new IllegalArgumentException("percentile should be in (0, 1]: " + percentile);
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Min hedging delay in milliseconds. Default: 10 milliseconds.
+         */
+        public Builder minDelay(final long minDelay) {
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        /**
+         * Max hedging delay in milliseconds, also used until enough latencies are recorded.
+         * Default: 1 second.
+         */
+        public Builder maxDelay(final long maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * Tokens refilled to the budget by each call. Caps hedged attempts to this ratio of calls.
+         * Default: 0.05.
+         */
+        public Builder budgetRatio(final double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+            return this;
+        }
+
+        /**
+         * Size of the hedging budget, i.e. max burst of hedged attempts. Default: 10.
+         */
+        public Builder budget(final double budget) {
+            this.budget = budget;
+            return this;
+        }
+
+        /**
+         * Scheduler to send hedged attempts. Default: shared daemon thread of this library.
+         */
+        public Builder scheduler(@NonNull final ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        Builder ticker(@NonNull final LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public HedgingPolicy build() {
+            return new HedgingPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Channel access token issued by the server, loaded by {@link ChannelTokenLoader}.
+ *
+ * @see <a href="https://devdocs.line.me/#issue-channel-access-token"
+ * >//devdocs.line.me/#issue-channel-access-token</a>
+ */
+@Value
+public class IssuedChannelToken {
+    /**
+     * Channel access token.
+     */
+    @NonNull
+    String accessToken;
+
+    /**
+     * Number of seconds the token is valid for, counted from when it was issued.
+     */
+    long expiresIn;
+}
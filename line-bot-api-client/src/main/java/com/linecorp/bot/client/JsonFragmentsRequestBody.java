@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * {@link RequestBody} which concatenates pre-serialized JSON fragments.
+ *
+ * <p>Used to reuse serialized message payload among multiple API calls instead of serializing it
+ * for each call.
+ */
+final class JsonFragmentsRequestBody extends RequestBody {
+    private static final MediaType MEDIA_TYPE = MediaType.parse("application/json; charset=UTF-8");
+
+    private final byte[][] fragments;
+    private final long contentLength;
+
+    private JsonFragmentsRequestBody(final byte[][] fragments) {
+        this.fragments = fragments;
+        long length = 0;
+        for (byte[] fragment : fragments) {
+            length += fragment.length;
+        }
+        this.contentLength = length;
+    }
+
+    static JsonFragmentsRequestBody of(final byte[]... fragments) {
+        return new JsonFragmentsRequestBody(fragments);
+    }
+
+    static byte[] utf8(final String literal) {
+        return literal.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public MediaType contentType() {
+        return MEDIA_TYPE;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(final BufferedSink sink) throws IOException {
+        for (byte[] fragment : fragments) {
+            sink.write(fragment);
+        }
+    }
+}
@@ -16,13 +16,26 @@
 
 package com.linecorp.bot.client;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
+import com.linecorp.bot.client.exception.GeneralLineMessagingException;
 import com.linecorp.bot.model.Multicast;
 import com.linecorp.bot.model.PushMessage;
 import com.linecorp.bot.model.ReplyMessage;
 import com.linecorp.bot.model.event.source.GroupSource;
 import com.linecorp.bot.model.event.source.RoomSource;
+import com.linecorp.bot.model.message.Message;
 import com.linecorp.bot.model.profile.MembersIdsResponse;
 import com.linecorp.bot.model.profile.UserProfileResponse;
 import com.linecorp.bot.model.response.BotApiResponse;
@@ -45,6 +58,19 @@ public interface LineMessagingClient {
      */
     CompletableFuture<BotApiResponse> replyMessage(ReplyMessage replyMessage);
 
+    /**
+     * Reply to messages from users, before the deadline of the reply token.
+     *
+     * <p>With an {@link OutboundScheduler}, the reply is sent before waiting pushes and multicasts,
+     * and is dropped with {@link com.linecorp.bot.client.exception.DeadlineExceededException}
+     * if the deadline passes while waiting. Otherwise the deadline is ignored.
+     *
+     * @see OutboundScheduler#replyDeadlineOf(com.linecorp.bot.model.event.Event)
+     */
+    default CompletableFuture<BotApiResponse> replyMessage(ReplyMessage replyMessage, Instant deadline) {
+        return replyMessage(replyMessage);
+    }
+
     /**
      * Send messages to users when you want to.
      *
@@ -55,6 +81,16 @@ public interface LineMessagingClient {
      */
     CompletableFuture<BotApiResponse> pushMessage(PushMessage pushMessage);
 
+    /**
+     * Send messages to users, preferring pushes with earlier deadlines.
+     *
+     * <p>With an {@link OutboundScheduler}, waiting pushes are sent in order of deadline.
+     * Unlike replies, pushes are sent even after their deadlines. Otherwise the deadline is ignored.
+     */
+    default CompletableFuture<BotApiResponse> pushMessage(PushMessage pushMessage, Instant deadline) {
+        return pushMessage(pushMessage);
+    }
+
     /**
      * Send messages to multiple users at any time. <strong>IDs of groups or rooms cannot be used.</strong>
      *
@@ -66,6 +102,80 @@ public interface LineMessagingClient {
      */
     CompletableFuture<BotApiResponse> multicast(Multicast multicast);
 
+    /**
+     * Send messages to an arbitrary number of users.
+     *
+     * <p>Same as {@link #multicast(Iterator, List, int)} with {@code concurrency = 4}.
+     *
+     * @see #multicast(Iterator, List, int)
+     */
+    default CompletableFuture<MulticastResult> multicast(Iterable<String> to, List<Message> messages) {
+        return multicast(to.iterator(), messages, MulticastSplitter.DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * Send messages to an arbitrary number of users.
+     *
+     * <p>Recipients are split into chunks of 150 users, the max number of recipients of
+     * {@link #multicast(Multicast)}, and chunks are sent in parallel.
+     * Recipients are read lazily, so only chunks in flight are kept in memory.
+     *
+     * @param to IDs of the receivers.
+     * @param concurrency max number of multicast API calls in flight.
+     *
+     * @return future completed when all chunks are processed. Chunks failed to be sent are reported
+     * by {@link MulticastResult#getFailedChunks()} instead of exceptional completion.
+     *
+     * @see #multicast(Multicast)
+     */
+    default CompletableFuture<MulticastResult> multicast(
+            Iterator<String> to, List<Message> messages, int concurrency) {
+        return MulticastSplitter.multicast(to, concurrency,
+                                           chunk -> multicast(new Multicast(chunk, messages)));
+    }
+
+    /**
+     * Reply to messages from users with messages prepared by {@link PreparedMessages#of(List)}.
+     *
+     * <p>The default implementation sends them as {@link ReplyMessage}.
+     * Implementations may reuse the serialized messages instead.
+     *
+     * @see #replyMessage(ReplyMessage)
+     */
+    default CompletableFuture<BotApiResponse> replyMessage(String replyToken, PreparedMessages messages) {
+        return replyMessage(new ReplyMessage(replyToken, messages.getMessages()));
+    }
+
+    /**
+     * Send messages prepared by {@link PreparedMessages#of(List)} to a user.
+     *
+     * @see #pushMessage(PushMessage)
+     * @see #replyMessage(String, PreparedMessages)
+     */
+    default CompletableFuture<BotApiResponse> pushMessage(String to, PreparedMessages messages) {
+        return pushMessage(new PushMessage(to, messages.getMessages()));
+    }
+
+    /**
+     * Send messages prepared by {@link PreparedMessages#of(List)} to multiple users.
+     *
+     * @see #multicast(Multicast)
+     * @see #replyMessage(String, PreparedMessages)
+     */
+    default CompletableFuture<BotApiResponse> multicast(Set<String> to, PreparedMessages messages) {
+        return multicast(new Multicast(to, messages.getMessages()));
+    }
+
+    /**
+     * Send messages prepared by {@link PreparedMessages#of(List)} to an arbitrary number of users.
+     *
+     * @see #multicast(Iterator, List, int)
+     */
+    default CompletableFuture<MulticastResult> multicast(
+            Iterator<String> to, PreparedMessages messages, int concurrency) {
+        return MulticastSplitter.multicast(to, concurrency, chunk -> multicast(chunk, messages));
+    }
+
     /**
      * Download image, video, and audio data sent from users.
      *
@@ -120,6 +230,49 @@ public interface LineMessagingClient {
     CompletableFuture<MembersIdsResponse> getRoomMembersIds(
             String roomId, String start);
 
+    /**
+     * Get all member IDs of a group.
+     *
+     * <p>Same as {@link #getGroupMembersIdsStream(String, int)} with {@code bufferedPages = 2}.
+     */
+    default Stream<String> getGroupMembersIdsStream(String groupId) {
+        return getGroupMembersIdsStream(groupId, MembersIdsIterator.DEFAULT_BUFFERED_PAGES);
+    }
+
+    /**
+     * Get all member IDs of a group, fetching pages of {@link #getGroupMembersIds(String, String)} lazily.
+     *
+     * <p>Next page is fetched in background while the current one is consumed.
+     * The stream blocks when it reaches a page not fetched yet. If fetching a page failed,
+     * the stream throws {@link java.util.concurrent.CompletionException} with the cause.
+     * Close the stream to stop fetching if it isn't consumed till the end.
+     *
+     * @param bufferedPages max number of pages fetched but not consumed yet.
+     */
+    default Stream<String> getGroupMembersIdsStream(String groupId, int bufferedPages) {
+        return MembersIdsIterator.stream(start -> getGroupMembersIds(groupId, start), bufferedPages);
+    }
+
+    /**
+     * Get all member IDs of a room.
+     *
+     * <p>Same as {@link #getRoomMembersIdsStream(String, int)} with {@code bufferedPages = 2}.
+     */
+    default Stream<String> getRoomMembersIdsStream(String roomId) {
+        return getRoomMembersIdsStream(roomId, MembersIdsIterator.DEFAULT_BUFFERED_PAGES);
+    }
+
+    /**
+     * Get all member IDs of a room, fetching pages of {@link #getRoomMembersIds(String, String)} lazily.
+     *
+     * @param bufferedPages max number of pages fetched but not consumed yet.
+     *
+     * @see #getGroupMembersIdsStream(String, int)
+     */
+    default Stream<String> getRoomMembersIdsStream(String roomId, int bufferedPages) {
+        return MembersIdsIterator.stream(start -> getRoomMembersIds(roomId, start), bufferedPages);
+    }
+
     /**
      * Leave a group.
      *
@@ -193,6 +346,89 @@ public interface LineMessagingClient {
     CompletableFuture<BotApiResponse> setRichMenuImage(
             String richMenuId, String contentType, byte[] content);
 
+    /**
+     * Upload a rich menu image from a file.
+     *
+     * <p>The default implementation reads the whole file into memory.
+     * Implementations may stream the file instead.
+     *
+     * @see #setRichMenuImage(String, String, byte[])
+     */
+    default CompletableFuture<BotApiResponse> setRichMenuImage(
+            String richMenuId, String contentType, Path image) {
+        final byte[] content;
+        try {
+            content = Files.readAllBytes(image);
+        } catch (IOException e) {
+            return Futures.failedFuture(new GeneralLineMessagingException(e.getMessage(), null, e));
+        }
+        return setRichMenuImage(richMenuId, contentType, content);
+    }
+
+    /**
+     * Upload a rich menu image from a file channel, from its current position to the end.
+     *
+     * <p>The channel is read by position and is not closed, so it can be reused after the upload.
+     *
+     * @see #setRichMenuImage(String, String, byte[])
+     */
+    default CompletableFuture<BotApiResponse> setRichMenuImage(
+            String richMenuId, String contentType, FileChannel image) {
+        final byte[] content;
+        try {
+            content = RichMenuImageUploads.readAll(image);
+        } catch (IOException e) {
+            return Futures.failedFuture(new GeneralLineMessagingException(e.getMessage(), null, e));
+        }
+        return setRichMenuImage(richMenuId, contentType, content);
+    }
+
+    /**
+     * Upload a rich menu image from a stream.
+     *
+     * <p>The stream is not closed. Don't read it until the returned future is completed.
+     *
+     * @param length number of bytes to be read from {@code image}.
+     *
+     * @see #setRichMenuImage(String, String, byte[])
+     */
+    default CompletableFuture<BotApiResponse> setRichMenuImage(
+            String richMenuId, String contentType, InputStream image, long length) {
+        final byte[] content;
+        try {
+            content = RichMenuImageUploads.readAll(image, length);
+        } catch (IOException e) {
+            return Futures.failedFuture(new GeneralLineMessagingException(e.getMessage(), null, e));
+        }
+        return setRichMenuImage(richMenuId, contentType, content);
+    }
+
+    /**
+     * Upload images of multiple rich menus.
+     *
+     * <p>Same as {@link #setRichMenuImages(Map, String, int)} with {@code concurrency = 4}.
+     */
+    default CompletableFuture<Map<String, Throwable>> setRichMenuImages(
+            Map<String, Path> images, String contentType) {
+        return setRichMenuImages(images, contentType, RichMenuImageUploads.DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * Upload images of multiple rich menus in parallel.
+     *
+     * @param images image files keyed by rich menu ID.
+     * @param concurrency max number of uploads in flight.
+     *
+     * @return future completed when all uploads are processed, with failure causes keyed by rich menu ID.
+     * The map is empty if all uploads succeeded.
+     */
+    default CompletableFuture<Map<String, Throwable>> setRichMenuImages(
+            Map<String, Path> images, String contentType, int concurrency) {
+        return RichMenuImageUploads.uploadAll(
+                images.entrySet().iterator(), concurrency,
+                (richMenuId, image) -> setRichMenuImage(richMenuId, contentType, image));
+    }
+
     /**
      * Gets a list of all uploaded rich menus.
      *
@@ -1,13 +1,33 @@
 package com.linecorp.bot.client;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import lombok.NonNull;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.logging.HttpLoggingInterceptor.Level;
 import retrofit2.Retrofit;
 
 public class LineMessagingClientBuilder {
     //TODO: Move into all builder logic into this class from LineMessagingClientBuilder.
     private final LineMessagingServiceBuilder delegate;
+    private boolean requestCoalescing;
+    private RetryPolicy retryPolicy;
+    private ApiRateLimiter rateLimiter;
+    private ProfileCache profileCache;
+    private ApiMetrics apiMetrics;
+    private CircuitBreaker circuitBreaker;
+    private HedgingPolicy hedgingPolicy;
+    private Boolean http2Enabled;
+    private int maxConcurrentCalls;
+    private OutboundScheduler outboundScheduler;
+    private PushCoalescer pushCoalescer;
+    private boolean lightweightExceptions;
+    private long callTimeout;
+    private ApiTransport transport;
 
     /**
      * Create a new {@link LineMessagingServiceBuilder} with specified given fixed channelToken.
@@ -55,6 +75,115 @@ public class LineMessagingClientBuilder {
         return this;
     }
 
+    /**
+     * Set max number of concurrent requests.
+     *
+     * @see LineMessagingServiceBuilder#maxRequests(int)
+     */
+    public LineMessagingClientBuilder maxRequests(int maxRequests) {
+        delegate.maxRequests(maxRequests);
+        return this;
+    }
+
+    /**
+     * Set max number of concurrent requests to each host.
+     *
+     * @see LineMessagingServiceBuilder#maxRequestsPerHost(int)
+     */
+    public LineMessagingClientBuilder maxRequestsPerHost(int maxRequestsPerHost) {
+        delegate.maxRequestsPerHost(maxRequestsPerHost);
+        return this;
+    }
+
+    /**
+     * Set max number of idle connections kept in the connection pool.
+     *
+     * @see LineMessagingServiceBuilder#maxIdleConnections(int)
+     */
+    public LineMessagingClientBuilder maxIdleConnections(int maxIdleConnections) {
+        delegate.maxIdleConnections(maxIdleConnections);
+        return this;
+    }
+
+    /**
+     * Set keep-alive duration of idle connections in milliseconds.
+     *
+     * @see LineMessagingServiceBuilder#keepAliveDuration(long)
+     */
+    public LineMessagingClientBuilder keepAliveDuration(long keepAliveDuration) {
+        delegate.keepAliveDuration(keepAliveDuration);
+        return this;
+    }
+
+    /**
+     * Set whether HTTP/2 is preferred over HTTP/1.1 when the server supports it.
+     */
+    public LineMessagingClientBuilder http2Enabled(boolean http2Enabled) {
+        this.http2Enabled = http2Enabled;
+        delegate.http2Enabled(http2Enabled);
+        return this;
+    }
+
+    /**
+     * Use given {@link Dispatcher} to execute API calls.
+     *
+     * @see LineMessagingServiceBuilder#dispatcher(Dispatcher)
+     */
+    public LineMessagingClientBuilder dispatcher(@NonNull Dispatcher dispatcher) {
+        delegate.dispatcher(dispatcher);
+        return this;
+    }
+
+    /**
+     * Use given {@link ConnectionPool} to keep connections to {@code apiEndPoint}.
+     *
+     * @see LineMessagingServiceBuilder#connectionPool(ConnectionPool)
+     */
+    public LineMessagingClientBuilder connectionPool(@NonNull ConnectionPool connectionPool) {
+        delegate.connectionPool(connectionPool);
+        return this;
+    }
+
+    /**
+     * Set level of wire logging.
+     *
+     * @see LineMessagingServiceBuilder#wireLogLevel(Level)
+     */
+    public LineMessagingClientBuilder wireLogLevel(@NonNull Level wireLogLevel) {
+        delegate.wireLogLevel(wireLogLevel);
+        return this;
+    }
+
+    /**
+     * Set ratio of exchanges whose bodies are logged, between 0 and 1.
+     *
+     * @see LineMessagingServiceBuilder#wireLogSampleRate(double)
+     */
+    public LineMessagingClientBuilder wireLogSampleRate(double wireLogSampleRate) {
+        delegate.wireLogSampleRate(wireLogSampleRate);
+        return this;
+    }
+
+    /**
+     * Set max bytes of each body to be logged.
+     *
+     * @see LineMessagingServiceBuilder#wireLogMaxBodySize(long)
+     */
+    public LineMessagingClientBuilder wireLogMaxBodySize(long wireLogMaxBodySize) {
+        delegate.wireLogMaxBodySize(wireLogMaxBodySize);
+        return this;
+    }
+
+    /**
+     * Record last exchanges into given {@link WireLogHistory} for debugging.
+     *
+     * @see LineMessagingServiceBuilder#wireLogHistory(WireLogHistory)
+     */
+    public LineMessagingClientBuilder wireLogHistory(@NonNull WireLogHistory wireLogHistory) {
+        delegate.wireLogHistory(wireLogHistory);
+        return this;
+    }
+
     /**
      * Add interceptor
      */
@@ -114,10 +243,230 @@ public class LineMessagingClientBuilder {
         return this;
     }
 
+    /**
+     * Bind request and response bodies through generated bytecode instead of reflection.
+     *
+     * @see LineMessagingServiceBuilder#jacksonAcceleration(boolean)
+     */
+    public LineMessagingClientBuilder jacksonAcceleration(boolean jacksonAcceleration) {
+        delegate.jacksonAcceleration(jacksonAcceleration);
+        return this;
+    }
+
+    /**
+     * Let identical concurrent calls of read endpoints, e.g. {@link LineMessagingClient#getRichMenu(String)},
+     * share a single API call. Default: false.
+     *
+     * <p>Unlike {@link #profileCache(ProfileCache)}, results are not kept after the call completes.</p>
+     */
+    public LineMessagingClientBuilder requestCoalescing(boolean requestCoalescing) {
+        this.requestCoalescing = requestCoalescing;
+        return this;
+    }
+
+    /**
+     * Execute API calls by given {@link ApiTransport}, after client side policies are applied.
+     * Default: enqueue them to okhttp.
+     *
+     * <p>Not applied to {@link #buildBlockingClient()}.</p>
+     */
+    public LineMessagingClientBuilder transport(@NonNull ApiTransport transport) {
+        this.transport = transport;
+        return this;
+    }
+
+    /**
+     * Retry failed calls of idempotent endpoints.
+     *
+     * @see RetryPolicy
+     */
+    public LineMessagingClientBuilder retryPolicy(@NonNull RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * Send a second attempt of slow calls of idempotent endpoints and take the faster response.
+     *
+     * <p>The client uses HTTP/1.1 to send the attempts on separate connections.
+     * It can't be combined with {@code http2Enabled(true)}.</p>
+     *
+     * @see HedgingPolicy
+     */
+    public LineMessagingClientBuilder hedgingPolicy(@NonNull HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+        return this;
+    }
+
+    /**
+     * Limit rate of API calls on client side.
+     *
+     * <p>Calls exceeding the rate are queued instead of being sent to the server.</p>
+     *
+     * @see ApiRateLimiter
+     */
+    public LineMessagingClientBuilder rateLimiter(@NonNull ApiRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+        return this;
+    }
+
+    /**
+     * Limit the number of in-flight calls of this client. Default: 0, i.e. unlimited.
+     *
+     * <p>Excess calls wait in order of arrival without blocking any thread. Use it to keep a client from
+     * occupying all slots of a {@link Dispatcher} shared with other clients.</p>
+     *
+     * @see LineMessagingClientRegistry
+     */
+    public LineMessagingClientBuilder maxConcurrentCalls(int maxConcurrentCalls) {
+        if (maxConcurrentCalls < 0) {
+            throw new IllegalArgumentException("maxConcurrentCalls should not be negative: " + maxConcurrentCalls);
+        }
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        return this;
+    }
+
+    /**
+     * Send replies before pushes, multicasts and other calls, and drop replies whose deadlines passed.
+     *
+     * @see OutboundScheduler
+     */
+    public LineMessagingClientBuilder outboundScheduler(@NonNull OutboundScheduler outboundScheduler) {
+        this.outboundScheduler = outboundScheduler;
+        return this;
+    }
+
+    /**
+     * Fail calls fast while the server keeps failing or responding slowly.
+     *
+     * @see CircuitBreaker
+     */
+    public LineMessagingClientBuilder circuitBreaker(@NonNull CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+        return this;
+    }
+
+    /**
+     * Record latency, status codes and exceptions of API calls into given {@link ApiMetrics}.
+     */
+    public LineMessagingClientBuilder apiMetrics(@NonNull ApiMetrics apiMetrics) {
+        this.apiMetrics = apiMetrics;
+        return this;
+    }
+
+    /**
+     * Cache results of {@link LineMessagingClient#getProfile(String)} and member profile lookups.
+     *
+     * @see ProfileCache
+     */
+    public LineMessagingClientBuilder profileCache(@NonNull ProfileCache profileCache) {
+        this.profileCache = profileCache;
+        return this;
+    }
+
+    /**
+     * Merge pushes to the same receiver made within a short window into a single push.
+     *
+     * @see PushCoalescer
+     */
+    public LineMessagingClientBuilder pushCoalescer(@NonNull PushCoalescer pushCoalescer) {
+        this.pushCoalescer = pushCoalescer;
+        return this;
+    }
+
+    /**
+     * Create exceptions of error responses without stack traces, and parse their
+     * {@link com.linecorp.bot.client.exception.LineMessagingException#getErrorResponse() error responses}
+     * on first access. Default: false.
+     *
+     * <p>It saves CPU and garbage when many calls fail, e.g. by 429 Too Many Requests.
+     * The stack traces would only show threads of okhttp anyway.
+     * {@link com.linecorp.bot.client.exception.LineMessagingException#getRequestId()} is available without
+     * parsing. The blocking client is not affected.</p>
+     */
+    public LineMessagingClientBuilder lightweightExceptions(boolean lightweightExceptions) {
+        this.lightweightExceptions = lightweightExceptions;
+        return this;
+    }
+
+    /**
+     * Set timeout of each call in milliseconds, including time waiting in client side policies and retries.
+     * Default: 0, i.e. no timeout.
+     *
+     * <p>A timed out call fails with {@link com.linecorp.bot.client.exception.CallTimeoutException} and is
+     * cancelled, so its connection and dispatcher slot are released immediately instead of after
+     * {@link #readTimeout(long)}. Futures returned by the client are also cancelled this way when they are
+     * cancelled or completed exceptionally by the caller.</p>
+     */
+    public LineMessagingClientBuilder callTimeout(long callTimeout) {
+        if (callTimeout < 0) {
+            throw new IllegalArgumentException("callTimeout should not be negative: " + callTimeout);
+        }
+        this.callTimeout = callTimeout;
+        return this;
+    }
+
     /**
      * Creates a new {@link LineMessagingService}.
      */
     public LineMessagingClient build() {
-        return new LineMessagingClientImpl(delegate.build());
+        if (hedgingPolicy != null) {
+            if (Boolean.TRUE.equals(http2Enabled)) {
+                throw new IllegalStateException(
+                        "hedgingPolicy can't be used with HTTP/2, "
+                        + "which sends hedged attempts on the same connection");
+            }
+            delegate.http2Enabled(false);
+        }
+        return new LineMessagingClientImpl(delegate.build(), createInterceptors(), transport, profileCache,
+                                           pushCoalescer, new ExceptionConverter(lightweightExceptions),
+                                           callTimeout);
+    }
+
+    /**
+     * Creates a new {@link BlockingLineMessagingClient}.
+     *
+     * <p>Client side policies, e.g. {@link #rateLimiter(ApiRateLimiter)} and {@link #retryPolicy(RetryPolicy)},
+     * are not applied to the blocking client.</p>
+     */
+    public BlockingLineMessagingClient buildBlockingClient() {
+        return new BlockingLineMessagingClientImpl(delegate.build());
+    }
+
+    private List<ApiCallInterceptor> createInterceptors() {
+        final List<ApiCallInterceptor> interceptors = new ArrayList<>();
+        if (requestCoalescing) {
+            // Outermost. So followers share retries of the leader.
+            interceptors.add(new CoalescingInterceptor());
+        }
+        if (retryPolicy != null) {
+            // Outside of rate limiter. So each attempt consumes a permit.
+            interceptors.add(new RetryInterceptor(retryPolicy));
+        }
+        if (hedgingPolicy != null) {
+            // Inside of retry, so a retry is hedged as well. Hedged attempts consume rate limiter permits.
+            interceptors.add(new HedgingInterceptor(hedgingPolicy));
+        }
+        if (rateLimiter != null) {
+            interceptors.add(new RateLimitingInterceptor(rateLimiter));
+        }
+        if (maxConcurrentCalls > 0) {
+            // Inside of rate limiter, so calls waiting for a permit don't hold a slot.
+            // Waiting calls are ordered by the scheduler as well, so replies don't wait behind pushes.
+            interceptors.add(new ConcurrencyLimitInterceptor(maxConcurrentCalls, outboundScheduler));
+        }
+        if (outboundScheduler != null) {
+            interceptors.add(outboundScheduler.interceptor());
+        }
+        if (circuitBreaker != null) {
+            // Inside of retry, so each attempt is recorded and attempts fail fast while open.
+            // Inside of rate limiter, so time queued for a permit isn't regarded as slowness of the server.
+            interceptors.add(new CircuitBreakerInterceptor(circuitBreaker));
+        }
+        if (apiMetrics != null) {
+            // Innermost. So each HTTP request is measured, excluding time queued by other policies.
+            interceptors.add(new MetricsInterceptor(apiMetrics));
+        }
+        return interceptors;
     }
 }
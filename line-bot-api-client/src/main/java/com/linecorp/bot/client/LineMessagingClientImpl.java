@@ -18,13 +18,33 @@ package com.linecorp.bot.client;
 
 import static java.util.Collections.emptyList;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.linecorp.bot.client.exception.CallTimeoutException;
 import com.linecorp.bot.client.exception.GeneralLineMessagingException;
+import com.linecorp.bot.client.exception.LineMessagingException;
 import com.linecorp.bot.model.Multicast;
 import com.linecorp.bot.model.PushMessage;
 import com.linecorp.bot.model.ReplyMessage;
+import com.linecorp.bot.model.message.Message;
+import com.linecorp.bot.model.objectmapper.ModelObjectMapper;
 import com.linecorp.bot.model.profile.MembersIdsResponse;
 import com.linecorp.bot.model.profile.UserProfileResponse;
 import com.linecorp.bot.model.response.BotApiResponse;
@@ -33,6 +53,7 @@ import com.linecorp.bot.model.richmenu.RichMenuIdResponse;
 import com.linecorp.bot.model.richmenu.RichMenuListResponse;
 import com.linecorp.bot.model.richmenu.RichMenuResponse;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.MediaType;
@@ -46,7 +67,7 @@ import retrofit2.Response;
  * Proxy implementation of {@link LineMessagingClient} to hind internal implementation.
  */
 @Slf4j
-@AllArgsConstructor(onConstructor = @__(@SuppressWarnings("deprecation")))
+@AllArgsConstructor(access = AccessLevel.PACKAGE, onConstructor = @__(@SuppressWarnings("deprecation")))
 public class LineMessagingClientImpl implements LineMessagingClient {
     private static final ExceptionConverter EXCEPTION_CONVERTER = new ExceptionConverter();
     private static final String ORG_TYPE_GROUP = "group"; // TODO Enum
@@ -54,161 +75,415 @@ public class LineMessagingClientImpl implements LineMessagingClient {
     private static final BotApiResponse BOT_API_SUCCESS_RESPONSE = new BotApiResponse("", emptyList());
     private static final Function<Void, BotApiResponse>
             VOID_TO_BOT_API_SUCCESS_RESPONSE = ignored -> BOT_API_SUCCESS_RESPONSE;
+    private static final ObjectMapper OBJECT_MAPPER = ModelObjectMapper.createNewObjectMapper();
+    static final byte[] REPLY_TOKEN_PREFIX = JsonFragmentsRequestBody.utf8("{\"replyToken\":");
+    static final byte[] TO_PREFIX = JsonFragmentsRequestBody.utf8("{\"to\":");
+    private static final byte[] MESSAGES_INFIX = JsonFragmentsRequestBody.utf8(",\"messages\":");
+    private static final byte[] SUFFIX = JsonFragmentsRequestBody.utf8("}");
 
     @SuppressWarnings("deprecation")
     private final LineMessagingService retrofitImpl;
 
+    /**
+     * Interceptors applied to every API call. Calls are enqueued directly if empty and no transport is set.
+     */
+    private final List<ApiCallInterceptor> interceptors;
+
+    /**
+     * Executes calls after the interceptors. Nullable, to enqueue them to okhttp.
+     */
+    private final ApiTransport transport;
+
+    /**
+     * Cache of user profiles. Nullable.
+     */
+    private final ProfileCache profileCache;
+
+    /**
+     * Merges pushes to the same receiver. Nullable.
+     */
+    private final PushCoalescer pushCoalescer;
+
+    /**
+     * Converts error responses into exceptions.
+     */
+    private final ExceptionConverter exceptionConverter;
+
+    /**
+     * Timeout of each call in milliseconds, including time waiting in client side policies. 0 to disable.
+     */
+    private final long callTimeout;
+
+    @SuppressWarnings("deprecation")
+    public LineMessagingClientImpl(final LineMessagingService retrofitImpl) {
+        this(retrofitImpl, emptyList(), null, null, null, EXCEPTION_CONVERTER, 0);
+    }
+
     @Override
     public CompletableFuture<BotApiResponse> replyMessage(final ReplyMessage replyMessage) {
-        return toFuture(retrofitImpl.replyMessage(replyMessage));
+        return toFuture(ApiEndpoint.REPLY_MESSAGE, retrofitImpl.replyMessage(replyMessage));
+    }
+
+    @Override
+    public CompletableFuture<BotApiResponse> replyMessage(final ReplyMessage replyMessage,
+                                                          final Instant deadline) {
+        return toFuture(ApiEndpoint.REPLY_MESSAGE, deadline, retrofitImpl.replyMessage(replyMessage));
     }
 
     @Override
     public CompletableFuture<BotApiResponse> pushMessage(final PushMessage pushMessage) {
-        return toFuture(retrofitImpl.pushMessage(pushMessage));
+        if (pushCoalescer != null) {
+            // Timed out from the push, so a push held too long is withdrawn.
+            return withCallTimeout(pushCoalescer.push(pushMessage, this::sendPushMessage));
+        }
+        return sendPushMessage(pushMessage);
+    }
+
+    private CompletableFuture<BotApiResponse> sendPushMessage(final PushMessage pushMessage) {
+        return toFuture(ApiEndpoint.PUSH_MESSAGE, retrofitImpl.pushMessage(pushMessage));
+    }
+
+    @Override
+    public CompletableFuture<BotApiResponse> pushMessage(final PushMessage pushMessage,
+                                                         final Instant deadline) {
+        return toFuture(ApiEndpoint.PUSH_MESSAGE, deadline, retrofitImpl.pushMessage(pushMessage));
     }
 
     @Override
     public CompletableFuture<BotApiResponse> multicast(final Multicast multicast) {
-        return toFuture(retrofitImpl.multicast(multicast));
+        return toFuture(ApiEndpoint.MULTICAST, retrofitImpl.multicast(multicast));
+    }
+
+    @Override
+    public CompletableFuture<BotApiResponse> replyMessage(final String replyToken,
+                                                          final PreparedMessages messages) {
+        return toFuture(ApiEndpoint.REPLY_MESSAGE,
+                        retrofitImpl.replyMessageRaw(preparedBody(REPLY_TOKEN_PREFIX, replyToken, messages)));
+    }
+
+    @Override
+    public CompletableFuture<BotApiResponse> pushMessage(final String to, final PreparedMessages messages) {
+        return toFuture(ApiEndpoint.PUSH_MESSAGE,
+                        retrofitImpl.pushMessageRaw(preparedBody(TO_PREFIX, to, messages)));
+    }
+
+    @Override
+    public CompletableFuture<BotApiResponse> multicast(final Set<String> to, final PreparedMessages messages) {
+        return toFuture(ApiEndpoint.MULTICAST,
+                        retrofitImpl.multicastRaw(preparedBody(TO_PREFIX, to, messages)));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation serializes {@code messages} only once and reuses it for all chunks.
+     */
+    @Override
+    public CompletableFuture<MulticastResult> multicast(
+            final Iterator<String> to, final List<Message> messages, final int concurrency) {
+        final PreparedMessages prepared;
+        try {
+            prepared = PreparedMessages.of(messages);
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            return Futures.failedFuture(new GeneralLineMessagingException(e.getMessage(), null, e));
+        }
+        return multicast(to, prepared, concurrency);
+    }
+
+    /**
+     * Build request body of {@code {"<field>": value, "messages": [...]}} splicing pre-serialized messages.
+     */
+    static JsonFragmentsRequestBody preparedBody(final byte[] prefix, final Object value,
+                                                 final PreparedMessages messages) {
+        try {
+            return JsonFragmentsRequestBody.of(prefix, OBJECT_MAPPER.writeValueAsBytes(value),
+                                               MESSAGES_INFIX, messages.json(),
+                                               SUFFIX);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @Override
     public CompletableFuture<MessageContentResponse> getMessageContent(final String messageId) {
-        return toMessageContentResponseFuture(retrofitImpl.getMessageContent(messageId));
+        return toMessageContentResponseFuture(ApiEndpoint.GET_MESSAGE_CONTENT,
+                                              retrofitImpl.getMessageContent(messageId));
     }
 
     @Override
     public CompletableFuture<UserProfileResponse> getProfile(final String userId) {
-        return toFuture(retrofitImpl.getProfile(userId));
+        return cachedProfile(ProfileCache.userKey(userId),
+                             () -> toFuture(ApiEndpoint.GET_PROFILE, retrofitImpl.getProfile(userId)));
     }
 
     @Override
     public CompletableFuture<UserProfileResponse> getGroupMemberProfile(
             final String groupId, final String userId) {
-        return toFuture(retrofitImpl.getMemberProfile(ORG_TYPE_GROUP, groupId, userId));
+        return getMemberProfile(ORG_TYPE_GROUP, groupId, userId);
     }
 
     @Override
     public CompletableFuture<UserProfileResponse> getRoomMemberProfile(
             final String roomId, final String userId) {
-        return toFuture(retrofitImpl.getMemberProfile(ORG_TYPE_ROOM, roomId, userId));
+        return getMemberProfile(ORG_TYPE_ROOM, roomId, userId);
+    }
+
+    private CompletableFuture<UserProfileResponse> getMemberProfile(
+            final String orgType, final String orgId, final String userId) {
+        return cachedProfile(ProfileCache.memberKey(orgType, orgId, userId),
+                             () -> toFuture(ApiEndpoint.GET_MEMBER_PROFILE,
+                                            retrofitImpl.getMemberProfile(orgType, orgId, userId)));
+    }
+
+    private CompletableFuture<UserProfileResponse> cachedProfile(
+            final String key, final Supplier<CompletableFuture<UserProfileResponse>> loader) {
+        if (profileCache == null) {
+            return loader.get();
+        }
+        return profileCache.get(key, loader);
     }
 
     @Override
     public CompletableFuture<MembersIdsResponse> getGroupMembersIds(
             final String groupId, final String start) {
-        return toFuture(retrofitImpl.getMembersIds(ORG_TYPE_GROUP, groupId, start));
+        return toFuture(ApiEndpoint.GET_MEMBERS_IDS,
+                        retrofitImpl.getMembersIds(ORG_TYPE_GROUP, groupId, start));
     }
 
     @Override
     public CompletableFuture<MembersIdsResponse> getRoomMembersIds(
             final String roomId, final String start) {
-        return toFuture(retrofitImpl.getMembersIds(ORG_TYPE_ROOM, roomId, start));
+        return toFuture(ApiEndpoint.GET_MEMBERS_IDS,
+                        retrofitImpl.getMembersIds(ORG_TYPE_ROOM, roomId, start));
     }
 
     @Override
     public CompletableFuture<BotApiResponse> leaveGroup(final String groupId) {
-        return toFuture(retrofitImpl.leaveGroup(groupId));
+        return toFuture(ApiEndpoint.LEAVE_GROUP, retrofitImpl.leaveGroup(groupId));
     }
 
     @Override
     public CompletableFuture<BotApiResponse> leaveRoom(final String roomId) {
-        return toFuture(retrofitImpl.leaveRoom(roomId));
+        return toFuture(ApiEndpoint.LEAVE_ROOM, retrofitImpl.leaveRoom(roomId));
     }
 
     @Override
     public CompletableFuture<RichMenuResponse> getRichMenu(final String richMenuId) {
-        return toFuture(retrofitImpl.getRichMenu(richMenuId));
+        return toFuture(ApiEndpoint.GET_RICH_MENU, retrofitImpl.getRichMenu(richMenuId));
     }
 
     @Override
     public CompletableFuture<RichMenuIdResponse> createRichMenu(final RichMenu richMenu) {
-        return toFuture(retrofitImpl.createRichMenu(richMenu));
+        return toFuture(ApiEndpoint.CREATE_RICH_MENU, retrofitImpl.createRichMenu(richMenu));
     }
 
     @Override
     public CompletableFuture<BotApiResponse> deleteRichMenu(final String richMenuId) {
-        return toBotApiFuture(retrofitImpl.deleteRichMenu(richMenuId));
+        return toBotApiFuture(ApiEndpoint.DELETE_RICH_MENU, retrofitImpl.deleteRichMenu(richMenuId));
     }
 
     @Override
     public CompletableFuture<RichMenuIdResponse> getRichMenuIdOfUser(final String userId) {
-        return toFuture(retrofitImpl.getRichMenuIdOfUser(userId));
+        return toFuture(ApiEndpoint.GET_RICH_MENU_ID_OF_USER, retrofitImpl.getRichMenuIdOfUser(userId));
     }
 
     @Override
     public CompletableFuture<BotApiResponse> linkRichMenuIdToUser(
             final String userId, final String richMenuId) {
-        return toBotApiFuture(retrofitImpl.linkRichMenuToUser(userId, richMenuId));
+        return toBotApiFuture(ApiEndpoint.LINK_RICH_MENU_TO_USER,
+                              retrofitImpl.linkRichMenuToUser(userId, richMenuId));
     }
 
     @Override
     public CompletableFuture<BotApiResponse> unlinkRichMenuIdFromUser(final String userId) {
-        return toBotApiFuture(retrofitImpl.unlinkRichMenuIdFromUser(userId));
+        return toBotApiFuture(ApiEndpoint.UNLINK_RICH_MENU_FROM_USER,
+                              retrofitImpl.unlinkRichMenuIdFromUser(userId));
     }
 
     @Override
     public CompletableFuture<MessageContentResponse> getRichMenuImage(final String richMenuId) {
-        return toMessageContentResponseFuture(retrofitImpl.getRichMenuImage(richMenuId));
+        return toMessageContentResponseFuture(ApiEndpoint.GET_RICH_MENU_IMAGE,
+                                              retrofitImpl.getRichMenuImage(richMenuId));
     }
 
     @Override
     public CompletableFuture<BotApiResponse> setRichMenuImage(
             final String richMenuId, final String contentType, final byte[] content) {
         final RequestBody requestBody = RequestBody.create(MediaType.parse(contentType), content);
-        return toBotApiFuture(retrofitImpl.uploadRichMenuImage(richMenuId, requestBody));
+        return toBotApiFuture(ApiEndpoint.SET_RICH_MENU_IMAGE,
+                              retrofitImpl.uploadRichMenuImage(richMenuId, requestBody));
+    }
+
+    @Override
+    public CompletableFuture<BotApiResponse> setRichMenuImage(
+            final String richMenuId, final String contentType, final Path image) {
+        final RequestBody requestBody;
+        try {
+            requestBody = StreamingRequestBody.of(MediaType.parse(contentType), image);
+        } catch (IOException e) {
+            return Futures.failedFuture(new GeneralLineMessagingException(e.getMessage(), null, e));
+        }
+        return toBotApiFuture(ApiEndpoint.SET_RICH_MENU_IMAGE,
+                              retrofitImpl.uploadRichMenuImage(richMenuId, requestBody));
+    }
+
+    @Override
+    public CompletableFuture<BotApiResponse> setRichMenuImage(
+            final String richMenuId, final String contentType, final FileChannel image) {
+        final RequestBody requestBody;
+        try {
+            requestBody = StreamingRequestBody.of(MediaType.parse(contentType), image);
+        } catch (IOException e) {
+            return Futures.failedFuture(new GeneralLineMessagingException(e.getMessage(), null, e));
+        }
+        return toBotApiFuture(ApiEndpoint.SET_RICH_MENU_IMAGE,
+                              retrofitImpl.uploadRichMenuImage(richMenuId, requestBody));
+    }
+
+    @Override
+    public CompletableFuture<BotApiResponse> setRichMenuImage(
+            final String richMenuId, final String contentType, final InputStream image, final long length) {
+        final RequestBody requestBody = StreamingRequestBody.of(MediaType.parse(contentType), image, length);
+        return toBotApiFuture(ApiEndpoint.SET_RICH_MENU_IMAGE,
+                              retrofitImpl.uploadRichMenuImage(richMenuId, requestBody));
     }
 
     @Override
     public CompletableFuture<RichMenuListResponse> getRichMenuList() {
-        return toFuture(retrofitImpl.getRichMenuList());
+        return toFuture(ApiEndpoint.GET_RICH_MENU_LIST, retrofitImpl.getRichMenuList());
+    }
+
+    private <T> CompletableFuture<T> toFuture(final ApiEndpoint endpoint, final Call<T> callToWrap) {
+        return toFuture(endpoint, null, callToWrap);
+    }
+
+    private <T> CompletableFuture<T> toFuture(final ApiEndpoint endpoint, final Instant deadline,
+                                              final Call<T> callToWrap) {
+        final CallbackAdaptor<T> completableFuture = new CallbackAdaptor<>(exceptionConverter);
+        execute(endpoint, deadline, callToWrap, completableFuture, completableFuture.canceller());
+        return withCallTimeout(completableFuture);
     }
 
-    private static <T> CompletableFuture<T> toFuture(Call<T> callToWrap) {
-        final CallbackAdaptor<T> completableFuture = new CallbackAdaptor<>();
-        callToWrap.enqueue(completableFuture);
-        return completableFuture;
+    private CompletableFuture<BotApiResponse> toBotApiFuture(
+            final ApiEndpoint endpoint, final Call<Void> callToWrap) {
+        final CallbackAdaptor<Void> completableFuture = new CallbackAdaptor<>(exceptionConverter);
+        execute(endpoint, null, callToWrap, completableFuture, completableFuture.canceller());
+        // Shares the canceller, so cancelling the mapped future cancels the call.
+        final CallFuture<BotApiResponse> future = new CallFuture<>(completableFuture.canceller());
+        Futures.forward(completableFuture.thenApply(VOID_TO_BOT_API_SUCCESS_RESPONSE), future);
+        return withCallTimeout(future);
     }
 
-    private static CompletableFuture<BotApiResponse> toBotApiFuture(Call<Void> callToWrap) {
-        final CallbackAdaptor<Void> completableFuture = new CallbackAdaptor<>();
-        callToWrap.enqueue(completableFuture);
-        return completableFuture.thenApply(VOID_TO_BOT_API_SUCCESS_RESPONSE);
+    private CompletableFuture<MessageContentResponse> toMessageContentResponseFuture(
+            final ApiEndpoint endpoint, final Call<ResponseBody> callToWrap) {
+        final ResponseBodyCallbackAdaptor future = new ResponseBodyCallbackAdaptor(exceptionConverter);
+        execute(endpoint, null, callToWrap, future, future.canceller());
+        return withCallTimeout(future);
     }
 
-    private static CompletableFuture<MessageContentResponse> toMessageContentResponseFuture(
-            final Call<ResponseBody> callToWrap) {
-        final ResponseBodyCallbackAdaptor future = new ResponseBodyCallbackAdaptor();
-        callToWrap.enqueue(future);
+    /**
+     * Fail the future with {@link CallTimeoutException} if it's not completed within {@link #callTimeout},
+     * which cancels the call.
+     *
+     * <p>The future is failed on the common pool, so callbacks of the caller don't run on the shared scheduler.
+     */
+    private <F extends CompletableFuture<?>> F withCallTimeout(final F future) {
+        if (callTimeout <= 0 || future.isDone()) {
+            return future;
+        }
+        final ScheduledFuture<?> timer = DefaultScheduler.get().schedule(
+                () -> ForkJoinPool.commonPool().execute(() -> future.completeExceptionally(
+                        new CallTimeoutException("Call didn't complete in " + callTimeout + "ms"))),
+                callTimeout, TimeUnit.MILLISECONDS);
+        future.whenComplete((result, t) -> timer.cancel(false));
         return future;
     }
 
-    static class CallbackAdaptor<T> extends CompletableFuture<T> implements Callback<T> {
+    /**
+     * @param deadline deadline of the call, or null.
+     * @param canceller cancels calls enqueued for the call when the caller gives up.
+     */
+    private <T> void execute(final ApiEndpoint endpoint, final Instant deadline,
+                             final Call<T> call, final Callback<T> callback, final CallCanceller canceller) {
+        if (interceptors.isEmpty() && transport == null) {
+            if (canceller.register(call)) {
+                call.enqueue(callback);
+            }
+            return;
+        }
+
+        final CompletableFuture<Response<T>> responseFuture;
+        try {
+            responseFuture = new RealApiCallChain<>(interceptors, transport, 0, endpoint, deadline, canceller,
+                                                    call).proceed(call);
+        } catch (RuntimeException e) {
+            callback.onFailure(call, e);
+            return;
+        }
+
+        responseFuture.whenComplete((response, t) -> {
+            if (t != null) {
+                callback.onFailure(call, Futures.unwrap(t));
+            } else {
+                callback.onResponse(call, response);
+            }
+        });
+    }
+
+    /**
+     * Wrap a failure of API call, except exceptions thrown by client side policies without calling the API,
+     * e.g. {@link com.linecorp.bot.client.exception.CircuitBreakerOpenException}.
+     */
+    private static LineMessagingException toLineMessagingException(final Throwable t) {
+        if (t instanceof LineMessagingException) {
+            return (LineMessagingException) t;
+        }
+        return new GeneralLineMessagingException(t.getMessage(), null, t);
+    }
+
+    static class CallbackAdaptor<T> extends CallFuture<T> implements Callback<T> {
+        private final ExceptionConverter exceptionConverter;
+
+        CallbackAdaptor() {
+            this(EXCEPTION_CONVERTER);
+        }
+
+        CallbackAdaptor(final ExceptionConverter exceptionConverter) {
+            this.exceptionConverter = exceptionConverter;
+        }
+
         @Override
         public void onResponse(final Call<T> call, final Response<T> response) {
             if (response.isSuccessful()) {
                 complete(response.body());
             } else {
-                completeExceptionally(EXCEPTION_CONVERTER.apply(response));
+                completeExceptionally(exceptionConverter.apply(response));
             }
         }
 
         @Override
         public void onFailure(final Call<T> call, final Throwable t) {
-            completeExceptionally(
-                    new GeneralLineMessagingException(t.getMessage(), null, t));
+            completeExceptionally(toLineMessagingException(t));
         }
     }
 
     static class ResponseBodyCallbackAdaptor
-            extends CompletableFuture<MessageContentResponse>
+            extends CallFuture<MessageContentResponse>
             implements Callback<ResponseBody> {
+        private final ExceptionConverter exceptionConverter;
+
+        ResponseBodyCallbackAdaptor() {
+            this(EXCEPTION_CONVERTER);
+        }
+
+        ResponseBodyCallbackAdaptor(final ExceptionConverter exceptionConverter) {
+            this.exceptionConverter = exceptionConverter;
+        }
 
         @Override
         public void onResponse(final Call<ResponseBody> call, final Response<ResponseBody> response) {
             if (!response.isSuccessful()) {
-                completeExceptionally(EXCEPTION_CONVERTER.apply(response));
+                completeExceptionally(exceptionConverter.apply(response));
                 return;
             }
 
@@ -223,11 +498,10 @@ public class LineMessagingClientImpl implements LineMessagingClient {
 
         @Override
         public void onFailure(final Call<ResponseBody> call, final Throwable t) {
-            completeExceptionally(
-                    new GeneralLineMessagingException(t.getMessage(), null, t));
+            completeExceptionally(toLineMessagingException(t));
         }
 
-        private MessageContentResponse convert(final Response<ResponseBody> response) {
+        static MessageContentResponse convert(final Response<ResponseBody> response) {
             return MessageContentResponse
                     .builder()
                     .length(response.body().contentLength())
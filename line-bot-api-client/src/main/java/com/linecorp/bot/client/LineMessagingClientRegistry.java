@@ -0,0 +1,298 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static java.util.Collections.unmodifiableSet;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.linecorp.bot.model.objectmapper.ModelObjectMapper;
+
+import lombok.NonNull;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+/**
+ * Registry of {@link LineMessagingClient}s of multiple channels sharing one transport.
+ *
+ * <p>Clients created by {@link #register(String, ChannelTokenSupplier)} share a {@link Dispatcher},
+ * a {@link ConnectionPool}, TLS sessions and the {@link ObjectMapper} with its cached (de)serializers,
+ * so the number of threads and sockets doesn't grow with the number of channels.
+ * Only the channel token and client side policies are per channel.
+ *
+ * <p>Each channel may have at most {@link Builder#maxConcurrentCallsPerChannel(int)} calls in flight,
+ * and excess calls wait for the channel's own calls to complete. So a channel sending many messages
+ * can't occupy all {@link Builder#maxRequests(int)} slots of the shared dispatcher.
+ *
+ * <pre>{@code
+ * LineMessagingClientRegistry registry = LineMessagingClientRegistry
+ *         .builder()
+ *         .maxRequests(128)
+ *         .maxConcurrentCallsPerChannel(16)
+ *         .build();
+ * LineMessagingClient client = registry.register(channelId, FixedChannelTokenSupplier.of(channelToken));
+ * }</pre>
+ */
+public final class LineMessagingClientRegistry {
+    private final ConcurrentMap<String, LineMessagingClient> clients = new ConcurrentHashMap<>();
+    private final String apiEndPoint;
+    private final long connectTimeout;
+    private final long readTimeout;
+    private final long writeTimeout;
+    private final boolean http2Enabled;
+    private final int maxConcurrentCallsPerChannel;
+    private final BiConsumer<String, LineMessagingClientBuilder> clientCustomizer;
+    private final Dispatcher dispatcher;
+    private final ConnectionPool connectionPool;
+    private final OkHttpClient sharedHttpClient;
+    private final ObjectMapper objectMapper;
+
+    private LineMessagingClientRegistry(final Builder builder) {
+        this.apiEndPoint = builder.apiEndPoint;
+        this.connectTimeout = builder.connectTimeout;
+        this.readTimeout = builder.readTimeout;
+        this.writeTimeout = builder.writeTimeout;
+        this.http2Enabled = builder.http2Enabled;
+        this.maxConcurrentCallsPerChannel = builder.maxConcurrentCallsPerChannel;
+        this.clientCustomizer = builder.clientCustomizer;
+
+        dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(builder.maxRequests);
+        // All channels call the same host.
+        dispatcher.setMaxRequestsPerHost(builder.maxRequests);
+        connectionPool = new ConnectionPool(builder.maxIdleConnections, builder.keepAliveDuration,
+                                            TimeUnit.MILLISECONDS);
+        // Clients derived by newBuilder() share its SSL socket factory, and so TLS sessions.
+        sharedHttpClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(connectionPool)
+                .build();
+        objectMapper = builder.jacksonAcceleration
+                       ? ModelObjectMapper.getSharedAcceleratedObjectMapper()
+                       : ModelObjectMapper.createNewObjectMapper();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Create a client of the channel on the shared transport.
+     *
+     * @throws IllegalStateException if the channel is already registered.
+     */
+    public LineMessagingClient register(@NonNull final String channelId,
+                                        @NonNull final ChannelTokenSupplier channelTokenSupplier) {
+        if (clients.containsKey(channelId)) {
+            throw new IllegalStateException("Channel is already registered: " + channelId);
+        }
+        final LineMessagingClient client = createClient(channelId, channelTokenSupplier);
+        if (clients.putIfAbsent(channelId, client) != null) {
+            throw new IllegalStateException("Channel is already registered: " + channelId);
+        }
+        return client;
+    }
+
+    /**
+     * Returns the client of the channel, or null if the channel is not registered.
+     */
+    public LineMessagingClient getClient(@NonNull final String channelId) {
+        return clients.get(channelId);
+    }
+
+    /**
+     * Remove the client of the channel. Calls in flight are not affected.
+     *
+     * @return true if the channel was registered.
+     */
+    public boolean unregister(@NonNull final String channelId) {
+        return clients.remove(channelId) != null;
+    }
+
+    /**
+     * IDs of registered channels.
+     */
+    public Set<String> getChannelIds() {
+        return unmodifiableSet(clients.keySet());
+    }
+
+    /**
+     * Dispatcher shared by all channels. Use it to monitor queued and running calls at runtime.
+     */
+    public Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Connection pool shared by all channels. Use it to monitor connections at runtime.
+     */
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    private LineMessagingClient createClient(final String channelId,
+                                             final ChannelTokenSupplier channelTokenSupplier) {
+        final LineMessagingClientBuilder builder = new LineMessagingClientBuilder(channelTokenSupplier);
+        if (clientCustomizer != null) {
+            clientCustomizer.accept(channelId, builder);
+        }
+        // Applied after the customizer, so channels can't leave the shared transport.
+        return builder.apiEndPoint(apiEndPoint)
+                      .connectTimeout(connectTimeout)
+                      .readTimeout(readTimeout)
+                      .writeTimeout(writeTimeout)
+                      .http2Enabled(http2Enabled)
+                      .dispatcher(dispatcher)
+                      .connectionPool(connectionPool)
+                      .okHttpClientBuilder(sharedHttpClient.newBuilder(), false)
+                      .retrofitBuilder(LineMessagingServiceBuilder.createRetrofitBuilder(objectMapper))
+                      .maxConcurrentCalls(maxConcurrentCallsPerChannel)
+                      .build();
+    }
+
+    public static final class Builder {
+        private String apiEndPoint = LineMessagingServiceBuilder.DEFAULT_API_END_POINT;
+        private long connectTimeout = LineMessagingServiceBuilder.DEFAULT_CONNECT_TIMEOUT;
+        private long readTimeout = LineMessagingServiceBuilder.DEFAULT_READ_TIMEOUT;
+        private long writeTimeout = LineMessagingServiceBuilder.DEFAULT_WRITE_TIMEOUT;
+        private int maxRequests = LineMessagingServiceBuilder.DEFAULT_MAX_REQUESTS;
+        private int maxIdleConnections = LineMessagingServiceBuilder.DEFAULT_MAX_IDLE_CONNECTIONS;
+        private long keepAliveDuration = LineMessagingServiceBuilder.DEFAULT_KEEP_ALIVE_DURATION;
+        private boolean http2Enabled = LineMessagingServiceBuilder.DEFAULT_HTTP2_ENABLED;
+        private int maxConcurrentCallsPerChannel = 8;
+        private boolean jacksonAcceleration;
+        private BiConsumer<String, LineMessagingClientBuilder> clientCustomizer;
+
+        private Builder() {
+        }
+
+        /**
+         * Set apiEndPoint.
+         */
+        public Builder apiEndPoint(@NonNull final String apiEndPoint) {
+            this.apiEndPoint = apiEndPoint;
+            return this;
+        }
+
+        /**
+         * Set connectTimeout in milliseconds.
+         */
+        public Builder connectTimeout(final long connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * Set readTimeout in milliseconds.
+         */
+        public Builder readTimeout(final long readTimeout) {
+            this.readTimeout = readTimeout;
+            return this;
+        }
+
+        /**
+         * Set writeTimeout in milliseconds.
+         */
+        public Builder writeTimeout(final long writeTimeout) {
+            this.writeTimeout = writeTimeout;
+            return this;
+        }
+
+        /**
+         * Max number of concurrent requests of all channels. Default: 64.
+         */
+        public Builder maxRequests(final int maxRequests) {
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * Max number of idle connections kept for all channels. Default: 5.
+         */
+        public Builder maxIdleConnections(final int maxIdleConnections) {
+            this.maxIdleConnections = maxIdleConnections;
+            return this;
+        }
+
+        /**
+         * Keep-alive duration of idle connections in milliseconds. Default: 5 minutes.
+         */
+        public Builder keepAliveDuration(final long keepAliveDuration) {
+            this.keepAliveDuration = keepAliveDuration;
+            return this;
+        }
+
+        /**
+         * Set whether HTTP/2 is preferred over HTTP/1.1 when the server supports it. Default: true.
+         *
+         * <p>Set false to customize clients with {@link LineMessagingClientBuilder#hedgingPolicy(HedgingPolicy)}.
+         */
+        public Builder http2Enabled(final boolean http2Enabled) {
+            this.http2Enabled = http2Enabled;
+            return this;
+        }
+
+        /**
+         * Max number of in-flight calls of each channel. Default: 8.
+         *
+         * @see LineMessagingClientBuilder#maxConcurrentCalls(int)
+         */
+        public Builder maxConcurrentCallsPerChannel(final int maxConcurrentCallsPerChannel) {
+            if (maxConcurrentCallsPerChannel < 1) {
+                throw new IllegalArgumentException(
+                        "maxConcurrentCallsPerChannel should be positive: " + maxConcurrentCallsPerChannel);
+            }
+            this.maxConcurrentCallsPerChannel = maxConcurrentCallsPerChannel;
+            return this;
+        }
+
+        /**
+         * Bind request and response bodies through generated bytecode instead of reflection. Default: false.
+         *
+         * @see LineMessagingServiceBuilder#jacksonAcceleration(boolean)
+         */
+        public Builder jacksonAcceleration(final boolean jacksonAcceleration) {
+            if (jacksonAcceleration && !ModelObjectMapper.isAccelerationAvailable()) {
+                throw new IllegalStateException(
+                        "jackson-module-afterburner is required to enable jacksonAcceleration.");
+            }
+            this.jacksonAcceleration = jacksonAcceleration;
+            return this;
+        }
+
+        /**
+         * Configure client side policies of each channel, e.g. {@link RetryPolicy}, with the channel ID.
+         * Transport settings are overridden by the ones of this registry.
+         */
+        public Builder clientCustomizer(
+                @NonNull final BiConsumer<String, LineMessagingClientBuilder> clientCustomizer) {
+            this.clientCustomizer = clientCustomizer;
+            return this;
+        }
+
+        public LineMessagingClientRegistry build() {
+            return new LineMessagingClientRegistry(this);
+        }
+    }
+}
@@ -57,6 +57,12 @@ public interface LineMessagingService {
     @POST("v2/bot/message/reply")
     Call<BotApiResponse> replyMessage(@Body ReplyMessage replyMessage);
 
+    /**
+     * Same as {@link #replyMessage(ReplyMessage)} but takes pre-serialized JSON request body.
+     */
+    @POST("v2/bot/message/reply")
+    Call<BotApiResponse> replyMessageRaw(@Body RequestBody replyMessage);
+
     /**
      * Send messages to users when you want to.
      *
@@ -68,6 +74,12 @@ public interface LineMessagingService {
     @POST("v2/bot/message/push")
     Call<BotApiResponse> pushMessage(@Body PushMessage pushMessage);
 
+    /**
+     * Same as {@link #pushMessage(PushMessage)} but takes pre-serialized JSON request body.
+     */
+    @POST("v2/bot/message/push")
+    Call<BotApiResponse> pushMessageRaw(@Body RequestBody pushMessage);
+
     /**
      * Send messages to multiple users at any time. <strong>IDs of groups or rooms cannot be used.</strong>
      *
@@ -80,6 +92,12 @@ public interface LineMessagingService {
     @POST("v2/bot/message/multicast")
     Call<BotApiResponse> multicast(@Body Multicast multicast);
 
+    /**
+     * Same as {@link #multicast(Multicast)} but takes pre-serialized JSON request body.
+     */
+    @POST("v2/bot/message/multicast")
+    Call<BotApiResponse> multicastRaw(@Body RequestBody multicast);
+
     /**
      * Download image, video, and audio data sent from users.
      *
@@ -18,21 +18,21 @@ package com.linecorp.bot.client;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+
+import com.linecorp.bot.model.objectmapper.ModelObjectMapper;
 
 import lombok.NonNull;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
-import okhttp3.logging.HttpLoggingInterceptor;
+import okhttp3.Protocol;
+import okhttp3.logging.HttpLoggingInterceptor.Level;
 import retrofit2.Retrofit;
 import retrofit2.converter.jackson.JacksonConverterFactory;
 
@@ -41,15 +41,33 @@ public class LineMessagingServiceBuilder {
     public static final long DEFAULT_CONNECT_TIMEOUT = 10_000;
     public static final long DEFAULT_READ_TIMEOUT = 10_000;
     public static final long DEFAULT_WRITE_TIMEOUT = 10_000;
+    public static final int DEFAULT_MAX_REQUESTS = 64;
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 5;
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+    public static final long DEFAULT_KEEP_ALIVE_DURATION = 300_000;
+    public static final boolean DEFAULT_HTTP2_ENABLED = true;
 
     private String apiEndPoint = DEFAULT_API_END_POINT;
     private long connectTimeout = DEFAULT_CONNECT_TIMEOUT;
     private long readTimeout = DEFAULT_READ_TIMEOUT;
     private long writeTimeout = DEFAULT_WRITE_TIMEOUT;
+    private int maxRequests = DEFAULT_MAX_REQUESTS;
+    private int maxRequestsPerHost = DEFAULT_MAX_REQUESTS_PER_HOST;
+    private int maxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
+    private long keepAliveDuration = DEFAULT_KEEP_ALIVE_DURATION;
+    private boolean http2Enabled = DEFAULT_HTTP2_ENABLED;
     private List<Interceptor> interceptors = new ArrayList<>();
+    private final WireLoggingInterceptor wireLoggingInterceptor = new WireLoggingInterceptor();
 
+    private Dispatcher dispatcher;
+    private ConnectionPool connectionPool;
+    // Whether set explicitly, to override the ones of given okHttpClientBuilder.
+    private boolean dispatcherConfigured;
+    private boolean connectionPoolConfigured;
+    private boolean protocolsConfigured;
     private OkHttpClient.Builder okHttpClientBuilder;
     private Retrofit.Builder retrofitBuilder;
+    private boolean jacksonAcceleration;
 
     /**
      * Create a new {@link LineMessagingServiceBuilder} with specified given fixed channelToken.
@@ -62,11 +80,11 @@ public class LineMessagingServiceBuilder {
      * Create a new {@link LineMessagingServiceBuilder} with specified {@link ChannelTokenSupplier}.
      */
     public static LineMessagingServiceBuilder create(@NonNull ChannelTokenSupplier channelTokenSupplier) {
-        return new LineMessagingServiceBuilder(defaultInterceptors(channelTokenSupplier));
+        return new LineMessagingServiceBuilder(channelTokenSupplier);
     }
 
-    private LineMessagingServiceBuilder(List<Interceptor> interceptors) {
-        this.interceptors.addAll(interceptors);
+    private LineMessagingServiceBuilder(ChannelTokenSupplier channelTokenSupplier) {
+        this.interceptors.addAll(defaultInterceptors(channelTokenSupplier, wireLoggingInterceptor));
     }
 
     /**
@@ -101,6 +119,131 @@ public class LineMessagingServiceBuilder {
         return this;
     }
 
+    /**
+     * Set max number of concurrent requests.
+     *
+     * <p>Ignored when {@link #dispatcher(Dispatcher)} is specified.
+     *
+     * @see Dispatcher#setMaxRequests(int)
+     */
+    public LineMessagingServiceBuilder maxRequests(int maxRequests) {
+        this.maxRequests = maxRequests;
+        dispatcherConfigured = true;
+        return this;
+    }
+
+    /**
+     * Set max number of concurrent requests to each host.
+     *
+     * <p>All API calls are made to the single {@code apiEndPoint} host, so this value
+     * is the effective concurrency of the client.
+     * Ignored when {@link #dispatcher(Dispatcher)} is specified.
+     *
+     * @see Dispatcher#setMaxRequestsPerHost(int)
+     */
+    public LineMessagingServiceBuilder maxRequestsPerHost(int maxRequestsPerHost) {
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        dispatcherConfigured = true;
+        return this;
+    }
+
+    /**
+     * Set max number of idle connections kept in the connection pool.
+     *
+     * <p>Ignored when {@link #connectionPool(ConnectionPool)} is specified.
+     */
+    public LineMessagingServiceBuilder maxIdleConnections(int maxIdleConnections) {
+        this.maxIdleConnections = maxIdleConnections;
+        connectionPoolConfigured = true;
+        return this;
+    }
+
+    /**
+     * Set keep-alive duration of idle connections in milliseconds.
+     *
+     * <p>Ignored when {@link #connectionPool(ConnectionPool)} is specified.
+     */
+    public LineMessagingServiceBuilder keepAliveDuration(long keepAliveDuration) {
+        this.keepAliveDuration = keepAliveDuration;
+        connectionPoolConfigured = true;
+        return this;
+    }
+
+    /**
+     * Set whether HTTP/2 is preferred over HTTP/1.1 when the server supports it.
+     */
+    public LineMessagingServiceBuilder http2Enabled(boolean http2Enabled) {
+        this.http2Enabled = http2Enabled;
+        protocolsConfigured = true;
+        return this;
+    }
+
+    /**
+     * Use given {@link Dispatcher} to execute API calls.
+     *
+     * <p>Keep a reference to the dispatcher to monitor queued and running calls at runtime,
+     * e.g. {@link Dispatcher#queuedCallsCount()} and {@link Dispatcher#runningCallsCount()}.
+     * A dispatcher can be shared among multiple clients.
+     */
+    public LineMessagingServiceBuilder dispatcher(@NonNull Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+        dispatcherConfigured = true;
+        return this;
+    }
+
+    /**
+     * Use given {@link ConnectionPool} to keep connections to {@code apiEndPoint}.
+     *
+     * <p>Keep a reference to the pool to monitor connections at runtime,
+     * e.g. {@link ConnectionPool#connectionCount()} and {@link ConnectionPool#idleConnectionCount()}.
+     * A connection pool can be shared among multiple clients.
+     */
+    public LineMessagingServiceBuilder connectionPool(@NonNull ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+        connectionPoolConfigured = true;
+        return this;
+    }
+
+    /**
+     * Set level of wire logging into {@code com.linecorp.bot.client.wire} logger. Default: {@link Level#BODY}.
+     *
+     * <p>Nothing is logged nor buffered when the logger is disabled.
+     * Ignored when default interceptors are removed.
+     *
+     * @see WireLoggingInterceptor
+     */
+    public LineMessagingServiceBuilder wireLogLevel(@NonNull Level wireLogLevel) {
+        this.wireLoggingInterceptor.setLevel(wireLogLevel);
+        return this;
+    }
+
+    /**
+     * Set ratio of exchanges whose bodies are logged, between 0 and 1. Default: 1.
+     *
+     * @see WireLoggingInterceptor#setSampleRate(double)
+     */
+    public LineMessagingServiceBuilder wireLogSampleRate(double wireLogSampleRate) {
+        this.wireLoggingInterceptor.setSampleRate(wireLogSampleRate);
+        return this;
+    }
+
+    /**
+     * Set max bytes of each body to be logged.
+     * Default: {@value WireLoggingInterceptor#DEFAULT_MAX_BODY_SIZE}.
+     */
+    public LineMessagingServiceBuilder wireLogMaxBodySize(long wireLogMaxBodySize) {
+        this.wireLoggingInterceptor.setMaxBodySize(wireLogMaxBodySize);
+        return this;
+    }
+
+    /**
+     * Record last exchanges into given {@link WireLogHistory} for debugging.
+     */
+    public LineMessagingServiceBuilder wireLogHistory(@NonNull WireLogHistory wireLogHistory) {
+        this.wireLoggingInterceptor.setHistory(wireLogHistory);
+        return this;
+    }
+
     /**
      * Add interceptor
      */
@@ -139,6 +282,10 @@ public class LineMessagingServiceBuilder {
     /**
      * <p>If you want to use your own setting, specify {@link OkHttpClient.Builder} instance.</p>
      *
+     * <p>Timeouts configured by this builder override the ones of given {@link OkHttpClient.Builder}.
+     * Dispatcher, connection pool and protocols override them only when they are set on this builder,
+     * e.g. by {@link #maxRequests(int)} or {@link #http2Enabled(boolean)}.</p>
+     *
      * @param resetDefaultInterceptors If true, all default okhttp interceptors ignored.
      * You should insert authentication headers yourself.
      */
@@ -162,12 +309,45 @@ public class LineMessagingServiceBuilder {
         return this;
     }
 
+    /**
+     * Bind request and response bodies through bytecode generated by Jackson Afterburner
+     * instead of reflection. Default: false.
+     *
+     * <p>Requires {@code com.fasterxml.jackson.module:jackson-module-afterburner} in the class path.
+     * The accelerated mapper is created once and shared by all clients.
+     * Ignored if {@link #retrofitBuilder(Retrofit.Builder)} is specified.
+     *
+     * @see ModelObjectMapper#getSharedAcceleratedObjectMapper()
+     */
+    public LineMessagingServiceBuilder jacksonAcceleration(boolean jacksonAcceleration) {
+        if (jacksonAcceleration && !ModelObjectMapper.isAccelerationAvailable()) {
+            throw new IllegalStateException(
+                    "jackson-module-afterburner is required to enable jacksonAcceleration.");
+        }
+        this.jacksonAcceleration = jacksonAcceleration;
+        return this;
+    }
+
     /**
      * Creates a new {@link LineMessagingService}.
      */
     @SuppressWarnings("deprecation")
     public LineMessagingService build() {
-        if (okHttpClientBuilder == null) {
+        final OkHttpClient okHttpClient = buildOkHttpClient();
+
+        if (retrofitBuilder == null) {
+            retrofitBuilder = createDefaultRetrofitBuilder();
+        }
+        retrofitBuilder.client(okHttpClient);
+        retrofitBuilder.baseUrl(apiEndPoint);
+        final Retrofit retrofit = retrofitBuilder.build();
+
+        return retrofit.create(LineMessagingService.class);
+    }
+
+    OkHttpClient buildOkHttpClient() {
+        final boolean ownOkHttpClientBuilder = okHttpClientBuilder == null;
+        if (ownOkHttpClientBuilder) {
             okHttpClientBuilder = new OkHttpClient.Builder();
         }
 
@@ -176,40 +356,50 @@ public class LineMessagingServiceBuilder {
                 .connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
                 .readTimeout(readTimeout, TimeUnit.MILLISECONDS)
                 .writeTimeout(writeTimeout, TimeUnit.MILLISECONDS);
-
-        final OkHttpClient okHttpClient = okHttpClientBuilder.build();
-
-        if (retrofitBuilder == null) {
-            retrofitBuilder = createDefaultRetrofitBuilder();
+        // Keep the ones configured on given okHttpClientBuilder unless set on this builder.
+        if (ownOkHttpClientBuilder || dispatcherConfigured) {
+            okHttpClientBuilder.dispatcher(dispatcher != null ? dispatcher : createDispatcher());
         }
-        retrofitBuilder.client(okHttpClient);
-        retrofitBuilder.baseUrl(apiEndPoint);
-        final Retrofit retrofit = retrofitBuilder.build();
+        if (ownOkHttpClientBuilder || connectionPoolConfigured) {
+            okHttpClientBuilder.connectionPool(
+                    connectionPool != null ? connectionPool : createConnectionPool());
+        }
+        if (ownOkHttpClientBuilder || protocolsConfigured) {
+            okHttpClientBuilder.protocols(http2Enabled
+                                          ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                                          : Collections.singletonList(Protocol.HTTP_1_1));
+        }
+        return okHttpClientBuilder.build();
+    }
 
-        return retrofit.create(LineMessagingService.class);
+    private Dispatcher createDispatcher() {
+        final Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        return dispatcher;
     }
 
-    private static List<Interceptor> defaultInterceptors(final ChannelTokenSupplier channelTokenSupplier) {
-        final Logger slf4jLogger = LoggerFactory.getLogger("com.linecorp.bot.client.wire");
-        final HttpLoggingInterceptor httpLoggingInterceptor =
-                new HttpLoggingInterceptor(message -> slf4jLogger.info("{}", message));
-        httpLoggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+    private ConnectionPool createConnectionPool() {
+        return new ConnectionPool(maxIdleConnections, keepAliveDuration, TimeUnit.MILLISECONDS);
+    }
 
+    private static List<Interceptor> defaultInterceptors(final ChannelTokenSupplier channelTokenSupplier,
+                                                         final WireLoggingInterceptor wireLoggingInterceptor) {
         return Arrays.asList(
                 HeaderInterceptor.forChannelTokenSupplier(channelTokenSupplier),
-                httpLoggingInterceptor
+                wireLoggingInterceptor
         );
     }
 
-    private static Retrofit.Builder createDefaultRetrofitBuilder() {
-        final ObjectMapper objectMapper = new ObjectMapper()
-                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
-                // Register ParameterNamesModule to read parameter name from lombok generated constructor.
-                .registerModule(new ParameterNamesModule())
-                // Register JSR-310(java.time.temporal.*) module and read number as millsec.
-                .registerModule(new JavaTimeModule())
-                .configure(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS, false);
+    private Retrofit.Builder createDefaultRetrofitBuilder() {
+        final ObjectMapper objectMapper = jacksonAcceleration
+                                          ? ModelObjectMapper.getSharedAcceleratedObjectMapper()
+                                          : ModelObjectMapper.createNewObjectMapper();
+
+        return createRetrofitBuilder(objectMapper);
+    }
 
+    static Retrofit.Builder createRetrofitBuilder(final ObjectMapper objectMapper) {
         return new Retrofit.Builder()
                 .addConverterFactory(JacksonConverterFactory.create(objectMapper));
     }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.linecorp.bot.client.exception.LineMessagingException;
+import com.linecorp.bot.model.profile.MembersIdsResponse;
+
+/**
+ * Iterator of member IDs of a group or a room, walking pages of members IDs API.
+ *
+ * <p>Next page is fetched in background while the caller consumes current one.
+ * At most {@code bufferedPages} pages are fetched but not consumed, so memory is bounded.
+ *
+ * <p>{@link #hasNext()} blocks until the page is fetched. If fetching failed, it throws
+ * {@link java.util.concurrent.CompletionException} with the cause.
+ */
+class MembersIdsIterator implements Iterator<String> {
+    static final int DEFAULT_BUFFERED_PAGES = 2;
+
+    private final Function<String, CompletableFuture<MembersIdsResponse>> pageLoader;
+    private final int bufferedPages;
+
+    // Guarded by this. Pages fetched or being fetched, but not consumed yet.
+    private final Deque<Page> pages = new ArrayDeque<>();
+    private boolean closed;
+
+    // Accessed only by consumer.
+    private Iterator<String> current = Collections.emptyIterator();
+
+    /**
+     * Create an iterator.
+     *
+     * @param pageLoader function to fetch a page by continuation token. {@code null} for first page.
+     */
+    MembersIdsIterator(final Function<String, CompletableFuture<MembersIdsResponse>> pageLoader,
+                       final int bufferedPages) {
+        if (bufferedPages < 1) {
+            throw new IllegalArgumentException("bufferedPages should be positive: " + bufferedPages);
+        }
+        this.pageLoader = pageLoader;
+        this.bufferedPages = bufferedPages;
+        synchronized (this) {
+            fetch(null);
+        }
+    }
+
+    /**
+     * Fetches a page on the calling thread.
+     */
+    @FunctionalInterface
+    interface BlockingPageLoader {
+        MembersIdsResponse load(String start) throws LineMessagingException;
+    }
+
+    /**
+     * Stream for {@link BlockingLineMessagingClient}. With a single buffered page, each page is fetched
+     * on the consuming thread when the previous one is taken.
+     */
+    static Stream<String> blockingStream(final BlockingPageLoader pageLoader) {
+        return stream(start -> {
+            try {
+                return CompletableFuture.completedFuture(pageLoader.load(start));
+            } catch (LineMessagingException e) {
+                return Futures.failedFuture(e);
+            }
+        }, 1);
+    }
+
+    static Stream<String> stream(final Function<String, CompletableFuture<MembersIdsResponse>> pageLoader,
+                                 final int bufferedPages) {
+        final MembersIdsIterator iterator = new MembersIdsIterator(pageLoader, bufferedPages);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                            .onClose(iterator::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            final Page head;
+            synchronized (this) {
+                head = pages.peekFirst();
+            }
+            if (head == null) {
+                return false;
+            }
+
+            // Blocks until the page is fetched.
+            final MembersIdsResponse response = head.future.join();
+            synchronized (this) {
+                pages.removeFirst();
+                final Page tail = pages.isEmpty() ? head : pages.peekLast();
+                if (tail.future.isDone() && !tail.future.isCompletedExceptionally()) {
+                    requestSuccessor(tail, tail.future.join());
+                }
+            }
+            current = response.getMemberIds().iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * Cancel pages being fetched.
+     */
+    synchronized void close() {
+        closed = true;
+        pages.forEach(page -> page.future.cancel(false));
+        pages.clear();
+    }
+
+    // Must be called with lock held.
+    private void fetch(final String start) {
+        CompletableFuture<MembersIdsResponse> future;
+        try {
+            future = pageLoader.apply(start);
+        } catch (RuntimeException e) {
+            future = Futures.failedFuture(e);
+        }
+        final Page page = new Page(future);
+        pages.addLast(page);
+        future.thenAccept(response -> {
+            synchronized (this) {
+                requestSuccessor(page, response);
+            }
+        });
+    }
+
+    // Must be called with lock held.
+    private void requestSuccessor(final Page page, final MembersIdsResponse response) {
+        if (closed || page.successorRequested || !response.getNext().isPresent()) {
+            return;
+        }
+        if (pages.size() >= bufferedPages) {
+            // Requested again when the consumer takes a page.
+            return;
+        }
+        page.successorRequested = true;
+        fetch(response.getNext().get());
+    }
+
+    private static final class Page {
+        final CompletableFuture<MembersIdsResponse> future;
+
+        // Guarded by the iterator.
+        boolean successorRequested;
+
+        Page(final CompletableFuture<MembersIdsResponse> future) {
+            this.future = future;
+        }
+    }
+}
@@ -18,17 +18,30 @@ package com.linecorp.bot.client;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import lombok.Builder;
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.ToString;
 
 @Getter
 @Builder
 @ToString
 public class MessageContentResponse implements AutoCloseable {
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
     /** File size of this content. */
     final long length;
 
@@ -45,6 +58,123 @@ public class MessageContentResponse implements AutoCloseable {
      */
     final Map<String, List<String>> allHeaders;
 
+    /**
+     * Write this content into a file, replacing existing one. The stream is closed after transfer.
+     *
+     * @return {@code target}
+     */
+    public Path transferTo(final Path target) throws IOException {
+        return transferTo(target, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Write this content into a file, replacing existing one. The stream is closed after transfer.
+     * The file is deleted if transfer failed.
+     *
+     * @param maxSize max bytes to be transferred. Fails without creating the file if {@link #getLength()}
+     * exceeds it.
+     * @param digest nullable digest updated with the transferred bytes, e.g. {@code SHA-256}.
+     *
+     * @return {@code target}
+     * @throws IOException if failed to transfer, or the content exceeds {@code maxSize}.
+     */
+    public Path transferTo(@NonNull final Path target, final long maxSize, final MessageDigest digest)
+            throws IOException {
+        checkLength(maxSize);
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            transferTo(channel, maxSize, digest);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return target;
+    }
+
+    /**
+     * Write this content into a channel. The stream is closed after transfer, but the channel is not.
+     *
+     * @return number of transferred bytes.
+     */
+    public long transferTo(final WritableByteChannel target) throws IOException {
+        return transferTo(target, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Write this content into a channel. The stream is closed after transfer, but the channel is not.
+     *
+     * <p>Content is read from the stream into a single heap buffer reused for all chunks.
+     *
+     * @param maxSize max bytes to be transferred.
+     * @param digest nullable digest updated with the transferred bytes, e.g. {@code SHA-256}.
+     *
+     * @return number of transferred bytes.
+     * @throws IOException if failed to transfer, or the content exceeds {@code maxSize}.
+     */
+    public long transferTo(@NonNull final WritableByteChannel target, final long maxSize,
+                           final MessageDigest digest) throws IOException {
+        checkLength(maxSize);
+        try (InputStream source = stream) {
+            final byte[] array = new byte[TRANSFER_BUFFER_SIZE];
+            final ByteBuffer buffer = ByteBuffer.wrap(array);
+            long transferred = 0;
+            int read;
+            while ((read = source.read(array)) >= 0) {
+                transferred += read;
+                if (transferred > maxSize) {
+                    throw new IOException("Content exceeds max size: " + maxSize);
+                }
+                if (digest != null) {
+                    digest.update(array, 0, read);
+                }
+                buffer.clear().limit(read);
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+            }
+            return transferred;
+        }
+    }
+
+    /**
+     * Write this content into a file asynchronously using given executor.
+     *
+     * @return future of {@code target}, completed exceptionally with {@link IOException} on failure.
+     *
+     * @see #transferTo(Path, long, MessageDigest)
+     */
+    public CompletableFuture<Path> transferToAsync(final Path target, final Executor executor) {
+        return transferToAsync(target, Long.MAX_VALUE, null, executor);
+    }
+
+    /**
+     * Write this content into a file asynchronously using given executor.
+     * Use an executor for blocking I/O, not the common fork join pool.
+     *
+     * @return future of {@code target}, completed exceptionally with {@link IOException} on failure.
+     *
+     * @see #transferTo(Path, long, MessageDigest)
+     */
+    public CompletableFuture<Path> transferToAsync(@NonNull final Path target, final long maxSize,
+                                                   final MessageDigest digest,
+                                                   @NonNull final Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return transferTo(target, maxSize, digest);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    private void checkLength(final long maxSize) throws IOException {
+        if (length > maxSize) {
+            close();
+            throw new IOException("Content length " + length + " exceeds max size: " + maxSize);
+        }
+    }
+
     @Override
     public void close() throws IOException {
         stream.close();
@@ -0,0 +1,521 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.linecorp.bot.client.OutboxLog.Record;
+import com.linecorp.bot.client.exception.BadRequestException;
+import com.linecorp.bot.client.exception.ForbiddenException;
+import com.linecorp.bot.client.exception.NotFoundException;
+import com.linecorp.bot.client.exception.UnauthorizedException;
+import com.linecorp.bot.model.Multicast;
+import com.linecorp.bot.model.PushMessage;
+import com.linecorp.bot.model.message.Message;
+import com.linecorp.bot.model.objectmapper.ModelObjectMapper;
+import com.linecorp.bot.model.response.BotApiResponse;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Durable outbox of push and multicast messages.
+ *
+ * <p>Each message is appended to a memory-mapped local log before being sent, and acknowledged in the log
+ * after the server accepted or permanently rejected it. Messages not acknowledged yet are sent again
+ * when an outbox is opened on the same directory, e.g. after the process crashed.
+ * So delivery is at-least-once: a message may be sent twice if the process dies before its acknowledgement.
+ *
+ * <p>Records survive a crash of the process as soon as they are appended. They are flushed to the storage
+ * device in batches every {@link Builder#flushInterval(long)}, so sending isn't blocked by fsync.
+ *
+ * <p>The log is split into segments of {@link Builder#segmentSize(int)}. Segments are deleted from the oldest
+ * once all messages in them are acknowledged. When there are more than {@link Builder#maxSegments(int)}
+ * segments, messages still pending in the oldest one are copied to the newest one, so a few stuck messages
+ * don't keep the log growing.
+ *
+ * <p>Failed sends are retried with exponential backoff, except on 400, 401, 403 and 404,
+ * which won't succeed by retrying. Records which can't be decoded, e.g. written by an incompatible version,
+ * are acknowledged without being sent and their futures are completed with {@link IllegalArgumentException}.
+ *
+ * <pre>{@code
+ * MessageOutbox outbox = MessageOutbox.builder(client, Paths.get("/var/lib/bot/outbox")).build();
+ * outbox.push(new PushMessage(userId, new TextMessage("Your order is shipped.")));
+ * }</pre>
+ */
+@Slf4j
+public final class MessageOutbox implements Closeable {
+    private static final ObjectMapper OBJECT_MAPPER = ModelObjectMapper.createNewObjectMapper();
+    private static final TypeReference<List<Message>> MESSAGES_TYPE = new TypeReference<List<Message>>() {};
+    private static final TypeReference<LinkedHashSet<String>> RECIPIENTS_TYPE =
+            new TypeReference<LinkedHashSet<String>>() {};
+
+    private final LineMessagingClient client;
+    private final OutboxLog outboxLog;
+    private final int maxSegments;
+    private final int maxInFlight;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownScheduler;
+    private final ScheduledFuture<?> flushTask;
+
+    // Guarded by this.
+    private final Map<Long, Entry> pending = new LinkedHashMap<>();
+    private final Map<Long, Integer> pendingCountsBySegment = new HashMap<>();
+    private final Deque<Entry> sendQueue = new ArrayDeque<>();
+    private long nextId;
+    private int inFlight;
+    private boolean closed;
+
+    private MessageOutbox(final Builder builder) throws IOException {
+        this.client = builder.client;
+        this.maxSegments = builder.maxSegments;
+        this.maxInFlight = builder.maxInFlight;
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.ownScheduler = builder.scheduler == null;
+        this.scheduler = ownScheduler ? createScheduler(builder.directory) : builder.scheduler;
+        try {
+            this.outboxLog = new OutboxLog(builder.directory, builder.segmentSize);
+        } catch (IOException | RuntimeException e) {
+            shutdownScheduler();
+            throw e;
+        }
+        try {
+            replay(outboxLog.readAll());
+        } catch (IOException | RuntimeException e) {
+            outboxLog.close();
+            shutdownScheduler();
+            throw e;
+        }
+        this.flushTask = scheduler.scheduleWithFixedDelay(
+                this::flush, builder.flushInterval, builder.flushInterval, MILLISECONDS);
+        dispatch();
+    }
+
+    /**
+     * Own thread of an outbox, so a slow storage device doesn't delay tasks on the scheduler shared by
+     * other client side policies.
+     */
+    private static ScheduledExecutorService createScheduler(final Path directory) {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "line-bot-outbox-" + directory.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    private void shutdownScheduler() {
+        if (ownScheduler) {
+            scheduler.shutdown();
+        }
+    }
+
+    private void flush() {
+        // An exception thrown out of the task would stop following flushes silently.
+        try {
+            outboxLog.force();
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush outbox log", e);
+        }
+    }
+
+    public static Builder builder(@NonNull final LineMessagingClient client, @NonNull final Path directory) {
+        return new Builder(client, directory);
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final byte type;
+        private final byte[] payload;
+        private final CompletableFuture<BotApiResponse> future = new CompletableFuture<>();
+        private long segment;
+        private int attempts;
+
+        private Entry(final long id, final byte type, final byte[] payload, final long segment) {
+            this.id = id;
+            this.type = type;
+            this.payload = payload;
+            this.segment = segment;
+        }
+    }
+
+    /**
+     * Persist a push message and send it asynchronously.
+     *
+     * @return future completed when the server accepted the message, or completed exceptionally when it's
+     * rejected permanently. Completed exceptionally with {@link java.io.IOException} if it can't be persisted.
+     */
+    public CompletableFuture<BotApiResponse> push(@NonNull final PushMessage pushMessage) {
+        return enqueue(OutboxLog.TYPE_PUSH, pushMessage);
+    }
+
+    /**
+     * Persist a multicast message and send it asynchronously.
+     *
+     * @see #push(PushMessage)
+     */
+    public CompletableFuture<BotApiResponse> multicast(@NonNull final Multicast multicast) {
+        return enqueue(OutboxLog.TYPE_MULTICAST, multicast);
+    }
+
+    /**
+     * Number of messages not acknowledged yet.
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Number of segment files of the log.
+     */
+    public int getSegmentCount() {
+        return outboxLog.segmentSequences().size();
+    }
+
+    /**
+     * Stop sending and flush the log. Messages not acknowledged yet are sent when the outbox is opened again,
+     * and their futures are completed exceptionally with {@link IllegalStateException}.
+     */
+    @Override
+    public void close() throws IOException {
+        final List<Entry> unfinished;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushTask.cancel(false);
+            shutdownScheduler();
+            outboxLog.close();
+            unfinished = new ArrayList<>(pending.values());
+        }
+        final IllegalStateException cause =
+                new IllegalStateException("Outbox closed before delivery. Will be sent after reopen.");
+        unfinished.forEach(entry -> entry.future.completeExceptionally(cause));
+    }
+
+    private CompletableFuture<BotApiResponse> enqueue(final byte type, final Object message) {
+        final Entry entry;
+        try {
+            final byte[] payload = OBJECT_MAPPER.writeValueAsBytes(message);
+            synchronized (this) {
+                if (closed) {
+                    return Futures.failedFuture(new IllegalStateException("Outbox is closed."));
+                }
+                final long id = nextId++;
+                entry = new Entry(id, type, payload, outboxLog.append(type, id, payload));
+                addPending(entry);
+                sendQueue.add(entry);
+                compactIfNecessary();
+            }
+        } catch (IOException e) {
+            return Futures.failedFuture(e);
+        }
+        dispatch();
+        return entry.future;
+    }
+
+    private void replay(final List<Record> records) throws IOException {
+        final Map<Long, Record> unacknowledged = new LinkedHashMap<>();
+        long maxId = -1;
+        for (Record record : records) {
+            maxId = Math.max(maxId, record.getId());
+            if (record.getType() == OutboxLog.TYPE_ACK) {
+                unacknowledged.remove(record.getId());
+            } else {
+                // A copy made by compaction supersedes the original.
+                unacknowledged.put(record.getId(), record);
+            }
+        }
+
+        synchronized (this) {
+            nextId = maxId + 1;
+            for (Record record : unacknowledged.values()) {
+                final Entry entry = new Entry(record.getId(), record.getType(), record.getPayload(),
+                                              record.getSegment());
+                addPending(entry);
+                sendQueue.add(entry);
+            }
+            deleteFinishedSegments();
+        }
+        if (!unacknowledged.isEmpty()) {
+            log.info("Replaying {} messages of outbox", unacknowledged.size());
+        }
+    }
+
+    private void dispatch() {
+        final List<Entry> entries = new ArrayList<>();
+        synchronized (this) {
+            while (!closed && inFlight < maxInFlight && !sendQueue.isEmpty()) {
+                entries.add(sendQueue.poll());
+                inFlight++;
+            }
+        }
+        entries.forEach(this::send);
+    }
+
+    private void send(final Entry entry) {
+        final Object message;
+        try {
+            message = entry.type == OutboxLog.TYPE_PUSH ? toPushMessage(entry.payload)
+                                                        : toMulticast(entry.payload);
+        } catch (IOException | RuntimeException e) {
+            // Won't be decoded by retrying. Acknowledge it, so it isn't copied forward by every compaction.
+            onSent(entry, null, new IllegalArgumentException("Undecodable outbox message " + entry.id, e));
+            return;
+        }
+
+        CompletableFuture<BotApiResponse> future;
+        try {
+            future = message instanceof PushMessage ? client.pushMessage((PushMessage) message)
+                                                    : client.multicast((Multicast) message);
+        } catch (RuntimeException e) {
+            future = Futures.failedFuture(e);
+        }
+        future.whenComplete((response, t) -> onSent(entry, response, t == null ? null : Futures.unwrap(t)));
+    }
+
+    private void onSent(final Entry entry, final BotApiResponse response, final Throwable t) {
+        final boolean done = t == null || !isRetryable(t);
+        synchronized (this) {
+            inFlight--;
+            if (closed) {
+                return;
+            }
+            if (done) {
+                try {
+                    outboxLog.ack(entry.id);
+                    removePending(entry);
+                    deleteFinishedSegments();
+                } catch (IOException e) {
+                    // Not acknowledged. The message is sent again after reopen.
+                    log.warn("Failed to acknowledge outbox message {}", entry.id, e);
+                }
+            }
+        }
+
+        if (done) {
+            if (t == null) {
+                entry.future.complete(response);
+            } else {
+                log.warn("Outbox message {} was rejected", entry.id, t);
+                entry.future.completeExceptionally(t);
+            }
+        } else {
+            entry.attempts++;
+            final long delay = (long) Math.min(maxBackoff, initialBackoff * Math.pow(2, entry.attempts - 1));
+            log.debug("Retrying outbox message {} in {} ms", entry.id, delay, t);
+            try {
+                scheduler.schedule(() -> retry(entry), delay, MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Closed in the meantime. The message is sent again after reopen.
+                return;
+            }
+        }
+        dispatch();
+    }
+
+    private void retry(final Entry entry) {
+        synchronized (this) {
+            sendQueue.addFirst(entry);
+        }
+        dispatch();
+    }
+
+    private static boolean isRetryable(final Throwable t) {
+        return !(t instanceof BadRequestException
+                 || t instanceof UnauthorizedException
+                 || t instanceof ForbiddenException
+                 || t instanceof NotFoundException
+                 || t instanceof IllegalArgumentException);
+    }
+
+    // Following methods must be called while holding the lock of this.
+
+    private void addPending(final Entry entry) {
+        pending.put(entry.id, entry);
+        pendingCountsBySegment.merge(entry.segment, 1, Integer::sum);
+    }
+
+    private void removePending(final Entry entry) {
+        pending.remove(entry.id);
+        pendingCountsBySegment.computeIfPresent(entry.segment, (segment, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * Delete segments from the oldest while they have no pending messages.
+     * Newer segments are kept even if finished, as they may contain acknowledgements of messages in older ones.
+     */
+    private void deleteFinishedSegments() throws IOException {
+        for (long segment : outboxLog.segmentSequences()) {
+            if (segment == outboxLog.activeSegment() || pendingCountsBySegment.containsKey(segment)) {
+                return;
+            }
+            outboxLog.delete(segment);
+        }
+    }
+
+    /**
+     * Copy pending messages of the oldest segment to the active one, if there are too many segments.
+     */
+    private void compactIfNecessary() throws IOException {
+        final List<Long> segments = outboxLog.segmentSequences();
+        if (segments.size() <= maxSegments) {
+            return;
+        }
+        final long oldest = segments.get(0);
+        for (Entry entry : new ArrayList<>(pending.values())) {
+            if (entry.segment == oldest) {
+                removePending(entry);
+                entry.segment = outboxLog.append(entry.type, entry.id, entry.payload);
+                addPending(entry);
+            }
+        }
+        deleteFinishedSegments();
+    }
+
+    private static PushMessage toPushMessage(final byte[] payload) throws IOException {
+        final JsonNode node = OBJECT_MAPPER.readTree(payload);
+        return new PushMessage(node.get("to").asText(), toMessages(node));
+    }
+
+    private static Multicast toMulticast(final byte[] payload) throws IOException {
+        final JsonNode node = OBJECT_MAPPER.readTree(payload);
+        final Set<String> to = OBJECT_MAPPER.convertValue(node.get("to"), RECIPIENTS_TYPE);
+        return new Multicast(to, toMessages(node));
+    }
+
+    private static List<Message> toMessages(final JsonNode node) {
+        return OBJECT_MAPPER.convertValue(node.get("messages"), MESSAGES_TYPE);
+    }
+
+    public static final class Builder {
+        private final LineMessagingClient client;
+        private final Path directory;
+        private int segmentSize = 16 * 1024 * 1024;
+        private int maxSegments = 8;
+        private long flushInterval = 100;
+        private int maxInFlight = 16;
+        private long initialBackoff = 500;
+        private long maxBackoff = 60_000;
+        private ScheduledExecutorService scheduler;
+
+        private Builder(final LineMessagingClient client, final Path directory) {
+            this.client = client;
+            this.directory = directory;
+        }
+
+        /**
+         * Size of each segment file in bytes. Default: 16 MiB.
+         */
+        public Builder segmentSize(final int segmentSize) {
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Number of segments which triggers compaction of the oldest one. Default: 8.
+         */
+        public Builder maxSegments(final int maxSegments) {
+            if (maxSegments < 2) {
+                throw new IllegalArgumentException("maxSegments should be 2 or more: " + maxSegments);
+            }
+            this.maxSegments = maxSegments;
+            return this;
+        }
+
+        /**
+         * Interval of flushing the log to the storage device in milliseconds. Default: 100 milliseconds.
+         */
+        public Builder flushInterval(final long flushInterval) {
+            if (flushInterval <= 0) {
+                throw new IllegalArgumentException("flushInterval should be positive: " + flushInterval);
+            }
+            this.flushInterval = flushInterval;
+            return this;
+        }
+
+        /**
+         * Max number of messages being sent at the same time. Default: 16.
+         */
+        public Builder maxInFlight(final int maxInFlight) {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("maxInFlight should be positive: " + maxInFlight);
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Backoff before the first retry in milliseconds, doubled on each retry. Default: 500 milliseconds.
+         */
+        public Builder initialBackoff(final long initialBackoff) {
+            this.initialBackoff = initialBackoff;
+            return this;
+        }
+
+        /**
+         * Max backoff between retries in milliseconds. Default: 1 minute.
+         */
+        public Builder maxBackoff(final long maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * Scheduler to flush the log and retry sends. Default: a daemon thread owned by the outbox,
+         * shut down on {@link MessageOutbox#close()}.
+         */
+        public Builder scheduler(@NonNull final ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Open the outbox and start sending messages left by the previous run.
+         */
+        public MessageOutbox build() throws IOException {
+            return new MessageOutbox(this);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.util.concurrent.CompletableFuture;
+
+import lombok.AllArgsConstructor;
+import retrofit2.Response;
+
+/**
+ * {@link ApiCallInterceptor} which records {@link ApiMetrics}.
+ */
+@AllArgsConstructor
+class MetricsInterceptor implements ApiCallInterceptor {
+    private final ApiMetrics apiMetrics;
+
+    @Override
+    public <T> CompletableFuture<Response<T>> intercept(final Chain<T> chain) {
+        final ApiEndpoint endpoint = chain.endpoint();
+        final long startNanos = System.nanoTime();
+        apiMetrics.onCallStarted(endpoint);
+
+        CompletableFuture<Response<T>> future;
+        try {
+            future = chain.proceed(chain.call());
+        } catch (RuntimeException e) {
+            future = Futures.failedFuture(e);
+        }
+        future.whenComplete((response, t) -> {
+            final long latencyNanos = System.nanoTime() - startNanos;
+            if (t != null) {
+                apiMetrics.onCallCompleted(endpoint, latencyNanos, -1, Futures.unwrap(t).getClass());
+            } else if (response.isSuccessful()) {
+                apiMetrics.onCallCompleted(endpoint, latencyNanos, response.code(), null);
+            } else {
+                apiMetrics.onCallCompleted(endpoint, latencyNanos, response.code(),
+                                           ExceptionConverter.exceptionTypeOf(response.code()));
+            }
+        });
+        return future;
+    }
+}
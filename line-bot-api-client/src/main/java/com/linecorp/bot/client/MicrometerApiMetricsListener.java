@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.linecorp.bot.client;
+
+import static java.util.Collections.singletonList;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * {@link ApiMetricsListener} recording API calls into a Micrometer {@link MeterRegistry}.
+ *
+ * <p>Requires {@code io.micrometer:micrometer-core} in the class path, which is an optional dependency
+ * of this library. Meters are:
+ * <ul>
+ * <li>{@code <name>}: timer of calls, tagged by {@code endpoint}, {@code status} and {@code exception}.
+ * {@code status} is {@code -1} if no response is received. {@code exception} is {@code none}
+ * if the call succeeded.</li>
+ * <li>{@code <name>.in.flight}: gauge of calls in flight, tagged by {@code endpoint}.</li>
+ * </ul>
+ *
+ * <pre>{@code
+ * ApiMetrics apiMetrics = new ApiMetrics();
+ * apiMetrics.addListener(new MicrometerApiMetricsListener(meterRegistry));
+ * }</pre>
+ */
+public final class MicrometerApiMetricsListener implements ApiMetricsListener {
+    private static final String DEFAULT_NAME = "line.bot.api.calls";
+
+    private final MeterRegistry registry;
+    private final String name;
+    private final Map<ApiEndpoint, AtomicInteger> inFlight = new EnumMap<>(ApiEndpoint.class);
+    private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Create a listener recording meters named {@code line.bot.api.calls}.
+     */
+    public MicrometerApiMetricsListener(final MeterRegistry registry) {
+        this(registry, DEFAULT_NAME);
+    }
+
+    public MicrometerApiMetricsListener(@NonNull final MeterRegistry registry, @NonNull final String name) {
+        this.registry = registry;
+        this.name = name;
+        for (ApiEndpoint endpoint : ApiEndpoint.values()) {
+            inFlight.put(endpoint, registry.gauge(name + ".in.flight",
+                                                  singletonList(Tag.of("endpoint", endpoint.name())),
+                                                  new AtomicInteger()));
+        }
+    }
+
+    @Override
+    public void onCallStarted(final ApiEndpoint endpoint) {
+        inFlight.get(endpoint).incrementAndGet();
+    }
+
+    @Override
+    public void onCallCompleted(final ApiEndpoint endpoint, final long latencyNanos, final int statusCode,
+                                final Class<? extends Throwable> exceptionType) {
+        inFlight.get(endpoint).decrementAndGet();
+        // Timers are cached, so a call doesn't build tags to look up the registry.
+        timers.computeIfAbsent(new TimerKey(endpoint, statusCode, exceptionType), this::registerTimer)
+              .record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer registerTimer(final TimerKey key) {
+        return Timer.builder(name)
+                    .tag("endpoint", key.endpoint.name())
+                    .tag("status", String.valueOf(key.statusCode))
+                    .tag("exception", key.exceptionType != null ? key.exceptionType.getSimpleName() : "none")
+                    .register(registry);
+    }
+
+    @Value
+    private static class TimerKey {
+        ApiEndpoint endpoint;
+        int statusCode;
+        Class<? extends Throwable> exceptionType;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.util.List;
+import java.util.Set;
+
+import com.linecorp.bot.model.Multicast;
+
+import lombok.Value;
+
+/**
+ * Result of {@link LineMessagingClient#multicast(java.util.Iterator, List, int)}.
+ */
+@Value
+public class MulticastResult {
+    /**
+     * Number of {@link Multicast} API calls made.
+     */
+    int chunkCount;
+
+    /**
+     * Chunks of recipients which could not be sent. Empty if all chunks are sent.
+     */
+    List<FailedChunk> failedChunks;
+
+    /**
+     * Returns true if messages are sent to all recipients.
+     */
+    public boolean isSucceeded() {
+        return failedChunks.isEmpty();
+    }
+
+    @Value
+    public static class FailedChunk {
+        /**
+         * Recipients of the failed API call.
+         */
+        Set<String> to;
+
+        /**
+         * Cause of the failure. Usually an instance of
+         * {@link com.linecorp.bot.client.exception.LineMessagingException}.
+         */
+        Throwable cause;
+    }
+}
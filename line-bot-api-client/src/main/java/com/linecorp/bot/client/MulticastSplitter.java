@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.linecorp.bot.client.MulticastResult.FailedChunk;
+import com.linecorp.bot.client.exception.LineMessagingException;
+import com.linecorp.bot.model.response.BotApiResponse;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * Splits recipients of large multicast into chunks acceptable by the multicast API.
+ */
+final class MulticastSplitter {
+    /**
+     * Max number of recipients of single multicast API call.
+     */
+    static final int MAX_RECIPIENTS = 150;
+
+    static final int DEFAULT_CONCURRENCY = 4;
+
+    private MulticastSplitter() {
+    }
+
+    static CompletableFuture<MulticastResult> multicast(
+            final Iterator<String> to,
+            final int concurrency,
+            final Function<Set<String>, CompletableFuture<BotApiResponse>> sender) {
+        final AtomicInteger chunkCount = new AtomicInteger();
+        final Queue<FailedChunk> failedChunks = new ConcurrentLinkedQueue<>();
+
+        return ConcurrencyWindow
+                .run(new ChunkIterator(to), concurrency,
+                     chunk -> {
+                         chunkCount.incrementAndGet();
+                         return sender.apply(chunk);
+                     },
+                     (chunk, t) -> {
+                         if (t != null) {
+                             failedChunks.add(new FailedChunk(chunk, t));
+                         }
+                     })
+                .thenApply(ignored -> new MulticastResult(chunkCount.get(), new ArrayList<>(failedChunks)));
+    }
+
+    /**
+     * Sends a chunk on the calling thread.
+     */
+    @FunctionalInterface
+    interface BlockingSender {
+        BotApiResponse send(Set<String> chunk) throws LineMessagingException;
+    }
+
+    /**
+     * Send chunks one by one on the calling thread, for {@link BlockingLineMessagingClient}.
+     */
+    static MulticastResult multicastSequentially(final Iterator<String> to, final BlockingSender sender) {
+        int chunkCount = 0;
+        final List<FailedChunk> failedChunks = new ArrayList<>();
+        final Iterator<Set<String>> chunks = new ChunkIterator(to);
+        while (chunks.hasNext()) {
+            final Set<String> chunk = chunks.next();
+            chunkCount++;
+            try {
+                sender.send(chunk);
+            } catch (LineMessagingException | RuntimeException e) {
+                failedChunks.add(new FailedChunk(chunk, e));
+            }
+        }
+        return new MulticastResult(chunkCount, failedChunks);
+    }
+
+    @AllArgsConstructor
+    private static class ChunkIterator implements Iterator<Set<String>> {
+        private final Iterator<String> delegate;
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public Set<String> next() {
+            if (!delegate.hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final Set<String> chunk = new LinkedHashSet<>();
+            while (chunk.size() < MAX_RECIPIENTS && delegate.hasNext()) {
+                chunk.add(delegate.next());
+            }
+            return chunk;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.time.Clock;
+import java.time.Instant;
+
+import com.linecorp.bot.client.exception.DeadlineExceededException;
+import com.linecorp.bot.model.event.Event;
+
+import lombok.NonNull;
+
+/**
+ * Scheduler of outbound API calls, which sends interactive replies before bulk traffic.
+ *
+ * <p>At most {@link Builder#maxConcurrentCalls(int)} calls are in flight. Excess calls wait and are sent
+ * in order of priority: replies, then pushes, then multicasts, then the other endpoints, e.g. rich menus.
+ * Calls of the same priority are sent in order of deadline, then in order of arrival.
+ * A reply whose deadline passed while waiting is dropped and fails with {@link DeadlineExceededException}
+ * instead of being sent with an expired reply token.
+ *
+ * <p>Keep {@link Builder#maxConcurrentCalls(int)} below max requests of the okhttp dispatcher,
+ * so calls wait here in order of priority instead of in the FIFO queue of the dispatcher.
+ * Share an instance among clients to prioritize calls of all of them together.
+ *
+ * <pre>{@code
+ * OutboundScheduler scheduler = OutboundScheduler.builder().build();
+ * LineMessagingClient client = LineMessagingClient
+ *         .builder(channelToken)
+ *         .outboundScheduler(scheduler)
+ *         .build();
+ *
+ * // In a webhook handler.
+ * client.replyMessage(new ReplyMessage(event.getReplyToken(), message), scheduler.replyDeadlineOf(event));
+ * }</pre>
+ */
+public final class OutboundScheduler {
+    /**
+     * Default duration in milliseconds a reply token is regarded as valid after the webhook event.
+     */
+    public static final long DEFAULT_REPLY_TOKEN_TIMEOUT = 30_000;
+
+    private static final int PRIORITY_REPLY = 0;
+    private static final int PRIORITY_PUSH = 1;
+    private static final int PRIORITY_MULTICAST = 2;
+    private static final int PRIORITY_ADMIN = 3;
+
+    private final long replyTokenTimeout;
+    private final Clock clock;
+    private final ConcurrencyLimitInterceptor interceptor;
+
+    private OutboundScheduler(final Builder builder) {
+        this.replyTokenTimeout = builder.replyTokenTimeout;
+        this.clock = builder.clock;
+        this.interceptor = new ConcurrencyLimitInterceptor(builder.maxConcurrentCalls, this);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Deadline of a reply to the event, i.e. when its reply token is regarded as expired.
+     */
+    public Instant replyDeadlineOf(@NonNull final Event event) {
+        return event.getTimestamp().plusMillis(replyTokenTimeout);
+    }
+
+    /**
+     * Interceptor holding calls of all clients sharing this scheduler.
+     */
+    ApiCallInterceptor interceptor() {
+        return interceptor;
+    }
+
+    int priorityOf(final ApiEndpoint endpoint) {
+        switch (endpoint.getFamily()) {
+            case REPLY:
+                return PRIORITY_REPLY;
+            case PUSH:
+                return PRIORITY_PUSH;
+            case MULTICAST:
+                return PRIORITY_MULTICAST;
+            default:
+                return PRIORITY_ADMIN;
+        }
+    }
+
+    /**
+     * Returns true if the call should be dropped instead of being sent. Only replies are dropped,
+     * as other calls are still valid after their deadlines.
+     *
+     * @param deadline nullable.
+     */
+    boolean isExpired(final ApiEndpoint endpoint, final Instant deadline) {
+        return deadline != null
+               && endpoint.getFamily() == EndpointFamily.REPLY
+               && clock.instant().isAfter(deadline);
+    }
+
+    public static final class Builder {
+        private int maxConcurrentCalls = 32;
+        private long replyTokenTimeout = DEFAULT_REPLY_TOKEN_TIMEOUT;
+        private Clock clock = Clock.systemUTC();
+
+        private Builder() {
+        }
+
+        /**
+         * Max number of in-flight calls. Default: 32.
+         */
+        public Builder maxConcurrentCalls(final int maxConcurrentCalls) {
+            if (maxConcurrentCalls < 1) {
+                throw new IllegalArgumentException("maxConcurrentCalls should be positive: " + maxConcurrentCalls);
+            }
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            return this;
+        }
+
+        /**
+         * Duration in milliseconds a reply token is regarded as valid after the webhook event.
+         * Default: 30 seconds.
+         *
+         * @see OutboundScheduler#replyDeadlineOf(Event)
+         */
+        public Builder replyTokenTimeout(final long replyTokenTimeout) {
+            this.replyTokenTimeout = replyTokenTimeout;
+            return this;
+        }
+
+        Builder clock(final Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public OutboundScheduler build() {
+            return new OutboundScheduler(this);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only log of {@link MessageOutbox}, split into memory-mapped segment files of fixed size.
+ *
+ * <p>Each record is {@code [payload length][type][id][payload][crc32]}. A segment ends at the first record
+ * whose length is zero, i.e. the zero filled tail of the file, or whose checksum doesn't match,
+ * i.e. a record torn by a crash.
+ *
+ * <p>Deleted segments are kept as spare files with their mappings, zero filled and renamed to become the next
+ * segments. A mapping is released only by GC, so unlinking the file of a deleted segment wouldn't free its
+ * disk space in time.
+ *
+ * <p>Not thread-safe except {@link #force()}. {@link MessageOutbox} serializes other operations.
+ */
+@Slf4j
+final class OutboxLog implements Closeable {
+    static final byte TYPE_PUSH = 1;
+    static final byte TYPE_MULTICAST = 2;
+    static final byte TYPE_ACK = 3;
+
+    private static final String SEGMENT_PREFIX = "outbox-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SPARE_SUFFIX = ".spare";
+    private static final byte[] ZEROS = new byte[4096];
+    private static final int HEADER_SIZE = 4 + 1 + 8;
+    private static final int TRAILER_SIZE = 4;
+    private static final byte[] EMPTY = {};
+
+    private final Path directory;
+    private final int segmentSize;
+    // Guarded by itself, as force() is called from the flusher thread.
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+    private final Deque<Segment> spares = new ArrayDeque<>();
+    private Segment active;
+
+    OutboxLog(final Path directory, final int segmentSize) throws IOException {
+        if (segmentSize <= HEADER_SIZE + TRAILER_SIZE) {
+            throw new IllegalArgumentException("segmentSize is too small: " + segmentSize);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                                                                   SEGMENT_PREFIX + '*' + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                final String name = file.getFileName().toString();
+                final long sequence = Long.parseLong(
+                        name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(sequence, Segment.open(sequence, file, Files.size(file)));
+            }
+        }
+        // Spare files left by a crash. They may not be zero filled yet.
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                                                                   SEGMENT_PREFIX + '*' + SPARE_SUFFIX)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Value
+    static class Record {
+        long segment;
+        byte type;
+        long id;
+        byte[] payload;
+    }
+
+    /**
+     * Read all valid records in order, and position the last segment to append after them.
+     * Must be called once before {@link #append(byte, long, byte[])}.
+     */
+    List<Record> readAll() throws IOException {
+        final List<Record> records = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            readSegment(segment, records);
+        }
+        active = segments.isEmpty() ? newSegment(0) : segments.lastEntry().getValue();
+        return records;
+    }
+
+    private static void readSegment(final Segment segment, final List<Record> records) {
+        final MappedByteBuffer buffer = segment.buffer;
+        buffer.position(0);
+        while (buffer.remaining() >= HEADER_SIZE + TRAILER_SIZE) {
+            final int start = buffer.position();
+            final int length = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining() - 8 - TRAILER_SIZE) {
+                buffer.position(start);
+                break;
+            }
+            final byte type = buffer.get();
+            final long id = buffer.getLong();
+            final byte[] payload = new byte[length - 1];
+            buffer.get(payload);
+            final int crc = buffer.getInt();
+            if (crc != checksum(type, id, payload)) {
+                log.warn("Skipped torn record of outbox segment {} at {}", segment.path, start);
+                buffer.position(start);
+                break;
+            }
+            records.add(new Record(segment.sequence, type, id, payload));
+        }
+    }
+
+    /**
+     * Append a record, rolling to a new segment if the active one is full.
+     *
+     * @return sequence of the segment which the record is written to.
+     */
+    long append(final byte type, final long id, final byte[] payload) throws IOException {
+        final int recordSize = HEADER_SIZE + payload.length + TRAILER_SIZE;
+        if (recordSize > segmentSize) {
+            throw new IOException("Too large outbox record: " + recordSize + " bytes");
+        }
+        if (active.buffer.remaining() < recordSize) {
+            active = newSegment(active.sequence + 1);
+        }
+
+        final MappedByteBuffer buffer = active.buffer;
+        final int start = buffer.position();
+        // Write the length last, so a crash in the middle leaves the record invisible.
+        buffer.position(start + 4);
+        buffer.put(type).putLong(id).put(payload).putInt(checksum(type, id, payload));
+        buffer.putInt(start, 1 + payload.length);
+        active.dirty = true;
+        return active.sequence;
+    }
+
+    long ack(final long id) throws IOException {
+        return append(TYPE_ACK, id, EMPTY);
+    }
+
+    long activeSegment() {
+        return active.sequence;
+    }
+
+    /**
+     * Sequences of all segments in order, including the active one.
+     */
+    List<Long> segmentSequences() {
+        synchronized (segments) {
+            return new ArrayList<>(segments.keySet());
+        }
+    }
+
+    /**
+     * Delete a segment, keeping its file as a spare for a following segment. Must not be the active one.
+     */
+    void delete(final long sequence) throws IOException {
+        if (sequence == active.sequence) {
+            throw new IllegalArgumentException("Can't delete the active segment: " + sequence);
+        }
+        final Segment segment;
+        synchronized (segments) {
+            segment = segments.remove(sequence);
+        }
+        if (segment == null) {
+            return;
+        }
+        if (segment.buffer.capacity() != segmentSize) {
+            // Written with another segment size by a previous run.
+            discard(segment);
+            return;
+        }
+        // Renamed first, so a crash doesn't leave its acknowledged records in the log.
+        final Path sparePath = segment.path.resolveSibling(segment.path.getFileName() + SPARE_SUFFIX);
+        try {
+            Files.move(segment.path, sparePath);
+        } catch (IOException e) {
+            discard(segment);
+            throw e;
+        }
+        spares.push(new Segment(-1, sparePath, segment.channel, segment.buffer));
+    }
+
+    /**
+     * Flush modified segments to the storage device.
+     */
+    void force() {
+        final List<Segment> dirtySegments = new ArrayList<>();
+        synchronized (segments) {
+            for (Segment segment : segments.values()) {
+                if (segment.dirty) {
+                    segment.dirty = false;
+                    dirtySegments.add(segment);
+                }
+            }
+        }
+        // Outside of the lock, so appending isn't blocked by slow I/O.
+        dirtySegments.forEach(segment -> segment.buffer.force());
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        synchronized (segments) {
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+            segments.clear();
+        }
+        while (!spares.isEmpty()) {
+            discard(spares.pop());
+        }
+    }
+
+    private Segment newSegment(final long sequence) throws IOException {
+        final Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        final Segment segment = spares.isEmpty() ? Segment.open(sequence, path, segmentSize)
+                                                 : recycle(spares.pop(), sequence, path);
+        synchronized (segments) {
+            segments.put(sequence, segment);
+        }
+        return segment;
+    }
+
+    private static Segment recycle(final Segment spare, final long sequence, final Path path)
+            throws IOException {
+        // Zero filled before renamed, so old records never appear in the new segment.
+        final MappedByteBuffer buffer = spare.buffer;
+        buffer.position(0);
+        while (buffer.hasRemaining()) {
+            buffer.put(ZEROS, 0, Math.min(ZEROS.length, buffer.remaining()));
+        }
+        buffer.position(0);
+        try {
+            Files.move(spare.path, path);
+        } catch (IOException e) {
+            discard(spare);
+            throw e;
+        }
+        final Segment segment = new Segment(sequence, path, spare.channel, buffer);
+        segment.dirty = true;
+        return segment;
+    }
+
+    private static void discard(final Segment segment) throws IOException {
+        segment.channel.close();
+        // The mapping is released by GC, but the file can be unlinked on POSIX file systems right now.
+        Files.deleteIfExists(segment.path);
+    }
+
+    private static int checksum(final byte type, final long id, final byte[] payload) {
+        final CRC32 crc = new CRC32();
+        crc.update(type);
+        for (int i = 56; i >= 0; i -= 8) {
+            crc.update((int) (id >>> i));
+        }
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static final class Segment {
+        private final long sequence;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private volatile boolean dirty;
+
+        private Segment(final long sequence, final Path path, final FileChannel channel,
+                        final MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment open(final long sequence, final Path path, final long size) throws IOException {
+            final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                                                         StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                return new Segment(sequence, path, channel, channel.map(MapMode.READ_WRITE, 0, size));
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import com.linecorp.bot.model.message.Message;
+import com.linecorp.bot.model.objectmapper.ModelObjectMapper;
+
+import lombok.NonNull;
+
+/**
+ * Messages serialized and validated once, to be sent by multiple push, multicast or reply calls.
+ *
+ * <p>Instances are content-addressed. {@link #of(List)} returns the same instance for equal message lists
+ * while it's in the cache of recently prepared messages, so repeated templates aren't serialized again.
+ *
+ * <pre>{@code
+ * PreparedMessages campaign = PreparedMessages.of(singletonList(new TextMessage("Sale!")));
+ * for (String userId : userIds) {
+ *     client.pushMessage(userId, campaign);
+ * }
+ * }</pre>
+ */
+public final class PreparedMessages {
+    /**
+     * Max number of messages sent by a single API call.
+     */
+    static final int MAX_MESSAGES = 5;
+
+    private static final int CACHE_SIZE = 256;
+
+    private static final ObjectWriter MESSAGES_WRITER =
+            ModelObjectMapper.createNewObjectMapper().writerFor(new TypeReference<List<Message>>() {});
+
+    // Guarded by itself.
+    private static final Map<List<Message>, PreparedMessages> CACHE =
+            new LinkedHashMap<List<Message>, PreparedMessages>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<List<Message>, PreparedMessages> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            };
+
+    private final List<Message> messages;
+    private final byte[] json;
+    private final String digest;
+
+    private PreparedMessages(final List<Message> messages, final byte[] json) {
+        this.messages = messages;
+        this.json = json;
+        this.digest = sha256(json);
+    }
+
+    /**
+     * Serialize messages or return the instance prepared for equal messages.
+     *
+     * @throws IllegalArgumentException if the number of messages is not between 1 and 5.
+     * @throws UncheckedIOException if the messages can't be serialized.
+     */
+    public static PreparedMessages of(@NonNull final List<Message> messages) {
+        if (messages.isEmpty() || messages.size() > MAX_MESSAGES) {
+            throw new IllegalArgumentException(
+                    "Number of messages should be between 1 and " + MAX_MESSAGES + ": " + messages.size());
+        }
+
+        // Copy to keep the cache key immutable.
+        final List<Message> key = Collections.unmodifiableList(new ArrayList<>(messages));
+        synchronized (CACHE) {
+            final PreparedMessages cached = CACHE.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        // Serialize outside of the lock. A concurrent call may serialize equal messages twice, which is harmless.
+        final PreparedMessages prepared;
+        try {
+            prepared = new PreparedMessages(key, MESSAGES_WRITER.writeValueAsBytes(key));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (CACHE) {
+            final PreparedMessages existing = CACHE.putIfAbsent(key, prepared);
+            return existing != null ? existing : prepared;
+        }
+    }
+
+    /**
+     * Messages to be sent.
+     */
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    /**
+     * Hex encoded SHA-256 digest of the serialized messages, which identifies the content.
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    /**
+     * Serialized JSON array of messages. Don't modify.
+     */
+    byte[] json() {
+        return json;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return this == o || o instanceof PreparedMessages && digest.equals(((PreparedMessages) o).digest);
+    }
+
+    @Override
+    public int hashCode() {
+        return digest.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "PreparedMessages(digest=" + digest + ", messages=" + messages + ')';
+    }
+
+    private static String sha256(final byte[] content) {
+        final byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+        final StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+               .append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
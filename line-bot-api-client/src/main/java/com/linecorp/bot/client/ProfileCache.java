@@ -0,0 +1,250 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import com.linecorp.bot.client.exception.NotFoundException;
+import com.linecorp.bot.model.profile.UserProfileResponse;
+
+import lombok.NonNull;
+
+/**
+ * Size bounded cache of user profiles, used by {@link LineMessagingClient#getProfile(String)},
+ * {@link LineMessagingClient#getGroupMemberProfile(String, String)} and
+ * {@link LineMessagingClient#getRoomMemberProfile(String, String)}.
+ *
+ * <ul>
+ * <li>Profiles expire after {@link Builder#ttl(long)}.</li>
+ * <li>{@link NotFoundException} is also cached, for {@link Builder#negativeTtl(long)}.
+ * Other failures are not cached.</li>
+ * <li>Concurrent lookups of the same profile share a single API call.</li>
+ * <li>Least recently used entries are evicted when the cache exceeds {@link Builder#maximumSize(int)}.</li>
+ * </ul>
+ *
+ * <pre>{@code
+ * LineMessagingClient client = LineMessagingClient
+ *         .builder(channelToken)
+ *         .profileCache(ProfileCache.builder().ttl(TimeUnit.MINUTES.toMillis(5)).build())
+ *         .build();
+ * }</pre>
+ */
+public final class ProfileCache {
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final LongSupplier ticker;
+    private final Map<String, Entry> entries;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    private ProfileCache(final Builder builder) {
+        this.maximumSize = builder.maximumSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(builder.ttl);
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(builder.negativeTtl);
+        this.ticker = builder.ticker;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Number of lookups served from the cache, including ones joined to an in-flight call.
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Number of lookups which made an API call.
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Number of entries removed because of the size limit or expiration.
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * Number of entries currently cached.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Remove cached profile of the user. Profiles of the user as a group or room member are not affected.
+     */
+    public synchronized void invalidate(@NonNull final String userId) {
+        entries.remove(userKey(userId));
+    }
+
+    /**
+     * Remove all cached profiles.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    static String userKey(final String userId) {
+        return "user:" + userId;
+    }
+
+    static String memberKey(final String orgType, final String orgId, final String userId) {
+        return orgType + ':' + orgId + ':' + userId;
+    }
+
+    /**
+     * Returns cached profile of {@code key}, or load it by {@code loader}.
+     *
+     * <p>Returned future is a copy of the cached one, so callers can't affect others by completing it.
+     */
+    CompletableFuture<UserProfileResponse> get(
+            final String key, final Supplier<CompletableFuture<UserProfileResponse>> loader) {
+        final Entry entry;
+        synchronized (this) {
+            final Entry cached = entries.get(key);
+            if (cached != null && !cached.isExpired(ticker.getAsLong())) {
+                hitCount.increment();
+                return copyOf(cached.future);
+            }
+            if (cached != null) {
+                entries.remove(key);
+                evictionCount.increment();
+            }
+            entry = new Entry();
+            entries.put(key, entry);
+            evictIfNecessary();
+        }
+
+        missCount.increment();
+        CompletableFuture<UserProfileResponse> loaded;
+        try {
+            loaded = loader.get();
+        } catch (RuntimeException e) {
+            loaded = Futures.failedFuture(e);
+        }
+        loaded.whenComplete((profile, t) -> onLoaded(key, entry, Futures.unwrap(t)));
+        Futures.forward(loaded, entry.future);
+        return copyOf(entry.future);
+    }
+
+    private void onLoaded(final String key, final Entry entry, final Throwable t) {
+        synchronized (this) {
+            if (entries.get(key) != entry) {
+                // Invalidated or evicted while loading.
+                return;
+            }
+            if (t == null) {
+                entry.expiresAt = ticker.getAsLong() + ttlNanos;
+            } else if (t instanceof NotFoundException) {
+                entry.expiresAt = ticker.getAsLong() + negativeTtlNanos;
+            } else {
+                entries.remove(key);
+            }
+        }
+    }
+
+    // Must be called with lock held.
+    private void evictIfNecessary() {
+        final Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maximumSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictionCount.increment();
+        }
+    }
+
+    private static CompletableFuture<UserProfileResponse> copyOf(
+            final CompletableFuture<UserProfileResponse> future) {
+        final CompletableFuture<UserProfileResponse> copy = new CompletableFuture<>();
+        Futures.forward(future, copy);
+        return copy;
+    }
+
+    private static final class Entry {
+        final CompletableFuture<UserProfileResponse> future = new CompletableFuture<>();
+
+        // Long.MAX_VALUE while loading. Guarded by the cache.
+        long expiresAt = Long.MAX_VALUE;
+
+        boolean isExpired(final long now) {
+            return expiresAt != Long.MAX_VALUE && now - expiresAt >= 0;
+        }
+    }
+
+    public static final class Builder {
+        private int maximumSize = 10_000;
+        private long ttl = TimeUnit.MINUTES.toMillis(10);
+        private long negativeTtl = TimeUnit.MINUTES.toMillis(1);
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder() {
+        }
+
+        /**
+         * Max number of cached profiles. Default: 10,000.
+         */
+        public Builder maximumSize(final int maximumSize) {
+            if (maximumSize < 1) {
+                throw new IllegalArgumentException("maximumSize should be positive: " + maximumSize);
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Time to live of profiles in milliseconds. Default: 10 minutes.
+         */
+        public Builder ttl(final long ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * Time to live of {@link NotFoundException} in milliseconds. Default: 1 minute.
+         */
+        public Builder negativeTtl(final long negativeTtl) {
+            this.negativeTtl = negativeTtl;
+            return this;
+        }
+
+        Builder ticker(@NonNull final LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public ProfileCache build() {
+            return new ProfileCache(this);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.linecorp.bot.client.exception.BadRequestException;
+import com.linecorp.bot.client.exception.ForbiddenException;
+import com.linecorp.bot.client.exception.NotFoundException;
+import com.linecorp.bot.model.PushMessage;
+import com.linecorp.bot.model.message.Message;
+import com.linecorp.bot.model.response.BotApiResponse;
+
+import lombok.NonNull;
+
+/**
+ * Merges pushes to the same receiver made within a short window into a single push,
+ * used by {@link LineMessagingClient#pushMessage(PushMessage)}.
+ *
+ * <ul>
+ * <li>The first push to a receiver is held for {@link Builder#window(long)}. Pushes to the receiver made
+ * meanwhile are appended to it in order.</li>
+ * <li>A push is sent when it has 5 messages, the max of the API, or when the window ends.
+ * A push which doesn't fit is held for the next one.</li>
+ * <li>Every caller's future is completed with the response of the merged push, or fails with its error.
+ * If a merged push fails by a client error which may be caused by one of the merged pushes, e.g. an invalid
+ * message, the pushes are sent again one by one, so each caller gets the result of its own push.</li>
+ * <li>Cancelling a future, or failing it e.g. by the call timeout of the client, withdraws its push if it's
+ * still held. Once sent alone, the call is cancelled too. Once merged with other pushes, the merged push is
+ * sent anyway, as the other callers wait for it.</li>
+ * </ul>
+ *
+ * <p>Pushes made with a deadline or with {@link PreparedMessages} are sent immediately.
+ * Use one instance per client, as receivers are identified only by their IDs.
+ *
+ * <pre>{@code
+ * LineMessagingClient client = LineMessagingClient
+ *         .builder(channelToken)
+ *         .pushCoalescer(PushCoalescer.builder().window(10).build())
+ *         .build();
+ * }</pre>
+ */
+public final class PushCoalescer {
+    private final long window;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Batch> batches = new HashMap<>();
+
+    private PushCoalescer(final Builder builder) {
+        this.window = builder.window;
+        this.scheduler = builder.scheduler != null ? builder.scheduler : DefaultScheduler.get();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Number of receivers having pushes held.
+     */
+    public synchronized int getPendingCount() {
+        return batches.size();
+    }
+
+    /**
+     * Hold the push to merge it with following pushes to the same receiver.
+     *
+     * @param sender sends a merged push.
+     */
+    CompletableFuture<BotApiResponse> push(
+            final PushMessage pushMessage,
+            final Function<PushMessage, CompletableFuture<BotApiResponse>> sender) {
+        final List<Message> messages = pushMessage.getMessages();
+        if (messages == null || messages.isEmpty() || messages.size() >= PreparedMessages.MAX_MESSAGES) {
+            // Nothing to merge with. Let the server validate it.
+            return sender.apply(pushMessage);
+        }
+
+        final String to = pushMessage.getTo();
+        final CompletableFuture<BotApiResponse> future = new CompletableFuture<>();
+        Batch full = null;
+        Batch ready = null;
+        synchronized (this) {
+            Batch batch = batches.get(to);
+            if (batch != null && batch.messageCount + messages.size() > PreparedMessages.MAX_MESSAGES) {
+                full = detach(batch);
+                batch = null;
+            }
+            if (batch == null) {
+                batch = new Batch(to, sender);
+                batches.put(to, batch);
+            }
+            batch.messageCount += messages.size();
+            batch.pushes.add(pushMessage);
+            batch.futures.add(future);
+            if (batch.messageCount == PreparedMessages.MAX_MESSAGES) {
+                ready = detach(batch);
+            } else if (batch.flushTask == null) {
+                final Batch held = batch;
+                batch.flushTask = scheduler.schedule(() -> flush(held), window, TimeUnit.MILLISECONDS);
+            }
+            final Batch joined = batch;
+            future.whenComplete((response, t) -> {
+                if (t != null) {
+                    withdraw(joined, future);
+                }
+            });
+        }
+
+        // Sent outside of the lock, the older batch first.
+        if (full != null) {
+            full.send();
+        }
+        if (ready != null) {
+            ready.send();
+        }
+        return future;
+    }
+
+    private void flush(final Batch batch) {
+        synchronized (this) {
+            if (batches.get(batch.to) != batch) {
+                // Already sent because it became full.
+                return;
+            }
+            batches.remove(batch.to);
+        }
+        batch.send();
+    }
+
+    /**
+     * Remove a push from its batch if the batch is still held.
+     */
+    private synchronized void withdraw(final Batch batch, final CompletableFuture<BotApiResponse> future) {
+        if (batches.get(batch.to) != batch) {
+            // Already sent.
+            return;
+        }
+        final int index = batch.futures.indexOf(future);
+        if (index < 0) {
+            return;
+        }
+        batch.messageCount -= batch.pushes.remove(index).getMessages().size();
+        batch.futures.remove(index);
+        if (batch.futures.isEmpty()) {
+            detach(batch);
+        }
+    }
+
+    private Batch detach(final Batch batch) {
+        batches.remove(batch.to);
+        if (batch.flushTask != null) {
+            batch.flushTask.cancel(false);
+        }
+        return batch;
+    }
+
+    private static final class Batch {
+        final String to;
+        final Function<PushMessage, CompletableFuture<BotApiResponse>> sender;
+        final List<PushMessage> pushes = new ArrayList<>();
+        final List<CompletableFuture<BotApiResponse>> futures = new ArrayList<>();
+        int messageCount;
+        ScheduledFuture<?> flushTask;
+
+        Batch(final String to, final Function<PushMessage, CompletableFuture<BotApiResponse>> sender) {
+            this.to = to;
+            this.sender = sender;
+        }
+
+        void send() {
+            if (pushes.size() == 1) {
+                sendAlone(pushes.get(0), futures.get(0));
+                return;
+            }
+            final List<Message> messages = new ArrayList<>(messageCount);
+            pushes.forEach(push -> messages.addAll(push.getMessages()));
+            sendSafely(new PushMessage(to, messages)).whenComplete((response, t) -> {
+                if (t != null && isCausedByContent(Futures.unwrap(t))) {
+                    // Don't fail valid pushes together with an invalid one.
+                    for (int i = 0; i < pushes.size(); i++) {
+                        if (!futures.get(i).isDone()) {
+                            sendAlone(pushes.get(i), futures.get(i));
+                        }
+                    }
+                    return;
+                }
+                for (CompletableFuture<BotApiResponse> future : futures) {
+                    if (t != null) {
+                        future.completeExceptionally(Futures.unwrap(t));
+                    } else {
+                        future.complete(response);
+                    }
+                }
+            });
+        }
+
+        private void sendAlone(final PushMessage pushMessage, final CompletableFuture<BotApiResponse> future) {
+            final CompletableFuture<BotApiResponse> call = sendSafely(pushMessage);
+            Futures.forward(call, future);
+            // Failing the future of the client cancels its call.
+            future.whenComplete((response, t) -> {
+                if (t != null) {
+                    call.completeExceptionally(Futures.unwrap(t));
+                }
+            });
+        }
+
+        private CompletableFuture<BotApiResponse> sendSafely(final PushMessage pushMessage) {
+            try {
+                return sender.apply(pushMessage);
+            } catch (RuntimeException e) {
+                return Futures.failedFuture(e);
+            }
+        }
+
+        /**
+         * Client errors which may be caused by one of the merged pushes. Errors shared by them,
+         * like 401 or 429, are not retried one by one.
+         */
+        private static boolean isCausedByContent(final Throwable t) {
+            return t instanceof BadRequestException
+                   || t instanceof ForbiddenException
+                   || t instanceof NotFoundException;
+        }
+    }
+
+    public static final class Builder {
+        private long window = 10;
+        private ScheduledExecutorService scheduler;
+
+        private Builder() {
+        }
+
+        /**
+         * Duration in milliseconds to hold the first push to a receiver. Default: 10 milliseconds.
+         */
+        public Builder window(final long window) {
+            if (window < 0) {
+                throw new IllegalArgumentException("window should not be negative: " + window);
+            }
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * Scheduler to send held pushes. Default: shared daemon thread of this library.
+         */
+        public Builder scheduler(@NonNull final ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        public PushCoalescer build() {
+            return new PushCoalescer(this);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import lombok.AllArgsConstructor;
+import retrofit2.Response;
+
+/**
+ * {@link ApiCallInterceptor} which applies {@link ApiRateLimiter}.
+ */
+@AllArgsConstructor
+class RateLimitingInterceptor implements ApiCallInterceptor {
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final ApiRateLimiter rateLimiter;
+
+    @Override
+    public <T> CompletableFuture<Response<T>> intercept(final Chain<T> chain) {
+        final EndpointFamily family = chain.endpoint().getFamily();
+        final CompletableFuture<Response<T>> future = new CompletableFuture<>();
+
+        rateLimiter.acquire(family, () -> chain.cancellationCause() != null, () -> {
+            if (chain.cancellationCause() != null) {
+                // Gave up while waiting. Mark it cancelled, so RetryInterceptor doesn't retry it.
+                chain.call().cancel();
+                future.completeExceptionally(new IOException("Canceled"));
+                return;
+            }
+            try {
+                chain.proceed(chain.call()).whenComplete((response, t) -> {
+                    if (response != null && response.code() == TOO_MANY_REQUESTS) {
+                        rateLimiter.onTooManyRequests(family);
+                    }
+                    if (t != null) {
+                        future.completeExceptionally(Futures.unwrap(t));
+                    } else {
+                        future.complete(response);
+                    }
+                });
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import lombok.AllArgsConstructor;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+@AllArgsConstructor
+final class RealApiCallChain<T> implements ApiCallInterceptor.Chain<T> {
+    private final List<ApiCallInterceptor> interceptors;
+    // Null to enqueue calls to okhttp.
+    private final ApiTransport transport;
+    private final int index;
+    private final ApiEndpoint endpoint;
+    private final Instant deadline;
+    private final CallCanceller canceller;
+    private final Call<T> call;
+
+    @Override
+    public ApiEndpoint endpoint() {
+        return endpoint;
+    }
+
+    @Override
+    public Instant deadline() {
+        return deadline;
+    }
+
+    @Override
+    public ApiCallInterceptor.Chain<T> withoutCancellation() {
+        return new RealApiCallChain<>(interceptors, transport, index, endpoint, deadline,
+                                      new CallCanceller(), call);
+    }
+
+    @Override
+    public Throwable cancellationCause() {
+        return canceller.cause();
+    }
+
+    @Override
+    public Call<T> call() {
+        return call;
+    }
+
+    @Override
+    public CompletableFuture<Response<T>> proceed(final Call<T> call) {
+        if (index >= interceptors.size()) {
+            if (!canceller.register(call)) {
+                // Don't send retries or hedged attempts of a cancelled call.
+                // Mark it cancelled, so RetryInterceptor doesn't retry it either.
+                call.cancel();
+                return Futures.failedFuture(new IOException("Canceled"));
+            }
+            if (transport != null) {
+                return transport.execute(endpoint, call);
+            }
+            final ResponseFuture<T> future = new ResponseFuture<>();
+            call.enqueue(future);
+            return future;
+        }
+
+        final ApiCallInterceptor interceptor = interceptors.get(index);
+        return interceptor.intercept(
+                new RealApiCallChain<>(interceptors, transport, index + 1, endpoint, deadline, canceller, call));
+    }
+
+    static class ResponseFuture<T> extends CompletableFuture<Response<T>> implements Callback<T> {
+        @Override
+        public void onResponse(final Call<T> call, final Response<T> response) {
+            complete(response);
+        }
+
+        @Override
+        public void onFailure(final Call<T> call, final Throwable t) {
+            completeExceptionally(t);
+        }
+    }
+}
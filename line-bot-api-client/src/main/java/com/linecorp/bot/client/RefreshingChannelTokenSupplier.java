@@ -0,0 +1,320 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link ChannelTokenSupplier} which caches a token loaded by {@link ChannelTokenLoader}
+ * and reloads it in background before it expires.
+ *
+ * <p>The first token is loaded when the supplier is built. Only calls made before it's loaded wait for it,
+ * up to {@link Builder#initialTimeout(long)}. After that, {@link #get()} returns the cached token
+ * without blocking. A new token is loaded when {@link Builder#refreshAheadRatio(double)} of the lifetime
+ * is left, and retried every {@link Builder#retryInterval(long)} on failure while the current token
+ * is kept. Calls don't trigger reloads more often than that. Concurrent reloads are coalesced into one call
+ * of the loader. A token with non-positive {@link IssuedChannelToken#getExpiresIn()} is a failed load,
+ * and a token is not reloaded more often than the retry interval however short its lifetime is.
+ *
+ * <pre>{@code
+ * RefreshingChannelTokenSupplier channelTokenSupplier = RefreshingChannelTokenSupplier
+ *         .builder(() -> issueChannelToken(channelId, channelSecret))
+ *         .build();
+ * LineMessagingClient client = LineMessagingClient.builder(channelTokenSupplier).build();
+ * }</pre>
+ *
+ * <p>Call {@link #close()} to stop reloading when the supplier is no longer used.
+ */
+@Slf4j
+public final class RefreshingChannelTokenSupplier implements ChannelTokenSupplier, Closeable {
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final ChannelTokenLoader loader;
+    private final double refreshAheadRatio;
+    private final long retryIntervalNanos;
+    private final long initialTimeoutMillis;
+    private final ScheduledExecutorService scheduler;
+    private final LongSupplier ticker;
+
+    private final AtomicReference<CompletableFuture<CachedToken>> inFlight = new AtomicReference<>();
+    private volatile CachedToken current;
+    // Reloads triggered by calls are allowed after it. Set on failure.
+    private volatile long nextAttemptNanos;
+    private volatile Throwable lastFailure;
+    private ScheduledFuture<?> scheduledRefresh;
+    private boolean closed;
+
+    private RefreshingChannelTokenSupplier(final Builder builder) {
+        this.loader = builder.loader;
+        this.refreshAheadRatio = builder.refreshAheadRatio;
+        this.retryIntervalNanos = TimeUnit.MILLISECONDS.toNanos(builder.retryInterval);
+        this.initialTimeoutMillis = builder.initialTimeout;
+        this.scheduler = builder.scheduler != null ? builder.scheduler : DefaultScheduler.get();
+        this.ticker = builder.ticker;
+        this.nextAttemptNanos = ticker.getAsLong();
+    }
+
+    public static Builder builder(@NonNull final ChannelTokenLoader loader) {
+        return new Builder(loader);
+    }
+
+    /**
+     * Returns the cached channel token. Waits for the first token if it's not loaded yet.
+     *
+     * @throws UncheckedIOException if the first token couldn't be loaded.
+     */
+    @Override
+    public String get() {
+        try {
+            return cachedToken().accessToken;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the value of {@code Authorization} header for the cached token, formatted when the token
+     * was loaded. Waits for the first token if it's not loaded yet.
+     *
+     * @throws IOException if the first token couldn't be loaded.
+     */
+    @Override
+    public String authorizationHeader() throws IOException {
+        return cachedToken().authorizationHeader;
+    }
+
+    /**
+     * Stop reloading the token. The cached token is still returned.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            if (scheduledRefresh != null) {
+                scheduledRefresh.cancel(false);
+                scheduledRefresh = null;
+            }
+        }
+    }
+
+    private CachedToken cachedToken() throws IOException {
+        final CachedToken cached = current;
+        if (cached != null) {
+            if (ticker.getAsLong() - cached.refreshAtNanos >= 0) {
+                // In case the scheduled reload was delayed or lost.
+                refreshIfDue();
+            }
+            return cached;
+        }
+        return awaitFirstToken();
+    }
+
+    private CachedToken awaitFirstToken() throws IOException {
+        final CompletableFuture<CachedToken> loading = refreshIfDue();
+        if (loading == null) {
+            throw new IOException("Failed to load channel token. Retrying in background.", lastFailure);
+        }
+        try {
+            return loading.get(initialTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading channel token", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to load channel token", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IOException("Timed out loading channel token in " + initialTimeoutMillis + "ms", e);
+        }
+    }
+
+    /**
+     * Load a new token, or join the load in progress, unless the last load failed within the retry interval.
+     *
+     * @return null if it's left to the scheduled retry.
+     */
+    private CompletableFuture<CachedToken> refreshIfDue() {
+        final CompletableFuture<CachedToken> existing = inFlight.get();
+        if (existing != null) {
+            return existing;
+        }
+        if (ticker.getAsLong() - nextAttemptNanos < 0) {
+            return null;
+        }
+        return refresh();
+    }
+
+    /**
+     * Load a new token, or join the load in progress.
+     */
+    private CompletableFuture<CachedToken> refresh() {
+        final CompletableFuture<CachedToken> loaded = new CompletableFuture<>();
+        for (;;) {
+            final CompletableFuture<CachedToken> existing = inFlight.get();
+            if (existing != null) {
+                return existing;
+            }
+            if (inFlight.compareAndSet(null, loaded)) {
+                break;
+            }
+        }
+
+        CompletableFuture<IssuedChannelToken> loading;
+        try {
+            loading = loader.load();
+        } catch (RuntimeException e) {
+            loading = Futures.failedFuture(e);
+        }
+        loading.whenComplete((token, t) -> {
+            final Throwable cause;
+            if (t != null) {
+                cause = Futures.unwrap(t);
+            } else if (token == null) {
+                cause = new IllegalStateException("ChannelTokenLoader returned null");
+            } else if (token.getExpiresIn() <= 0) {
+                // Would reload the token in a tight loop.
+                cause = new IllegalStateException(
+                        "ChannelTokenLoader returned non-positive expiresIn: " + token.getExpiresIn());
+            } else {
+                cause = null;
+            }
+
+            if (cause == null) {
+                final long loadedNanos = ticker.getAsLong();
+                final long lifetimeNanos = TimeUnit.SECONDS.toNanos(token.getExpiresIn());
+                // Short lived tokens are not reloaded more often than failed loads are retried.
+                final long refreshDelayNanos = Math.max((long) (lifetimeNanos * (1 - refreshAheadRatio)),
+                                                        retryIntervalNanos);
+                final CachedToken cached = new CachedToken(token.getAccessToken(),
+                                                           loadedNanos + refreshDelayNanos);
+                current = cached;
+                inFlight.set(null);
+                scheduleRefresh(refreshDelayNanos);
+                loaded.complete(cached);
+            } else {
+                log.warn("Failed to load channel token. Retrying in {}ms.",
+                         TimeUnit.NANOSECONDS.toMillis(retryIntervalNanos), cause);
+                lastFailure = cause;
+                nextAttemptNanos = ticker.getAsLong() + retryIntervalNanos;
+                inFlight.set(null);
+                scheduleRefresh(retryIntervalNanos);
+                loaded.completeExceptionally(cause);
+            }
+        });
+        return loaded;
+    }
+
+    private synchronized void scheduleRefresh(final long delayNanos) {
+        if (closed) {
+            return;
+        }
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+        scheduledRefresh = scheduler.schedule(() -> {
+            refresh();
+        }, Math.max(delayNanos, 0), TimeUnit.NANOSECONDS);
+    }
+
+    private static final class CachedToken {
+        final String accessToken;
+        final String authorizationHeader;
+        final long refreshAtNanos;
+
+        CachedToken(final String accessToken, final long refreshAtNanos) {
+            this.accessToken = accessToken;
+            this.authorizationHeader = BEARER_PREFIX + accessToken;
+            this.refreshAtNanos = refreshAtNanos;
+        }
+    }
+
+    public static final class Builder {
+        private final ChannelTokenLoader loader;
+        private double refreshAheadRatio = 0.2;
+        private long retryInterval = 10_000;
+        private long initialTimeout = 30_000;
+        private ScheduledExecutorService scheduler;
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder(final ChannelTokenLoader loader) {
+            this.loader = loader;
+        }
+
+        /**
+         * Ratio of the token lifetime left when a new token is loaded, between 0 and 1. Default: 0.2.
+         */
+        public Builder refreshAheadRatio(final double refreshAheadRatio) {
+            if (refreshAheadRatio < 0 || refreshAheadRatio > 1) {
+                throw new IllegalArgumentException(
+                        "refreshAheadRatio should be between 0 and 1: " + refreshAheadRatio);
+            }
+            this.refreshAheadRatio = refreshAheadRatio;
+            return this;
+        }
+
+        /**
+         * Interval in milliseconds to retry loading after a failure. Default: 10 seconds.
+         */
+        public Builder retryInterval(final long retryInterval) {
+            this.retryInterval = retryInterval;
+            return this;
+        }
+
+        /**
+         * Max duration in milliseconds to wait for the first token. Default: 30 seconds.
+         */
+        public Builder initialTimeout(final long initialTimeout) {
+            this.initialTimeout = initialTimeout;
+            return this;
+        }
+
+        /**
+         * Scheduler to reload tokens. Default: shared daemon thread of this library.
+         * {@link ChannelTokenLoader#load()} is called on it, so a loader which blocks should come with
+         * its own scheduler.
+         */
+        public Builder scheduler(@NonNull final ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        Builder ticker(final LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        /**
+         * Build the supplier and start loading the first token.
+         */
+        public RefreshingChannelTokenSupplier build() {
+            final RefreshingChannelTokenSupplier supplier = new RefreshingChannelTokenSupplier(this);
+            supplier.refresh();
+            return supplier;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import lombok.AllArgsConstructor;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * {@link ApiCallInterceptor} which applies {@link RetryPolicy} to idempotent endpoints.
+ */
+@AllArgsConstructor
+class RetryInterceptor implements ApiCallInterceptor {
+    private final RetryPolicy retryPolicy;
+
+    @Override
+    public <T> CompletableFuture<Response<T>> intercept(final Chain<T> chain) {
+        if (!chain.endpoint().isIdempotent()) {
+            return chain.proceed(chain.call());
+        }
+
+        final CompletableFuture<Response<T>> future = new CompletableFuture<>();
+        attempt(chain, chain.call(), 1, future);
+        return future;
+    }
+
+    private <T> void attempt(final Chain<T> chain, final Call<T> call, final int attempt,
+                             final CompletableFuture<Response<T>> future) {
+        CompletableFuture<Response<T>> responseFuture;
+        try {
+            responseFuture = chain.proceed(call);
+        } catch (RuntimeException e) {
+            responseFuture = Futures.failedFuture(e);
+        }
+
+        responseFuture.whenComplete((response, t) -> {
+            final Throwable cause = t != null ? Futures.unwrap(t) : null;
+            final long delay = call.isCanceled() ? -1 : retryPolicy.computeDelay(attempt, response, cause);
+            if (delay < 0) {
+                complete(future, response, cause);
+                return;
+            }
+
+            try {
+                retryPolicy.scheduler().schedule(
+                        () -> attempt(chain, call.clone(), attempt + 1, future), delay, MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                complete(future, response, cause);
+                return;
+            }
+            if (response != null) {
+                closeQuietly(response.errorBody());
+            }
+        });
+    }
+
+    private static <T> void complete(final CompletableFuture<Response<T>> future,
+                                     final Response<T> response, final Throwable t) {
+        if (t != null) {
+            future.completeExceptionally(t);
+        } else {
+            future.complete(response);
+        }
+    }
+
+    private static void closeQuietly(final ResponseBody body) {
+        if (body != null) {
+            body.close();
+        }
+    }
+}
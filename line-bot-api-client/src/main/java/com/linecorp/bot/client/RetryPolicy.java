@@ -0,0 +1,265 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+import lombok.NonNull;
+import retrofit2.Response;
+
+/**
+ * Policy to retry failed calls of idempotent endpoints, e.g. {@link LineMessagingClient#getProfile(String)}.
+ * Non idempotent endpoints, like push or reply, are never retried.
+ *
+ * <p>Calls are retried on I/O failure and on retryable status codes (default: 429, 500, 502, 503, 504),
+ * after a jittered exponential backoff. The delay is taken from {@code Retry-After} header if present.
+ * Retries are scheduled on a timer, so no thread sleeps while waiting.
+ *
+ * <p>Retries are also limited by a retry budget shared by all calls of the client. Each failure consumes
+ * a token and each success refills {@link Builder#budgetRefillRatio(double)} of a token. Retry is
+ * suppressed while the budget is less than half of {@link Builder#budget(int)}, so an outage of the
+ * server doesn't multiply the load on it.
+ *
+ * <pre>{@code
+ * LineMessagingClient client = LineMessagingClient
+ *         .builder(channelToken)
+ *         .retryPolicy(RetryPolicy.builder().maxAttempts(4).build())
+ *         .build();
+ * }</pre>
+ */
+public final class RetryPolicy {
+    private static final Set<Integer> DEFAULT_RETRYABLE_STATUS_CODES =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(429, 500, 502, 503, 504)));
+
+    private final int maxAttempts;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final double multiplier;
+    private final Set<Integer> retryableStatusCodes;
+    private final int budget;
+    private final double budgetRefillRatio;
+    private final ScheduledExecutorService scheduler;
+    private final DoubleSupplier random;
+    private final Clock clock;
+
+    // Guarded by this.
+    private double budgetTokens;
+
+    private RetryPolicy(final Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.multiplier = builder.multiplier;
+        this.retryableStatusCodes = builder.retryableStatusCodes;
+        this.budget = builder.budget;
+        this.budgetRefillRatio = builder.budgetRefillRatio;
+        this.scheduler = builder.scheduler != null ? builder.scheduler : DefaultScheduler.get();
+        this.random = builder.random;
+        this.clock = builder.clock;
+        this.budgetTokens = budget;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Remaining tokens of the retry budget.
+     */
+    public synchronized double getBudgetTokens() {
+        return budgetTokens;
+    }
+
+    ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Compute delay in milliseconds before next attempt.
+     *
+     * @param attempt number of attempts already made, starting from 1.
+     * @param response response of the last attempt. {@code null} if failed.
+     * @param t failure of the last attempt. {@code null} if a response is received.
+     *
+     * @return delay in milliseconds, or negative value if the call shouldn't be retried.
+     */
+    long computeDelay(final int attempt, final Response<?> response, final Throwable t) {
+        if (response != null && !retryableStatusCodes.contains(response.code())) {
+            if (response.isSuccessful()) {
+                onSuccess();
+            }
+            return -1;
+        }
+        if (response == null && !(t instanceof IOException)) {
+            return -1;
+        }
+        if (!consumeBudget() || attempt >= maxAttempts) {
+            return -1;
+        }
+
+        final long retryAfter = response != null ? parseRetryAfter(response.headers().get("Retry-After")) : -1;
+        if (retryAfter >= 0) {
+            // The server knows better than us. But don't wait longer than we would do by ourselves.
+            return retryAfter <= maxBackoff ? retryAfter : -1;
+        }
+
+        final double backoff = Math.min(maxBackoff, initialBackoff * Math.pow(multiplier, attempt - 1));
+        return (long) (backoff * random.getAsDouble());
+    }
+
+    private synchronized void onSuccess() {
+        budgetTokens = Math.min(budget, budgetTokens + budgetRefillRatio);
+    }
+
+    private synchronized boolean consumeBudget() {
+        budgetTokens = Math.max(0, budgetTokens - 1);
+        return budgetTokens > budget / 2.0;
+    }
+
+    /**
+     * Parse {@code Retry-After} header, which is either delay seconds or HTTP-date.
+     *
+     * @return delay in milliseconds, or -1 if absent or malformed.
+     */
+    long parseRetryAfter(final String retryAfter) {
+        if (retryAfter == null || retryAfter.isEmpty()) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            // Fall through to HTTP-date.
+        }
+        try {
+            final ZonedDateTime date = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(clock.instant(), date.toInstant()).toMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    public static final class Builder {
+        private int maxAttempts = 3;
+        private long initialBackoff = 200;
+        private long maxBackoff = 10_000;
+        private double multiplier = 2;
+        private Set<Integer> retryableStatusCodes = DEFAULT_RETRYABLE_STATUS_CODES;
+        private int budget = 10;
+        private double budgetRefillRatio = 0.1;
+        private ScheduledExecutorService scheduler;
+        private DoubleSupplier random = () -> ThreadLocalRandom.current().nextDouble();
+        private Clock clock = Clock.systemUTC();
+
+        private Builder() {
+        }
+
+        /**
+         * Max number of attempts including the first one. Default: 3.
+         */
+        public Builder maxAttempts(final int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts should be positive: " + maxAttempts);
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Upper bound of the first backoff in milliseconds. Default: 200 milliseconds.
+         * Actual backoff is randomly chosen between 0 and the bound.
+         */
+        public Builder initialBackoff(final long initialBackoff) {
+            this.initialBackoff = initialBackoff;
+            return this;
+        }
+
+        /**
+         * Max backoff in milliseconds. Default: 10 seconds.
+         * Calls with longer {@code Retry-After} aren't retried.
+         */
+        public Builder maxBackoff(final long maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * Multiplier of the backoff bound for each attempt. Default: 2.
+         */
+        public Builder multiplier(final double multiplier) {
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * HTTP status codes to retry. Default: 429, 500, 502, 503 and 504.
+         */
+        public Builder retryableStatusCodes(@NonNull final Set<Integer> retryableStatusCodes) {
+            this.retryableStatusCodes = Collections.unmodifiableSet(new HashSet<>(retryableStatusCodes));
+            return this;
+        }
+
+        /**
+         * Size of the retry budget. Default: 10.
+         */
+        public Builder budget(final int budget) {
+            this.budget = budget;
+            return this;
+        }
+
+        /**
+         * Tokens refilled to the retry budget by each successful call. Default: 0.1.
+         */
+        public Builder budgetRefillRatio(final double budgetRefillRatio) {
+            this.budgetRefillRatio = budgetRefillRatio;
+            return this;
+        }
+
+        /**
+         * Scheduler to send retries. Default: shared daemon thread of this library.
+         */
+        public Builder scheduler(@NonNull final ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        Builder random(@NonNull final DoubleSupplier random) {
+            this.random = random;
+            return this;
+        }
+
+        Builder clock(@NonNull final Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
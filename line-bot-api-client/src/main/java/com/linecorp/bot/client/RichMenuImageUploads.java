@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+import com.linecorp.bot.model.response.BotApiResponse;
+
+/**
+ * Helpers of rich menu image upload.
+ */
+final class RichMenuImageUploads {
+    static final int DEFAULT_CONCURRENCY = 4;
+
+    private RichMenuImageUploads() {
+    }
+
+    /**
+     * Upload images with bounded concurrency.
+     *
+     * @return future of failures keyed by rich menu ID. Empty if all succeeded.
+     */
+    static CompletableFuture<Map<String, Throwable>> uploadAll(
+            final Iterator<? extends Entry<String, Path>> images,
+            final int concurrency,
+            final BiFunction<String, Path, CompletableFuture<BotApiResponse>> uploader) {
+        final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+        return ConcurrencyWindow
+                .run(images, concurrency,
+                     image -> uploader.apply(image.getKey(), image.getValue()),
+                     (image, t) -> {
+                         if (t != null) {
+                             failures.put(image.getKey(), t);
+                         }
+                     })
+                .thenApply(ignored -> failures);
+    }
+
+    /**
+     * Read a file channel from its current position to the end.
+     */
+    static byte[] readAll(final FileChannel channel) throws IOException {
+        final long length = channel.size() - channel.position();
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Too large content: " + length);
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        long position = channel.position();
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            position += read;
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Read exactly {@code length} bytes of an input stream.
+     */
+    static byte[] readAll(final InputStream stream, final long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Too large content: " + length);
+        }
+        final byte[] content = new byte[(int) length];
+        int offset = 0;
+        while (offset < content.length) {
+            final int read = stream.read(content, offset, content.length - offset);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            offset += read;
+        }
+        return content;
+    }
+}
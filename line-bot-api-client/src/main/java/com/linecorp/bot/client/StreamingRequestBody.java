@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import lombok.AllArgsConstructor;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * {@link RequestBody} which streams content from its source while being written,
+ * instead of holding the whole content in heap.
+ */
+@AllArgsConstructor
+abstract class StreamingRequestBody extends RequestBody {
+    private final MediaType contentType;
+    private final long contentLength;
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    /**
+     * Body streaming a file. Can be written multiple times.
+     */
+    static RequestBody of(final MediaType contentType, final Path path) throws IOException {
+        return new StreamingRequestBody(contentType, Files.size(path)) {
+            @Override
+            public void writeTo(final BufferedSink sink) throws IOException {
+                try (Source source = Okio.source(path)) {
+                    sink.writeAll(source);
+                }
+            }
+        };
+    }
+
+    /**
+     * Body streaming a file channel from its current position to the end.
+     * Read by position, so it can be written multiple times. The channel is not closed.
+     */
+    static RequestBody of(final MediaType contentType, final FileChannel channel) throws IOException {
+        final long start = channel.position();
+        final long length = channel.size() - start;
+        return new StreamingRequestBody(contentType, length) {
+            @Override
+            public void writeTo(final BufferedSink sink) throws IOException {
+                final WritableByteChannel target = Channels.newChannel(sink.outputStream());
+                long transferred = 0;
+                while (transferred < length) {
+                    final long count = channel.transferTo(start + transferred, length - transferred, target);
+                    if (count <= 0) {
+                        throw new IOException("Unexpected end of channel at " + (start + transferred));
+                    }
+                    transferred += count;
+                }
+            }
+        };
+    }
+
+    /**
+     * Body streaming {@code length} bytes of an input stream. Can be written only once.
+     * The stream is not closed.
+     */
+    static RequestBody of(final MediaType contentType, final InputStream stream, final long length) {
+        return new StreamingRequestBody(contentType, length) {
+            @Override
+            public void writeTo(final BufferedSink sink) throws IOException {
+                // Don't close the source, which closes the stream owned by the caller.
+                sink.write(Okio.source(stream), length);
+            }
+        };
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Value;
+
+/**
+ * Ring buffer of the last N HTTP exchanges recorded by wire logging, for debugging.
+ *
+ * <p>Exchanges are recorded even if the wire logger is disabled. Bodies are recorded only when
+ * the wire log level is {@code BODY} and the exchange is sampled.
+ *
+ * @see LineMessagingServiceBuilder#wireLogHistory(WireLogHistory)
+ */
+public final class WireLogHistory {
+    private final Exchange[] exchanges;
+    private int next;
+    private int size;
+
+    /**
+     * Create a history which keeps last {@code capacity} exchanges.
+     */
+    public WireLogHistory(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity should be positive: " + capacity);
+        }
+        exchanges = new Exchange[capacity];
+    }
+
+    /**
+     * Returns recorded exchanges, oldest first.
+     */
+    public synchronized List<Exchange> getExchanges() {
+        final List<Exchange> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(exchanges[(next - size + i + exchanges.length) % exchanges.length]);
+        }
+        return result;
+    }
+
+    public synchronized void clear() {
+        next = 0;
+        size = 0;
+    }
+
+    synchronized void add(final Exchange exchange) {
+        exchanges[next] = exchange;
+        next = (next + 1) % exchanges.length;
+        size = Math.min(size + 1, exchanges.length);
+    }
+
+    @Value
+    public static class Exchange {
+        Instant timestamp;
+        String method;
+        String url;
+
+        /**
+         * HTTP status code. -1 if no response is received.
+         */
+        int code;
+
+        long tookMillis;
+
+        /**
+         * Request body. {@code null} if not recorded.
+         */
+        String requestBody;
+
+        /**
+         * Response body. {@code null} if not recorded.
+         */
+        String responseBody;
+
+        /**
+         * Cause of failure. {@code null} if a response is received.
+         */
+        String failure;
+    }
+}
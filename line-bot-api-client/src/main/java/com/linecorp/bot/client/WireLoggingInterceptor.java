@@ -0,0 +1,257 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.NonNull;
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.logging.HttpLoggingInterceptor.Level;
+import okio.Buffer;
+
+/**
+ * Interceptor to log HTTP exchanges into {@code com.linecorp.bot.client.wire} logger.
+ *
+ * <p>Unlike {@link okhttp3.logging.HttpLoggingInterceptor}, this costs nothing when the logger is disabled
+ * and no {@link WireLogHistory} is set. Bodies are logged only for a sampled fraction of exchanges,
+ * and truncated to {@code maxBodySize} bytes. Only textual bodies, e.g. JSON, are logged.
+ * Binary content, like message content downloads, is never buffered.
+ *
+ * <p>{@code Authorization} header is never logged.
+ */
+public class WireLoggingInterceptor implements Interceptor {
+    public static final long DEFAULT_MAX_BODY_SIZE = 4096;
+
+    private static final Logger WIRE_LOGGER = LoggerFactory.getLogger("com.linecorp.bot.client.wire");
+
+    private final Logger logger;
+
+    private volatile Level level = Level.BODY;
+    private volatile double sampleRate = 1.0;
+    private volatile long maxBodySize = DEFAULT_MAX_BODY_SIZE;
+    private volatile WireLogHistory history;
+
+    public WireLoggingInterceptor() {
+        this(WIRE_LOGGER);
+    }
+
+    WireLoggingInterceptor(final Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Set log level. Default: {@link Level#BODY}.
+     */
+    public WireLoggingInterceptor setLevel(@NonNull final Level level) {
+        this.level = level;
+        return this;
+    }
+
+    /**
+     * Set ratio of exchanges whose bodies are logged, between 0 and 1. Default: 1.
+     * Exchanges not sampled are logged as {@link Level#HEADERS}.
+     */
+    public WireLoggingInterceptor setSampleRate(final double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sampleRate should be between 0 and 1: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+        return this;
+    }
+
+    /**
+     * Set max bytes of each body to be logged. Default: {@value #DEFAULT_MAX_BODY_SIZE}.
+     */
+    public WireLoggingInterceptor setMaxBodySize(final long maxBodySize) {
+        this.maxBodySize = maxBodySize;
+        return this;
+    }
+
+    /**
+     * Record exchanges into given history. {@code null} to disable.
+     */
+    public WireLoggingInterceptor setHistory(final WireLogHistory history) {
+        this.history = history;
+        return this;
+    }
+
+    @Override
+    public Response intercept(final Chain chain) throws IOException {
+        final Request request = chain.request();
+        final Level level = this.level;
+        final WireLogHistory history = this.history;
+        final boolean logEnabled = level != Level.NONE && logger.isInfoEnabled();
+        if (!logEnabled && history == null) {
+            return chain.proceed(request);
+        }
+
+        final boolean logBody = level == Level.BODY && isSampled();
+        final long maxBodySize = this.maxBodySize;
+        final String requestBody = logBody ? requestBodyString(request.body(), maxBodySize) : null;
+        if (logEnabled) {
+            logRequest(level, request, requestBody);
+        }
+
+        final long startNanos = System.nanoTime();
+        final Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            if (logEnabled) {
+                logger.info("<-- HTTP FAILED: {} {}", request.url(), e.toString());
+            }
+            if (history != null) {
+                history.add(new WireLogHistory.Exchange(
+                        Instant.now(), request.method(), request.url().toString(), -1,
+                        elapsedMillis(startNanos), requestBody, null, e.toString()));
+            }
+            throw e;
+        }
+
+        final long tookMillis = elapsedMillis(startNanos);
+        final String responseBody = logBody ? responseBodyString(response, maxBodySize) : null;
+        if (logEnabled) {
+            logResponse(level, response, tookMillis, responseBody);
+        }
+        if (history != null) {
+            history.add(new WireLogHistory.Exchange(
+                    Instant.now(), request.method(), request.url().toString(), response.code(),
+                    tookMillis, requestBody, responseBody, null));
+        }
+        return response;
+    }
+
+    private boolean isSampled() {
+        final double sampleRate = this.sampleRate;
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private void logRequest(final Level level, final Request request, final String body) {
+        if (level == Level.BASIC) {
+            logger.info("--> {} {}", request.method(), request.url());
+            return;
+        }
+
+        final StringBuilder message = new StringBuilder()
+                .append("--> ").append(request.method()).append(' ').append(request.url());
+        appendHeaders(message, request.headers());
+        if (body != null) {
+            message.append('\n').append(body);
+        }
+        logger.info("{}", message);
+    }
+
+    private void logResponse(final Level level, final Response response, final long tookMillis,
+                             final String body) {
+        if (level == Level.BASIC) {
+            logger.info("<-- {} {} ({}ms)", response.code(), response.request().url(), tookMillis);
+            return;
+        }
+
+        final StringBuilder message = new StringBuilder()
+                .append("<-- ").append(response.code()).append(' ').append(response.request().url())
+                .append(" (").append(tookMillis).append("ms)");
+        appendHeaders(message, response.headers());
+        if (body != null) {
+            message.append('\n').append(body);
+        }
+        logger.info("{}", message);
+    }
+
+    private static void appendHeaders(final StringBuilder message, final Headers headers) {
+        for (int i = 0; i < headers.size(); i++) {
+            final String name = headers.name(i);
+            message.append('\n').append(name).append(": ")
+                   .append("Authorization".equalsIgnoreCase(name) ? "<redacted>" : headers.value(i));
+        }
+    }
+
+    private static String requestBodyString(final RequestBody body, final long maxBodySize) {
+        if (body == null) {
+            return null;
+        }
+        if (!isText(body.contentType())) {
+            return "(binary body omitted)";
+        }
+        try {
+            final Buffer buffer = new Buffer();
+            body.writeTo(buffer);
+            return truncatedString(buffer, maxBodySize, charsetOf(body.contentType()));
+        } catch (IOException e) {
+            return "(failed to read body: " + e + ')';
+        }
+    }
+
+    private static String responseBodyString(final Response response, final long maxBodySize) {
+        final ResponseBody body = response.body();
+        if (body == null) {
+            return null;
+        }
+        if (!isText(body.contentType())) {
+            return "(binary body omitted)";
+        }
+        try {
+            // Buffers at most maxBodySize + 1 bytes, and leaves the body readable.
+            final Buffer buffer = new Buffer();
+            buffer.writeAll(response.peekBody(maxBodySize + 1).source());
+            return truncatedString(buffer, maxBodySize, charsetOf(body.contentType()));
+        } catch (IOException e) {
+            return "(failed to read body: " + e + ')';
+        }
+    }
+
+    private static String truncatedString(final Buffer buffer, final long maxBodySize, final Charset charset)
+            throws IOException {
+        if (buffer.size() <= maxBodySize) {
+            return buffer.readString(charset);
+        }
+        return buffer.readString(maxBodySize, charset) + "...(truncated)";
+    }
+
+    private static boolean isText(final MediaType mediaType) {
+        if (mediaType == null) {
+            return false;
+        }
+        final String subtype = mediaType.subtype();
+        return "text".equals(mediaType.type())
+               || subtype.contains("json")
+               || subtype.contains("xml")
+               || "x-www-form-urlencoded".equals(subtype);
+    }
+
+    private static Charset charsetOf(final MediaType mediaType) {
+        return mediaType.charset(StandardCharsets.UTF_8);
+    }
+
+    private static long elapsedMillis(final long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
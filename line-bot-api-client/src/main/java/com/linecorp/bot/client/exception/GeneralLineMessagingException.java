@@ -16,6 +16,8 @@
 
 package com.linecorp.bot.client.exception;
 
+import java.util.function.Supplier;
+
 import com.linecorp.bot.model.error.ErrorResponse;
 
 /**
@@ -28,4 +30,14 @@ public class GeneralLineMessagingException extends LineMessagingException {
             final String message, final ErrorResponse errorResponse, final Throwable cause) {
         super(message, errorResponse, cause);
     }
+
+    /**
+     * Create an exception whose {@link ErrorResponse} is parsed on first access.
+     */
+    public GeneralLineMessagingException(
+            final String requestId,
+            final Supplier<ErrorResponse> errorResponseLoader,
+            final boolean writableStackTrace) {
+        super(requestId, errorResponseLoader, writableStackTrace);
+    }
 }
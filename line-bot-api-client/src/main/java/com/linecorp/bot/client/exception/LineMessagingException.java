@@ -16,11 +16,12 @@
 
 package com.linecorp.bot.client.exception;
 
-import com.linecorp.bot.model.error.ErrorResponse;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.function.Supplier;
 
-import lombok.Getter;
+import com.linecorp.bot.model.error.ErrorResponse;
 
-@Getter
 public abstract class LineMessagingException extends Exception {
     static final long SERIAL_VERSION_UID = 0x001_003; // 1.3.x
     private static final long serialVersionUID = SERIAL_VERSION_UID;
@@ -30,16 +31,87 @@ public abstract class LineMessagingException extends Exception {
      *
      * Null when error response is not exist.
      */
-    private final ErrorResponse errorResponse;
+    private ErrorResponse errorResponse;
+
+    /**
+     * Parses {@link #errorResponse} on first access. Null when it's already parsed or given.
+     */
+    private transient volatile Supplier<ErrorResponse> errorResponseLoader;
+
+    /**
+     * Value of {@code x-line-request-id} header. Nullable.
+     */
+    private final String requestId;
+
+    /**
+     * True if the message is the one of {@link #errorResponse}, which may not be parsed yet.
+     */
+    private final boolean messageOfErrorResponse;
 
     LineMessagingException(final String message, final ErrorResponse errorResponse,
                            final Throwable cause) {
         super(message, cause);
         this.errorResponse = errorResponse;
+        this.requestId = errorResponse != null ? errorResponse.getRequestId() : null;
+        this.messageOfErrorResponse = false;
+    }
+
+    /**
+     * Create an exception whose {@link ErrorResponse} and message are parsed on first access.
+     *
+     * @param writableStackTrace false to skip filling in the stack trace, which only shows
+     * threads of okhttp when the exception is created on response.
+     */
+    LineMessagingException(final String requestId, final Supplier<ErrorResponse> errorResponseLoader,
+                           final boolean writableStackTrace) {
+        super(null, null, false, writableStackTrace);
+        this.errorResponseLoader = errorResponseLoader;
+        this.requestId = requestId;
+        this.messageOfErrorResponse = true;
+    }
+
+    /**
+     * Original error response from server, parsed on first call if the exception is created lazily.
+     *
+     * <p>Null when error response is not exist.
+     */
+    public ErrorResponse getErrorResponse() {
+        if (errorResponseLoader != null) {
+            synchronized (this) {
+                final Supplier<ErrorResponse> loader = errorResponseLoader;
+                if (loader != null) {
+                    errorResponse = loader.get();
+                    errorResponseLoader = null;
+                }
+            }
+        }
+        return errorResponse;
+    }
+
+    /**
+     * Request ID of the failed call, available without parsing the error response. Nullable.
+     */
+    public String getRequestId() {
+        return requestId;
+    }
+
+    @Override
+    public String getMessage() {
+        if (messageOfErrorResponse) {
+            final ErrorResponse errorResponse = getErrorResponse();
+            return errorResponse != null ? errorResponse.getMessage() : null;
+        }
+        return super.getMessage();
     }
 
     @Override
     public String toString() {
-        return super.toString() + ", " + errorResponse;
+        return super.toString() + ", " + getErrorResponse();
+    }
+
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        // The loader is not serializable.
+        getErrorResponse();
+        out.defaultWriteObject();
     }
 }
@@ -16,6 +16,8 @@
 
 package com.linecorp.bot.client.exception;
 
+import java.util.function.Supplier;
+
 import com.linecorp.bot.model.error.ErrorResponse;
 
 public class LineServerException extends LineMessagingException {
@@ -26,4 +28,14 @@ public class LineServerException extends LineMessagingException {
             final ErrorResponse errorResponse) {
         super(message, errorResponse, null);
     }
+
+    /**
+     * Create an exception whose {@link ErrorResponse} is parsed on first access.
+     */
+    public LineServerException(
+            final String requestId,
+            final Supplier<ErrorResponse> errorResponseLoader,
+            final boolean writableStackTrace) {
+        super(requestId, errorResponseLoader, writableStackTrace);
+    }
 }
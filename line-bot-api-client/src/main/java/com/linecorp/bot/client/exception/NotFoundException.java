@@ -1,5 +1,7 @@
 package com.linecorp.bot.client.exception;
 
+import java.util.function.Supplier;
+
 import com.linecorp.bot.model.error.ErrorResponse;
 
 public class NotFoundException extends LineMessagingException {
@@ -10,4 +12,14 @@ public class NotFoundException extends LineMessagingException {
             final ErrorResponse errorResponse) {
         super(message, errorResponse, null);
     }
+
+    /**
+     * Create an exception whose {@link ErrorResponse} is parsed on first access.
+     */
+    public NotFoundException(
+            final String requestId,
+            final Supplier<ErrorResponse> errorResponseLoader,
+            final boolean writableStackTrace) {
+        super(requestId, errorResponseLoader, writableStackTrace);
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.linecorp.bot.client.ApiMetrics.EndpointSnapshot;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+public class ApiMetricsTest {
+    private final ApiMetrics target = new ApiMetrics(10, 100);
+
+    @Test
+    public void histogramTest() {
+        // Do
+        target.onCallStarted(ApiEndpoint.PUSH_MESSAGE);
+        target.onCallStarted(ApiEndpoint.PUSH_MESSAGE);
+        target.onCallStarted(ApiEndpoint.PUSH_MESSAGE);
+        target.onCallCompleted(ApiEndpoint.PUSH_MESSAGE, TimeUnit.MILLISECONDS.toNanos(5), 200, null);
+        target.onCallCompleted(ApiEndpoint.PUSH_MESSAGE, TimeUnit.MILLISECONDS.toNanos(500), 200, null);
+
+        // Verify
+        final EndpointSnapshot snapshot = target.getSnapshot(ApiEndpoint.PUSH_MESSAGE);
+        assertThat(snapshot.getCount()).isEqualTo(2);
+        assertThat(snapshot.getInFlight()).isEqualTo(1);
+        assertThat(snapshot.getTotalLatencyMillis()).isEqualTo(505);
+        assertThat(snapshot.getBucketBounds()).containsExactly(10L, 100L);
+        assertThat(snapshot.getBucketCounts()).containsExactly(1L, 0L, 1L);
+        assertThat(snapshot.getStatusCounts()).containsOnly(entry(200, 2L));
+        assertThat(target.getSnapshot(ApiEndpoint.REPLY_MESSAGE).getCount()).isZero();
+    }
+
+    @Test
+    public void interceptorTest() {
+        final List<String> notified = new ArrayList<>();
+        target.addListener(new ApiMetricsListener() {
+            @Override
+            public void onCallCompleted(final ApiEndpoint endpoint, final long latencyNanos,
+                                        final int statusCode, final Class<? extends Throwable> exceptionType) {
+                notified.add(endpoint + ":" + statusCode);
+            }
+        });
+        final MetricsInterceptor interceptor = new MetricsInterceptor(target);
+
+        // Do
+        interceptor.intercept(chain(Response.error(
+                404, ResponseBody.create(MediaType.parse("application/json"), "{}"))));
+        interceptor.intercept(chain(Response.success("OK")));
+        interceptor.intercept(failedChain(new SocketTimeoutException()));
+
+        // Verify
+        final EndpointSnapshot snapshot = target.getSnapshot(ApiEndpoint.GET_PROFILE);
+        assertThat(snapshot.getCount()).isEqualTo(3);
+        assertThat(snapshot.getInFlight()).isZero();
+        assertThat(snapshot.getStatusCounts()).containsOnly(entry(404, 1L), entry(200, 1L));
+        assertThat(snapshot.getExceptionCounts()).containsOnly(entry("NotFoundException", 1L),
+                                                               entry("SocketTimeoutException", 1L));
+        assertThat(notified).containsExactly("GET_PROFILE:404", "GET_PROFILE:200", "GET_PROFILE:-1");
+    }
+
+    private static ApiCallInterceptor.Chain<String> chain(final Response<String> response) {
+        return chain(CompletableFuture.completedFuture(response));
+    }
+
+    private static ApiCallInterceptor.Chain<String> failedChain(final IOException e) {
+        final CompletableFuture<Response<String>> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return chain(future);
+    }
+
+    private static ApiCallInterceptor.Chain<String> chain(final CompletableFuture<Response<String>> result) {
+        return new ApiCallInterceptor.Chain<String>() {
+            @Override
+            public ApiEndpoint endpoint() {
+                return ApiEndpoint.GET_PROFILE;
+            }
+
+            @Override
+            public Call<String> call() {
+                return null;
+            }
+
+            @Override
+            public CompletableFuture<Response<String>> proceed(final Call<String> call) {
+                return result;
+            }
+        };
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class ApiRateLimiterTest {
+    @Rule
+    public final MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private ApiRateLimiter target;
+
+    @Before
+    public void setUp() {
+        target = ApiRateLimiter.builder()
+                               .permitsPerSecond(EndpointFamily.PUSH, 2)
+                               .recoveryPeriod(10_000)
+                               .scheduler(scheduler)
+                               .ticker(nanoTime::get)
+                               .build();
+    }
+
+    @Test
+    public void queueExceedingCallsTest() throws Exception {
+        final List<String> executed = new CopyOnWriteArrayList<>();
+
+        // Do
+        target.acquire(EndpointFamily.PUSH, () -> false, () -> executed.add("A"));
+        target.acquire(EndpointFamily.PUSH, () -> false, () -> executed.add("B"));
+        target.acquire(EndpointFamily.PUSH, () -> false, () -> executed.add("C"));
+
+        // Verify: burst of 1 second is sent immediately.
+        assertThat(executed).containsExactly("A", "B");
+        assertThat(target.getQueueSize(EndpointFamily.PUSH)).isEqualTo(1);
+
+        final ArgumentCaptor<Runnable> drain = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(drain.capture(), eq(TimeUnit.MILLISECONDS.toNanos(500)),
+                                   eq(TimeUnit.NANOSECONDS));
+
+        // Do
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        drain.getValue().run();
+
+        // Verify
+        assertThat(executed).containsExactly("A", "B", "C");
+        assertThat(target.getQueueSize(EndpointFamily.PUSH)).isZero();
+    }
+
+    @Test
+    public void skipCancelledCallsTest() throws Exception {
+        final List<String> executed = new CopyOnWriteArrayList<>();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        target.acquire(EndpointFamily.PUSH, () -> false, () -> executed.add("A"));
+        target.acquire(EndpointFamily.PUSH, () -> false, () -> executed.add("B"));
+        target.acquire(EndpointFamily.PUSH, cancelled::get, () -> executed.add("cancelled"));
+        target.acquire(EndpointFamily.PUSH, () -> false, () -> executed.add("C"));
+        final ArgumentCaptor<Runnable> drain = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(drain.capture(), anyLong(), eq(TimeUnit.NANOSECONDS));
+
+        // Do
+        cancelled.set(true);
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        drain.getValue().run();
+
+        // Verify: the cancelled call is run to give up, without consuming the permit for the next one.
+        assertThat(executed).containsExactly("A", "B", "cancelled", "C");
+        assertThat(target.getQueueSize(EndpointFamily.PUSH)).isZero();
+    }
+
+    @Test
+    public void notLimitedFamilyTest() throws Exception {
+        final List<String> executed = new CopyOnWriteArrayList<>();
+
+        // Do
+        for (int i = 0; i < 10; i++) {
+            target.acquire(EndpointFamily.REPLY, () -> false, () -> executed.add("A"));
+        }
+
+        // Verify
+        assertThat(executed).hasSize(10);
+        assertThat(target.getCurrentRate(EndpointFamily.REPLY)).isInfinite();
+    }
+
+    @Test
+    public void adaptiveRateTest() throws Exception {
+        // Do
+        target.onTooManyRequests(EndpointFamily.PUSH);
+        target.onTooManyRequests(EndpointFamily.PUSH);
+
+        // Verify: responses within cooldown decrease the rate only once.
+        assertThat(target.getCurrentRate(EndpointFamily.PUSH)).isEqualTo(1.0);
+
+        // Do
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        // Verify: recovered to the configured rate.
+        assertThat(target.getCurrentRate(EndpointFamily.PUSH)).isEqualTo(2.0);
+    }
+
+    @Test
+    public void tooManyRequestsDelaysNextCallTest() throws Exception {
+        final List<String> executed = new CopyOnWriteArrayList<>();
+
+        // Do
+        target.onTooManyRequests(EndpointFamily.PUSH);
+        target.acquire(EndpointFamily.PUSH, () -> false, () -> executed.add("A"));
+
+        // Verify
+        assertThat(executed).isEmpty();
+        verify(scheduler).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.NANOSECONDS));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linecorp.bot.client.exception.NotFoundException;
+import com.linecorp.bot.model.error.ErrorResponse;
+import com.linecorp.bot.model.message.TextMessage;
+import com.linecorp.bot.model.profile.UserProfileResponse;
+import com.linecorp.bot.model.response.BotApiResponse;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class BlockingLineMessagingClientImplWiremockTest extends AbstractWiremockTest {
+    private BlockingLineMessagingClient target;
+
+    @Before
+    public void setUp() {
+        target = LineMessagingClient.builder("TOKEN")
+                                    .apiEndPoint("http://localhost:" + mockWebServer.getPort())
+                                    .buildBlockingClient();
+    }
+
+    @Test(timeout = ASYNC_TEST_TIMEOUT)
+    public void getProfileTest() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody(
+                "{\"displayName\":\"NAME\",\"userId\":\"USER_ID\",\"pictureUrl\":null,\"statusMessage\":null}"));
+
+        // Do
+        final UserProfileResponse response = target.getProfile("USER_ID");
+
+        // Verify
+        final RecordedRequest request = mockWebServer.takeRequest();
+        assertThat(request.getPath()).isEqualTo("/v2/bot/profile/USER_ID");
+        assertThat(request.getHeader("Authorization")).isEqualTo("Bearer TOKEN");
+        assertThat(response.getDisplayName()).isEqualTo("NAME");
+    }
+
+    @Test(timeout = ASYNC_TEST_TIMEOUT)
+    public void voidResponseTest() throws Exception {
+        mockWebServer.enqueue(new MockResponse());
+
+        // Do
+        final BotApiResponse response = target.deleteRichMenu("RICH_MENU_ID");
+
+        // Verify
+        assertThat(mockWebServer.takeRequest().getMethod()).isEqualTo("DELETE");
+        assertThat(response.getMessage()).isEmpty();
+    }
+
+    @Test(timeout = ASYNC_TEST_TIMEOUT)
+    public void getGroupMembersIdsStreamTest() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody("{\"memberIds\":[\"U1\",\"U2\"],\"next\":\"NEXT\"}"));
+        mockWebServer.enqueue(new MockResponse().setBody("{\"memberIds\":[\"U3\"]}"));
+
+        // Do
+        final List<String> memberIds;
+        try (Stream<String> stream = target.getGroupMembersIdsStream("GROUP_ID")) {
+            memberIds = stream.collect(Collectors.toList());
+        }
+
+        // Verify
+        assertThat(memberIds).containsExactly("U1", "U2", "U3");
+        assertThat(mockWebServer.takeRequest().getPath()).isEqualTo("/v2/bot/group/GROUP_ID/members/ids");
+        assertThat(mockWebServer.takeRequest().getPath())
+                .isEqualTo("/v2/bot/group/GROUP_ID/members/ids?start=NEXT");
+    }
+
+    @Test(timeout = ASYNC_TEST_TIMEOUT)
+    public void multicastInChunksTest() throws Exception {
+        final List<String> to = IntStream.range(0, 200).mapToObj(i -> "U" + i).collect(Collectors.toList());
+        mockWebServer.enqueue(new MockResponse().setBody("{}"));
+        mocking(500, new ErrorResponse(null, "Error", null));
+
+        // Do
+        final MulticastResult result = target.multicast(to, singletonList(new TextMessage("text")));
+
+        // Verify
+        assertThat(result.getChunkCount()).isEqualTo(2);
+        assertThat(result.getFailedChunks()).hasSize(1);
+        assertThat(result.getFailedChunks().get(0).getTo()).hasSize(50);
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test(timeout = ASYNC_TEST_TIMEOUT)
+    public void errorResponseTest() throws Exception {
+        final ErrorResponse errorResponse = new ErrorResponse(null, "Not found", null);
+        mocking(404, errorResponse);
+
+        // Do
+        final Throwable thrown = catchThrowable(() -> target.getProfile("USER_ID"));
+
+        // Verify
+        assertThat(thrown).isInstanceOf(NotFoundException.class)
+                          .hasMessage("Not found");
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class BlockingLineMessagingClientTest {
+    // Overloads taking the number of calls in flight, which mean nothing for blocking calls.
+    private static final Set<String> ASYNC_ONLY = new HashSet<>(Arrays.asList(
+            "multicast(Iterator, List, int)",
+            "multicast(Iterator, PreparedMessages, int)",
+            "getGroupMembersIdsStream(String, int)",
+            "getRoomMembersIdsStream(String, int)",
+            "setRichMenuImages(Map, String, int)"));
+
+    @Test
+    public void parityTest() throws Exception {
+        final List<String> missing = new ArrayList<>();
+
+        // Do
+        for (Method method : LineMessagingClient.class.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) || ASYNC_ONLY.contains(signature(method))) {
+                continue;
+            }
+            try {
+                BlockingLineMessagingClient.class.getMethod(method.getName(), method.getParameterTypes());
+            } catch (NoSuchMethodException e) {
+                missing.add(signature(method));
+            }
+        }
+
+        // Verify
+        assertThat(missing).isEmpty();
+    }
+
+    @Test
+    public void asyncOnlyMethodsExistTest() throws Exception {
+        // Verify: exemptions don't outlive the methods.
+        LineMessagingClient.class.getMethod("multicast", Iterator.class, List.class, int.class);
+        LineMessagingClient.class.getMethod("multicast", Iterator.class, PreparedMessages.class, int.class);
+        LineMessagingClient.class.getMethod("getGroupMembersIdsStream", String.class, int.class);
+        LineMessagingClient.class.getMethod("getRoomMembersIdsStream", String.class, int.class);
+        LineMessagingClient.class.getMethod("setRichMenuImages", Map.class, String.class, int.class);
+    }
+
+    private static String signature(final Method method) {
+        final StringBuilder sb = new StringBuilder(method.getName()).append('(');
+        final Class<?>[] types = method.getParameterTypes();
+        for (int i = 0; i < types.length; i++) {
+            sb.append(i == 0 ? "" : ", ").append(types[i].getSimpleName());
+        }
+        return sb.append(')').toString();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.linecorp.bot.client.BulkResult.FailedItem;
+
+public class BulkExecutorTest {
+    @Rule
+    public final Timeout timeoutRule = Timeout.seconds(1);
+
+    @Test
+    public void executeTest() throws Exception {
+        final List<String> progress = new CopyOnWriteArrayList<>();
+        final BulkExecutor target = BulkExecutor.builder()
+                                                .concurrency(2)
+                                                .progressInterval(2)
+                                                .progressListener((completed, failed) -> progress
+                                                        .add(completed + "/" + failed))
+                                                .build();
+        final List<String> ids = IntStream.range(0, 5).mapToObj(i -> "U" + i).collect(Collectors.toList());
+
+        // Do
+        final BulkResult result = target.execute(ids.iterator(), id -> id.equals("U3")
+                                                                      ? Futures.failedFuture(new RuntimeException())
+                                                                      : CompletableFuture.completedFuture(null))
+                                        .get();
+
+        // Verify
+        assertThat(result.getCompletedCount()).isEqualTo(5);
+        assertThat(result.getFailedCount()).isEqualTo(1);
+        assertThat(result.isSucceeded()).isFalse();
+        assertThat(result.isFailuresTruncated()).isFalse();
+        assertThat(result.getFailures())
+                .extracting(FailedItem::getId)
+                .containsExactly("U3");
+        assertThat(progress).containsExactly("2/0", "4/1", "5/1");
+    }
+
+    @Test
+    public void backpressureTest() throws Exception {
+        final List<CompletableFuture<Void>> inFlight = new CopyOnWriteArrayList<>();
+        final BulkExecutor target = BulkExecutor.builder().concurrency(3).build();
+
+        // Do
+        final CompletableFuture<BulkResult> future =
+                target.execute(IntStream.range(0, 100).mapToObj(String::valueOf).iterator(), id -> {
+                    final CompletableFuture<Void> call = new CompletableFuture<>();
+                    inFlight.add(call);
+                    return call;
+                });
+
+        // Verify: only calls in the window are made.
+        assertThat(inFlight).hasSize(3);
+
+        // Do
+        inFlight.get(0).complete(null);
+
+        // Verify
+        assertThat(inFlight).hasSize(4);
+        assertThat(future).isNotDone();
+    }
+
+    @Test
+    public void maxReportedFailuresTest() throws Exception {
+        final BulkExecutor target = BulkExecutor.builder().maxReportedFailures(2).build();
+
+        // Do
+        final BulkResult result =
+                target.execute(Stream.of("A", "B", "C"), id -> Futures.failedFuture(new RuntimeException()))
+                      .get();
+
+        // Verify
+        assertThat(result.getFailedCount()).isEqualTo(3);
+        assertThat(result.getFailures()).hasSize(2);
+        assertThat(result.isFailuresTruncated()).isTrue();
+    }
+
+    @Test
+    public void streamClosedTest() throws Exception {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final BulkExecutor target = BulkExecutor.builder().build();
+
+        // Do
+        target.execute(Stream.of("A").onClose(() -> closed.set(true)),
+                       id -> CompletableFuture.completedFuture(null))
+              .get();
+
+        // Verify
+        assertThat(closed).isTrue();
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linecorp.bot.client.CircuitBreaker.State;
+import com.linecorp.bot.client.exception.CircuitBreakerOpenException;
+
+public class CircuitBreakerTest {
+    private static final EndpointFamily FAMILY = EndpointFamily.PUSH;
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private CircuitBreaker target;
+
+    @Before
+    public void setUp() {
+        target = CircuitBreaker.builder()
+                               .windowSize(10)
+                               .minimumCalls(4)
+                               .failureRateThreshold(0.5)
+                               .slowCallRateThreshold(0.5)
+                               .slowCallDuration(1_000)
+                               .openDuration(10_000)
+                               .halfOpenCalls(2)
+                               .ticker(nanoTime::get)
+                               .build();
+    }
+
+    @Test
+    public void openOnFailureRateTest() throws Exception {
+        // Do
+        call(false);
+        call(true);
+        call(false);
+
+        // Verify: not enough calls.
+        assertThat(target.getState(FAMILY)).isEqualTo(State.CLOSED);
+
+        // Do
+        call(true);
+
+        // Verify
+        assertThat(target.getState(FAMILY)).isEqualTo(State.OPEN);
+        assertThat(target.getState(EndpointFamily.REPLY)).isEqualTo(State.CLOSED);
+        assertFailFast();
+    }
+
+    @Test
+    public void openOnSlowCallRateTest() throws Exception {
+        // Do
+        for (int i = 0; i < 4; i++) {
+            final CircuitBreaker.Permit permit = target.acquire(FAMILY);
+            nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(i % 2 == 0 ? 2 : 0));
+            target.onComplete(permit, false);
+        }
+
+        // Verify
+        assertThat(target.getState(FAMILY)).isEqualTo(State.OPEN);
+        assertThat(target.getFailureRate(FAMILY)).isZero();
+    }
+
+    @Test
+    public void slidingWindowTest() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            call(i % 2 == 0);
+        }
+        // Precondition
+        assertThat(target.getState(FAMILY)).isEqualTo(State.OPEN);
+
+        // Do
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        call(false);
+        call(false);
+
+        // Verify: healthy probes close the circuit with a fresh window.
+        assertThat(target.getState(FAMILY)).isEqualTo(State.CLOSED);
+        assertThat(target.getFailureRate(FAMILY)).isZero();
+
+        // Do
+        call(true);
+        for (int i = 0; i < 9; i++) {
+            call(false);
+        }
+
+        // Verify
+        assertThat(target.getFailureRate(FAMILY)).isEqualTo(0.1);
+
+        // Do: the failure is evicted from the window.
+        call(false);
+
+        // Verify
+        assertThat(target.getFailureRate(FAMILY)).isEqualTo(0.0);
+        assertThat(target.getState(FAMILY)).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    public void halfOpenTest() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            call(true);
+        }
+
+        // Do
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        final CircuitBreaker.Permit first = target.acquire(FAMILY);
+        final CircuitBreaker.Permit second = target.acquire(FAMILY);
+
+        // Verify: only limited number of probes are permitted.
+        assertThat(target.getState(FAMILY)).isEqualTo(State.HALF_OPEN);
+        assertFailFast();
+
+        // Do
+        target.onComplete(first, true);
+        target.onComplete(second, false);
+
+        // Verify: opened again.
+        assertThat(target.getState(FAMILY)).isEqualTo(State.OPEN);
+        assertFailFast();
+    }
+
+    @Test
+    public void cancelledProbeTest() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            call(true);
+        }
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        final CircuitBreaker.Permit first = target.acquire(FAMILY);
+        final CircuitBreaker.Permit second = target.acquire(FAMILY);
+
+        // Do: e.g. the loser of hedging.
+        target.onCancel(second);
+        target.onCancel(second);
+
+        // Verify: the permit is released once for another probe.
+        final CircuitBreaker.Permit third = target.acquire(FAMILY);
+        assertFailFast();
+
+        // Do
+        target.onComplete(first, false);
+        target.onComplete(third, false);
+
+        // Verify
+        assertThat(target.getState(FAMILY)).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    public void staleCompletionTest() throws Exception {
+        final CircuitBreaker.Permit stale = target.acquire(FAMILY);
+        for (int i = 0; i < 4; i++) {
+            call(true);
+        }
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        final CircuitBreaker.Permit first = target.acquire(FAMILY);
+
+        // Do: a call sent before the circuit opened.
+        target.onComplete(stale, false);
+        target.onCancel(stale);
+
+        // Verify: counted neither as a probe nor as a released probe.
+        final CircuitBreaker.Permit second = target.acquire(FAMILY);
+        assertFailFast();
+        assertThat(target.getState(FAMILY)).isEqualTo(State.HALF_OPEN);
+
+        // Do
+        target.onComplete(first, false);
+        target.onComplete(second, false);
+
+        // Verify
+        assertThat(target.getState(FAMILY)).isEqualTo(State.CLOSED);
+    }
+
+    private void call(final boolean failure) throws CircuitBreakerOpenException {
+        target.onComplete(target.acquire(FAMILY), failure);
+    }
+
+    private void assertFailFast() {
+        try {
+            target.acquire(FAMILY);
+        } catch (CircuitBreakerOpenException e) {
+            assertThat(e).hasMessageContaining(FAMILY.name());
+            return;
+        }
+        throw new AssertionError("Expected CircuitBreakerOpenException");
+    }
+}
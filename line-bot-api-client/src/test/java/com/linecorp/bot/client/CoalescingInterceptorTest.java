@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.linecorp.bot.client.exception.LineMessagingException;
+import com.linecorp.bot.client.exception.NotFoundException;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+public class CoalescingInterceptorTest {
+    private static final ExceptionConverter EXCEPTION_CONVERTER = new ExceptionConverter();
+
+    @Rule
+    public final MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private Call<String> call;
+
+    private final CoalescingInterceptor target = new CoalescingInterceptor();
+    private final List<CompletableFuture<Response<String>>> proceeded = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        when(call.request()).thenReturn(
+                new Request.Builder().get().url("https://api.line.me/v2/bot/richmenu/list").build());
+    }
+
+    @Test
+    public void identicalCallsSharedTest() throws Exception {
+        // Do
+        final CompletableFuture<Response<String>> first = target.intercept(chain(ApiEndpoint.GET_RICH_MENU_LIST));
+        final CompletableFuture<Response<String>> second = target.intercept(chain(ApiEndpoint.GET_RICH_MENU_LIST));
+
+        // Verify
+        assertThat(proceeded).hasSize(1);
+        assertThat(target.inFlightCount()).isEqualTo(1);
+
+        // Do
+        proceeded.get(0).complete(Response.success("OK"));
+
+        // Verify
+        assertThat(first.get().body()).isEqualTo("OK");
+        assertThat(second.get().body()).isEqualTo("OK");
+        assertThat(target.inFlightCount()).isZero();
+
+        // Do: completed call isn't reused.
+        target.intercept(chain(ApiEndpoint.GET_RICH_MENU_LIST));
+
+        // Verify
+        assertThat(proceeded).hasSize(2);
+    }
+
+    @Test
+    public void errorBodyReadableByEachCallerTest() throws Exception {
+        final CompletableFuture<Response<String>> first = target.intercept(chain(ApiEndpoint.GET_RICH_MENU_LIST));
+        final CompletableFuture<Response<String>> second = target.intercept(chain(ApiEndpoint.GET_RICH_MENU_LIST));
+
+        // Do
+        proceeded.get(0).complete(Response.error(
+                404, ResponseBody.create(MediaType.parse("application/json"), "{\"message\":\"Not found\"}")));
+
+        // Verify
+        assertNotFound(first.get());
+        assertNotFound(second.get());
+    }
+
+    @Test
+    public void nonIdempotentCallNotSharedTest() throws Exception {
+        // Do
+        target.intercept(chain(ApiEndpoint.CREATE_RICH_MENU));
+        target.intercept(chain(ApiEndpoint.CREATE_RICH_MENU));
+
+        // Verify
+        assertThat(proceeded).hasSize(2);
+    }
+
+    private static void assertNotFound(final Response<String> response) {
+        final LineMessagingException exception = EXCEPTION_CONVERTER.apply(response);
+        assertThat(exception).isInstanceOf(NotFoundException.class);
+        assertThat(exception.getMessage()).isEqualTo("Not found");
+    }
+
+    private ApiCallInterceptor.Chain<String> chain(final ApiEndpoint endpoint) {
+        return new ApiCallInterceptor.Chain<String>() {
+            @Override
+            public ApiEndpoint endpoint() {
+                return endpoint;
+            }
+
+            @Override
+            public Call<String> call() {
+                return call;
+            }
+
+            @Override
+            public CompletableFuture<Response<String>> proceed(final Call<String> call) {
+                final CompletableFuture<Response<String>> future = new CompletableFuture<>();
+                proceeded.add(future);
+                return future;
+            }
+        };
+    }
+}
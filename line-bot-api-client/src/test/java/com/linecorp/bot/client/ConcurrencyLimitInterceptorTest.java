@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+public class ConcurrencyLimitInterceptorTest {
+    @Rule
+    public final MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private Call<String> call;
+
+    private final ConcurrencyLimitInterceptor target = new ConcurrencyLimitInterceptor(2);
+    private final List<CompletableFuture<Response<String>>> proceeded = new ArrayList<>();
+
+    @Test
+    public void excessCallsWaitTest() throws Exception {
+        // Do
+        final CompletableFuture<Response<String>> first = target.intercept(chain());
+        target.intercept(chain());
+        final CompletableFuture<Response<String>> third = target.intercept(chain());
+
+        // Verify
+        assertThat(proceeded).hasSize(2);
+        assertThat(target.waitingCount()).isEqualTo(1);
+
+        // Do
+        proceeded.get(0).complete(Response.success("OK"));
+
+        // Verify
+        assertThat(first.get().body()).isEqualTo("OK");
+        assertThat(proceeded).hasSize(3);
+        assertThat(target.waitingCount()).isZero();
+
+        // Do
+        proceeded.get(2).completeExceptionally(new IOException());
+
+        // Verify
+        assertThat(third).isCompletedExceptionally();
+    }
+
+    @Test
+    public void cancelledWaitingCallSkippedTest() throws Exception {
+        target.intercept(chain());
+        target.intercept(chain());
+        final CompletableFuture<Response<String>> cancelled = target.intercept(chain());
+        final CompletableFuture<Response<String>> fourth = target.intercept(chain());
+
+        // Do
+        cancelled.cancel(false);
+        proceeded.get(0).complete(Response.success("OK"));
+
+        // Verify: the slot goes to the next waiting call.
+        assertThat(proceeded).hasSize(3);
+        assertThat(target.waitingCount()).isZero();
+
+        // Do
+        proceeded.get(2).complete(Response.success("FOURTH"));
+
+        // Verify
+        assertThat(fourth.get().body()).isEqualTo("FOURTH");
+    }
+
+    @Test
+    public void synchronousFailuresDrainedTest() throws Exception {
+        target.intercept(chain());
+        target.intercept(chain());
+        final List<CompletableFuture<Response<String>>> failing = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            failing.add(target.intercept(failingChain()));
+        }
+
+        // Do
+        proceeded.get(0).complete(Response.success("OK"));
+
+        // Verify: all waiting calls fail without overflowing the stack.
+        assertThat(target.waitingCount()).isZero();
+        for (CompletableFuture<Response<String>> future : failing) {
+            assertThat(future).isCompletedExceptionally();
+        }
+        try {
+            failing.get(0).get();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(IOException.class);
+        }
+
+        // Do: the freed slot is usable.
+        target.intercept(chain());
+
+        // Verify
+        assertThat(proceeded).hasSize(3);
+    }
+
+    private ApiCallInterceptor.Chain<String> chain() {
+        return new TestChain() {
+            @Override
+            public CompletableFuture<Response<String>> proceed(final Call<String> call) {
+                final CompletableFuture<Response<String>> future = new CompletableFuture<>();
+                proceeded.add(future);
+                return future;
+            }
+        };
+    }
+
+    private ApiCallInterceptor.Chain<String> failingChain() {
+        return new TestChain() {
+            @Override
+            public CompletableFuture<Response<String>> proceed(final Call<String> call) {
+                return Futures.failedFuture(new IOException("failed"));
+            }
+        };
+    }
+
+    private abstract class TestChain implements ApiCallInterceptor.Chain<String> {
+        @Override
+        public ApiEndpoint endpoint() {
+            return ApiEndpoint.PUSH_MESSAGE;
+        }
+
+        @Override
+        public Call<String> call() {
+            return call;
+        }
+    }
+}
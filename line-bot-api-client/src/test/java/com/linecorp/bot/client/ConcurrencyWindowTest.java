@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+public class ConcurrencyWindowTest {
+    @Rule
+    public final Timeout timeoutRule = Timeout.seconds(1);
+
+    @Test
+    public void boundedConcurrencyTest() throws Exception {
+        final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+        final List<String> succeeded = new CopyOnWriteArrayList<>();
+        final Map<String, Throwable> failed = new ConcurrentHashMap<>();
+        final Iterator<String> source = Arrays.asList("A", "B", "C", "D").iterator();
+
+        // Do
+        final CompletableFuture<Void> done =
+                ConcurrencyWindow.run(source, 2,
+                                      element -> {
+                                          final CompletableFuture<Void> future = new CompletableFuture<>();
+                                          inFlight.put(element, future);
+                                          return future;
+                                      },
+                                      (element, t) -> {
+                                          if (t == null) {
+                                              succeeded.add(element);
+                                          } else {
+                                              failed.put(element, t);
+                                          }
+                                      });
+
+        // Verify: only 2 elements are pulled.
+        assertThat(inFlight).containsOnlyKeys("A", "B");
+        assertThat(source.hasNext()).isTrue();
+
+        // Do: complete one of them
+        inFlight.get("A").complete(null);
+
+        // Verify: next element is pulled.
+        assertThat(inFlight).containsOnlyKeys("A", "B", "C");
+        assertThat(done).isNotDone();
+
+        // Do
+        inFlight.get("B").completeExceptionally(new IllegalStateException());
+        inFlight.get("C").complete(null);
+        inFlight.get("D").complete(null);
+
+        // Verify
+        assertThat(done).isCompleted();
+        assertThat(succeeded).containsExactly("A", "C", "D");
+        assertThat(failed).containsOnlyKeys("B");
+        assertThat(failed.get("B")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void emptySourceTest() throws Exception {
+        // Do
+        final CompletableFuture<Void> done =
+                ConcurrencyWindow.run(Collections.<String>emptyIterator(), 2,
+                                      element -> CompletableFuture.completedFuture(null),
+                                      (element, t) -> {
+                                      });
+
+        // Verify
+        assertThat(done).isCompleted();
+    }
+}
@@ -24,6 +24,8 @@ import org.junit.Test;
 
 import com.linecorp.bot.client.exception.GeneralLineMessagingException;
 import com.linecorp.bot.client.exception.LineMessagingException;
+import com.linecorp.bot.client.exception.LineServerException;
+import com.linecorp.bot.client.exception.TooManyRequestsException;
 import com.linecorp.bot.client.exception.UnauthorizedException;
 
 import okhttp3.MediaType;
@@ -96,4 +98,50 @@ public class ExceptionConverterTest {
         // Verify
         assertThat(result.getErrorResponse().getRequestId()).isEqualTo("5ac44e02-e6be-49c3-a55f-6b2a29bc3aa4");
     }
+
+    @Test
+    public void lightweightConvertTest() {
+        final ExceptionConverter lightweight = new ExceptionConverter(true);
+        final ResponseBody responseBody =
+                ResponseBody.create(MediaType.parse("application/json"),
+                                    "{\"message\":\"The API rate limit has been exceeded.\"}");
+
+        // Do
+        final LineMessagingException result =
+                lightweight.apply(Response.error(responseBody, rawResponse(429, "REQUEST_ID")));
+
+        // Verify
+        assertThat(result).isInstanceOf(TooManyRequestsException.class);
+        assertThat(result.getStackTrace()).isEmpty();
+        assertThat(result.getRequestId()).isEqualTo("REQUEST_ID");
+        assertThat(result.getMessage()).isEqualTo("The API rate limit has been exceeded.");
+        assertThat(result.getErrorResponse().getRequestId()).isEqualTo("REQUEST_ID");
+        assertThat(result.getErrorResponse()).isSameAs(result.getErrorResponse());
+    }
+
+    @Test
+    public void lightweightMalformedBodyTest() {
+        final ExceptionConverter lightweight = new ExceptionConverter(true);
+        final ResponseBody responseBody =
+                ResponseBody.create(MediaType.parse("text/html"), "<html></html>");
+
+        // Do
+        final LineMessagingException result =
+                lightweight.apply(Response.error(responseBody, rawResponse(500, "REQUEST_ID")));
+
+        // Verify
+        assertThat(result).isInstanceOf(LineServerException.class);
+        assertThat(result.getMessage()).isNull();
+        assertThat(result.getErrorResponse().getRequestId()).isEqualTo("REQUEST_ID");
+    }
+
+    private static okhttp3.Response rawResponse(final int code, final String requestId) {
+        return new Builder()
+                .code(code)
+                .message("")
+                .request(new Request.Builder().get().url("https://api.line.me/v2/bot/message/push").build())
+                .addHeader("X-Line-Request-Id", requestId)
+                .protocol(Protocol.HTTP_1_1)
+                .build();
+    }
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+public class HedgingInterceptorTest {
+    @Rule
+    public final MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    @Mock
+    private Call<String> primary;
+
+    @Mock
+    private Call<String> secondary;
+
+    private final List<Call<String>> proceededCalls = new ArrayList<>();
+    private final List<CompletableFuture<Response<String>>> proceeded = new ArrayList<>();
+    private HedgingPolicy policy;
+    private HedgingInterceptor target;
+
+    @Before
+    public void setUp() {
+        when(primary.clone()).thenReturn(secondary);
+        policy = HedgingPolicy.builder()
+                              .maxDelay(100)
+                              .budget(1)
+                              .scheduler(scheduler)
+                              .build();
+        target = new HedgingInterceptor(policy);
+    }
+
+    @Test
+    public void hedgedAttemptWinsTest() throws Exception {
+        final CompletableFuture<Response<String>> future = target.intercept(chain(ApiEndpoint.GET_PROFILE));
+        final Runnable hedge = captureHedge(100);
+
+        // Do
+        hedge.run();
+
+        // Verify
+        assertThat(proceededCalls).containsExactly(primary, secondary);
+
+        // Do
+        proceeded.get(1).complete(Response.success("SECOND"));
+
+        // Verify
+        assertThat(future.get().body()).isEqualTo("SECOND");
+        verify(primary).cancel();
+        verify(secondary, never()).cancel();
+    }
+
+    @Test
+    public void firstAttemptWinsTest() throws Exception {
+        final CompletableFuture<Response<String>> future = target.intercept(chain(ApiEndpoint.GET_PROFILE));
+        final Runnable hedge = captureHedge(100);
+
+        // Do
+        proceeded.get(0).complete(Response.success("FIRST"));
+        hedge.run();
+
+        // Verify: no hedged attempt after the response.
+        assertThat(future.get().body()).isEqualTo("FIRST");
+        assertThat(proceededCalls).containsExactly(primary);
+    }
+
+    @Test
+    public void failureWaitsForOtherAttemptTest() throws Exception {
+        final CompletableFuture<Response<String>> future = target.intercept(chain(ApiEndpoint.GET_PROFILE));
+        captureHedge(100).run();
+
+        // Do
+        proceeded.get(0).completeExceptionally(new IOException());
+
+        // Verify
+        assertThat(future).isNotDone();
+
+        // Do
+        proceeded.get(1).completeExceptionally(new IOException("second"));
+
+        // Verify
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).hasMessage("second");
+        }
+        assertThat(future).isCompletedExceptionally();
+    }
+
+    @Test
+    public void budgetTest() throws Exception {
+        target.intercept(chain(ApiEndpoint.GET_PROFILE));
+        captureHedge(100).run();
+        proceeded.get(0).complete(Response.success("OK"));
+
+        // Do: budget is exhausted by the first hedge.
+        target.intercept(chain(ApiEndpoint.GET_PROFILE));
+        final ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, times(2))
+                .schedule(captor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        captor.getValue().run();
+
+        // Verify
+        assertThat(proceededCalls).hasSize(3);
+        assertThat(policy.getBudgetTokens()).isLessThan(1);
+    }
+
+    @Test
+    public void nonHedgedEndpointTest() throws Exception {
+        // Do
+        target.intercept(chain(ApiEndpoint.GET_MESSAGE_CONTENT));
+
+        // Verify
+        assertThat(proceededCalls).containsExactly(primary);
+        verify(scheduler, never()).schedule(any(Runnable.class), anyLong(), any());
+    }
+
+    @Test
+    public void cancelledFirstAttemptIsSampledTest() throws Exception {
+        final AtomicLong nanoTime = new AtomicLong();
+        policy = HedgingPolicy.builder()
+                              .maxDelay(1_000)
+                              .budget(100)
+                              .scheduler(scheduler)
+                              .ticker(nanoTime::get)
+                              .build();
+        target = new HedgingInterceptor(policy);
+
+        // Do: hedged attempts win quickly, and slow first attempts are cancelled.
+        final ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        for (int i = 0; i < 16; i++) {
+            nanoTime.set(0);
+            target.intercept(chain(ApiEndpoint.GET_PROFILE));
+            verify(scheduler, times(i + 1)).schedule(captor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+            captor.getValue().run();
+            nanoTime.set(TimeUnit.MILLISECONDS.toNanos(200));
+            proceeded.get(proceeded.size() - 1).complete(Response.success("SECOND"));
+        }
+
+        // Verify: the delay follows the first attempts, not the fast hedged ones.
+        assertThat(policy.getDelay(ApiEndpoint.GET_PROFILE)).isEqualTo(200);
+    }
+
+    @Test
+    public void percentileDelayTest() throws Exception {
+        for (long latency = 1; latency <= 100; latency++) {
+            policy.recordLatency(ApiEndpoint.GET_PROFILE, latency);
+        }
+
+        // Verify
+        assertThat(policy.getDelay(ApiEndpoint.GET_PROFILE)).isEqualTo(95);
+        assertThat(policy.getDelay(ApiEndpoint.GET_MEMBER_PROFILE)).isEqualTo(100);
+        assertThat(policy.getDelay(ApiEndpoint.PUSH_MESSAGE)).isEqualTo(-1);
+    }
+
+    private Runnable captureHedge(final long delay) {
+        final ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(captor.capture(), eq(delay), eq(TimeUnit.MILLISECONDS));
+        return captor.getValue();
+    }
+
+    private ApiCallInterceptor.Chain<String> chain(final ApiEndpoint endpoint) {
+        return new ApiCallInterceptor.Chain<String>() {
+            @Override
+            public ApiEndpoint endpoint() {
+                return endpoint;
+            }
+
+            @Override
+            public Call<String> call() {
+                return primary;
+            }
+
+            @Override
+            public CompletableFuture<Response<String>> proceed(final Call<String> call) {
+                final CompletableFuture<Response<String>> future = new CompletableFuture<>();
+                proceededCalls.add(call);
+                proceeded.add(future);
+                return future;
+            }
+        };
+    }
+}
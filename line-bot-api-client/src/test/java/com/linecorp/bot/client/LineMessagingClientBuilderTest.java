@@ -1,11 +1,15 @@
 package com.linecorp.bot.client;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.only;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -14,8 +18,16 @@ import org.mockito.internal.util.reflection.Whitebox;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 
+import com.linecorp.bot.model.profile.UserProfileResponse;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Call;
+import retrofit2.Response;
 
 public class LineMessagingClientBuilderTest extends AbstractWiremockTest {
     @Rule
@@ -72,6 +84,90 @@ public class LineMessagingClientBuilderTest extends AbstractWiremockTest {
         verify(delegateMock, only()).writeTimeout(1234);
     }
 
+    @Test
+    public void setterTestForMaxRequests() {
+        // Do
+        builder.maxRequests(128);
+
+        // Verify
+        verify(delegateMock, only()).maxRequests(128);
+    }
+
+    @Test
+    public void setterTestForMaxRequestsPerHost() {
+        // Do
+        builder.maxRequestsPerHost(32);
+
+        // Verify
+        verify(delegateMock, only()).maxRequestsPerHost(32);
+    }
+
+    @Test
+    public void setterTestForMaxIdleConnections() {
+        // Do
+        builder.maxIdleConnections(16);
+
+        // Verify
+        verify(delegateMock, only()).maxIdleConnections(16);
+    }
+
+    @Test
+    public void setterTestForKeepAliveDuration() {
+        // Do
+        builder.keepAliveDuration(1234);
+
+        // Verify
+        verify(delegateMock, only()).keepAliveDuration(1234);
+    }
+
+    @Test
+    public void setterTestForHttp2Enabled() {
+        // Do
+        builder.http2Enabled(false);
+
+        // Verify
+        verify(delegateMock, only()).http2Enabled(false);
+    }
+
+    @Test
+    public void setterTestForDispatcher() {
+        final Dispatcher dispatcher = new Dispatcher();
+
+        // Do
+        builder.dispatcher(dispatcher);
+
+        // Verify
+        verify(delegateMock, only()).dispatcher(dispatcher);
+    }
+
+    @Test
+    public void setterTestForConnectionPool() {
+        final ConnectionPool connectionPool = new ConnectionPool();
+
+        // Do
+        builder.connectionPool(connectionPool);
+
+        // Verify
+        verify(delegateMock, only()).connectionPool(connectionPool);
+    }
+
+    @Test
+    public void testBuilderWithDispatcher() throws Exception {
+        final Dispatcher dispatcher = new Dispatcher();
+        final LineMessagingClient lineMessagingClient =
+                LineMessagingClient.builder("TOKEN")
+                                   .apiEndPoint("http://localhost:" + mockWebServer.getPort())
+                                   .dispatcher(dispatcher)
+                                   .build();
+
+        // Do
+        lineMessagingClient.getProfile("TEST");
+
+        // Verify: request is held by mock server without response, so it's still running.
+        mockWebServer.takeRequest();
+        assertThat(dispatcher.runningCallsCount()).isEqualTo(1);
+    }
+
     @Test
     public void setterTestForAddInterceptorTimeout() {
         final Interceptor mock = mock(Interceptor.class);
@@ -103,11 +199,59 @@ public class LineMessagingClientBuilderTest extends AbstractWiremockTest {
         verify(delegateMock, only()).removeAllInterceptors();
     }
 
+    @Test
+    public void testBuilderWithTransport() throws Exception {
+        final UserProfileResponse profile =
+                new UserProfileResponse("displayName", "userId", "pictureUrl", "statusMessage");
+        final LineMessagingClient lineMessagingClient =
+                LineMessagingClient.builder("TOKEN")
+                                   .transport(new ApiTransport() {
+                                       @Override
+                                       @SuppressWarnings("unchecked")
+                                       public <T> CompletableFuture<Response<T>> execute(
+                                               final ApiEndpoint endpoint, final Call<T> call) {
+                                           assertThat(endpoint).isEqualTo(ApiEndpoint.GET_PROFILE);
+                                           assertThat(call.request().url().encodedPath())
+                                                   .isEqualTo("/v2/bot/profile/TEST");
+                                           return CompletableFuture.completedFuture(
+                                                   (Response<T>) Response.success(profile));
+                                       }
+                                   })
+                                   .build();
+
+        // Do
+        final UserProfileResponse response = lineMessagingClient.getProfile("TEST").get();
+
+        // Verify: answered by the transport without sending a request.
+        assertThat(response).isSameAs(profile);
+        assertThat(mockWebServer.getRequestCount()).isZero();
+    }
+
     @Test
     public void setterTestForOkHttpClientBuilder() {
         // We cant check because Builder is final and can't be mocked.
     }
 
+    @Test
+    public void testBuilderKeepsSettingsOfOkHttpClientBuilder() throws Exception {
+        final Dispatcher dispatcher = new Dispatcher();
+        final OkHttpClient.Builder okHttpClientBuilder =
+                new OkHttpClient.Builder()
+                        .dispatcher(dispatcher)
+                        .protocols(Collections.singletonList(Protocol.HTTP_1_1));
+
+        // Do
+        final OkHttpClient okHttpClient =
+                LineMessagingServiceBuilder.create("TOKEN")
+                                           .okHttpClientBuilder(okHttpClientBuilder, false)
+                                           .maxIdleConnections(16)
+                                           .buildOkHttpClient();
+
+        // Verify: only the connection pool is overridden.
+        assertThat(okHttpClient.dispatcher()).isSameAs(dispatcher);
+        assertThat(okHttpClient.protocols()).containsExactly(Protocol.HTTP_1_1);
+    }
+
     @Test
     public void setterTestForRetrofitBuilder() {
         // We cant check because Builder is final and can't be mocked.
@@ -142,4 +286,24 @@ public class LineMessagingClientBuilderTest extends AbstractWiremockTest {
                 .isInstanceOf(LineMessagingClientImpl.class)
                 .hasFieldOrPropertyWithValue("retrofitImpl", lineMessagingServiceMock);
     }
+
+    @Test
+    public void testBuildWithHedgingPolicy() {
+        when(delegateMock.build()).thenReturn(lineMessagingServiceMock);
+
+        // Do
+        builder.hedgingPolicy(HedgingPolicy.builder().build()).build();
+
+        // Verify: hedged attempts are sent on separate connections.
+        verify(delegateMock).http2Enabled(false);
+    }
+
+    @Test
+    public void testBuildWithHedgingPolicyAndHttp2() {
+        // Do & Verify
+        assertThatThrownBy(() -> builder.hedgingPolicy(HedgingPolicy.builder().build())
+                                        .http2Enabled(true)
+                                        .build())
+                .isInstanceOf(IllegalStateException.class);
+    }
 }
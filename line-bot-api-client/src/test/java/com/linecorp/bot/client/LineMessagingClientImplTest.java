@@ -18,24 +18,41 @@ package com.linecorp.bot.client;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.only;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
-
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.Timeout;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 import org.mockito.stubbing.OngoingStubbing;
 
+import com.linecorp.bot.client.exception.CallTimeoutException;
+import com.linecorp.bot.client.exception.GeneralLineMessagingException;
 import com.linecorp.bot.model.Multicast;
 import com.linecorp.bot.model.PushMessage;
 import com.linecorp.bot.model.ReplyMessage;
@@ -50,7 +67,9 @@ import com.linecorp.bot.model.richmenu.RichMenuResponse;
 
 import okhttp3.MediaType;
 import okhttp3.Request;
+import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
+import okio.Buffer;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
@@ -69,9 +88,19 @@ public class LineMessagingClientImplTest {
     @Mock
     private LineMessagingService retrofitMock;
 
-    @InjectMocks
+    @Mock
+    private Call<BotApiResponse> pendingCall;
+
+    @Mock
+    private Call<Void> pendingVoidCall;
+
     private LineMessagingClientImpl target;
 
+    @Before
+    public void setUp() {
+        target = new LineMessagingClientImpl(retrofitMock);
+    }
+
     @Test
     public void replyMessageTest() throws Exception {
         whenCall(retrofitMock.replyMessage(any()),
@@ -102,6 +131,49 @@ public class LineMessagingClientImplTest {
         assertThat(botApiResponse).isEqualTo(BOT_API_SUCCESS_RESPONSE);
     }
 
+    @Test
+    public void pushMessageWithPreparedMessagesTest() throws Exception {
+        whenCall(retrofitMock.pushMessageRaw(any()),
+                 BOT_API_SUCCESS_RESPONSE);
+        final PreparedMessages messages = PreparedMessages.of(singletonList(new TextMessage("text")));
+
+        // Do
+        final BotApiResponse botApiResponse =
+                target.pushMessage("TO", messages).get();
+
+        // Verify
+        final ArgumentCaptor<RequestBody> captor = ArgumentCaptor.forClass(RequestBody.class);
+        verify(retrofitMock, only()).pushMessageRaw(captor.capture());
+        assertThat(botApiResponse).isEqualTo(BOT_API_SUCCESS_RESPONSE);
+
+        final Buffer body = new Buffer();
+        captor.getValue().writeTo(body);
+        assertThat(body.readUtf8())
+                .isEqualTo("{\"to\":\"TO\",\"messages\":[{\"type\":\"text\",\"text\":\"text\"}]}");
+    }
+
+    @Test
+    public void replyMessageWithPreparedMessagesTest() throws Exception {
+        whenCall(retrofitMock.replyMessageRaw(any()),
+                 BOT_API_SUCCESS_RESPONSE);
+        final PreparedMessages messages = PreparedMessages.of(singletonList(new TextMessage("text")));
+
+        // Do
+        final BotApiResponse botApiResponse =
+                target.replyMessage("TOKEN", messages).get();
+
+        // Verify
+        final ArgumentCaptor<RequestBody> captor = ArgumentCaptor.forClass(RequestBody.class);
+        verify(retrofitMock, only()).replyMessageRaw(captor.capture());
+        assertThat(botApiResponse).isEqualTo(BOT_API_SUCCESS_RESPONSE);
+
+        final Buffer body = new Buffer();
+        captor.getValue().writeTo(body);
+        assertThat(body.readUtf8())
+                .isEqualTo("{\"replyToken\":\"TOKEN\","
+                           + "\"messages\":[{\"type\":\"text\",\"text\":\"text\"}]}");
+    }
+
     @Test
     public void multicastTest() throws Exception {
         whenCall(retrofitMock.multicast(any()),
@@ -117,6 +189,30 @@ public class LineMessagingClientImplTest {
         assertThat(botApiResponse).isEqualTo(BOT_API_SUCCESS_RESPONSE);
     }
 
+    @Test
+    public void multicastWithLargeRecipientsTest() throws Exception {
+        whenCall(retrofitMock.multicastRaw(any()),
+                 BOT_API_SUCCESS_RESPONSE);
+        final List<String> to = IntStream.range(0, 301)
+                                         .mapToObj(i -> "U" + i)
+                                         .collect(Collectors.toList());
+
+        // Do
+        final MulticastResult multicastResult =
+                target.multicast(to, singletonList(new TextMessage("text"))).get();
+
+        // Verify
+        final ArgumentCaptor<RequestBody> captor = ArgumentCaptor.forClass(RequestBody.class);
+        verify(retrofitMock, times(3)).multicastRaw(captor.capture());
+        assertThat(multicastResult.getChunkCount()).isEqualTo(3);
+        assertThat(multicastResult.isSucceeded()).isTrue();
+
+        final Buffer lastChunk = new Buffer();
+        captor.getValue().writeTo(lastChunk);
+        assertThat(lastChunk.readUtf8())
+                .isEqualTo("{\"to\":[\"U300\"],\"messages\":[{\"type\":\"text\",\"text\":\"text\"}]}");
+    }
+
     @Test
     public void getMessageContentTest() throws Exception {
         whenCall(retrofitMock.getMessageContent(any()),
@@ -323,6 +419,65 @@ public class LineMessagingClientImplTest {
 
     }
 
+    @Test
+    public void uploadRichMenuImageFromPathTest() throws Exception {
+        whenCall(retrofitMock.uploadRichMenuImage(any(), any()),
+                 null);
+        final Path image = Files.createTempFile("richmenu", ".png");
+        try {
+            Files.write(image, new byte[] { 1, 2, 3 });
+
+            // Do
+            final BotApiResponse botApiResponse =
+                    target.setRichMenuImage("ID", "image/png", image).get();
+
+            // Verify
+            final ArgumentCaptor<RequestBody> captor = ArgumentCaptor.forClass(RequestBody.class);
+            verify(retrofitMock, only())
+                    .uploadRichMenuImage(eq("ID"), captor.capture());
+            assertThat(captor.getValue().contentLength()).isEqualTo(3);
+            assertThat(captor.getValue().contentType()).isEqualTo(MediaType.parse("image/png"));
+            assertThat(botApiResponse).isEqualTo(BOT_API_SUCCESS_RESPONSE);
+        } finally {
+            Files.delete(image);
+        }
+    }
+
+    @Test
+    public void uploadRichMenuImageFromMissingPathTest() throws Exception {
+        // Do
+        final CompletableFuture<BotApiResponse> future =
+                target.setRichMenuImage("ID", "image/png", Paths.get("not-exist.png"));
+
+        // Verify
+        assertThat(future).isCompletedExceptionally();
+        verify(retrofitMock, never()).uploadRichMenuImage(any(), any());
+    }
+
+    @Test
+    public void uploadRichMenuImagesTest() throws Exception {
+        whenCall(retrofitMock.uploadRichMenuImage(any(), any()),
+                 null);
+        final Path image = Files.createTempFile("richmenu", ".png");
+        try {
+            final Map<String, Path> images = new LinkedHashMap<>();
+            images.put("ID1", image);
+            images.put("ID2", Paths.get("not-exist.png"));
+            images.put("ID3", image);
+
+            // Do
+            final Map<String, Throwable> failures =
+                    target.setRichMenuImages(images, "image/png", 2).get();
+
+            // Verify
+            verify(retrofitMock, times(2)).uploadRichMenuImage(any(), any());
+            assertThat(failures).containsOnlyKeys("ID2");
+            assertThat(failures.get("ID2")).isInstanceOf(GeneralLineMessagingException.class);
+        } finally {
+            Files.delete(image);
+        }
+    }
+
     @Test
     public void getRichMenuListTest() throws Exception {
         whenCall(retrofitMock.getRichMenuList(),
@@ -339,6 +494,64 @@ public class LineMessagingClientImplTest {
 
     // Utility methods
 
+    @Test
+    public void cancelPropagatedToCallTest() throws Exception {
+        when(retrofitMock.pushMessage(any())).thenReturn(pendingCall);
+        final CompletableFuture<BotApiResponse> future =
+                target.pushMessage(new PushMessage("TO", new TextMessage("text")));
+
+        // Do
+        future.cancel(false);
+
+        // Verify
+        verify(pendingCall).enqueue(any());
+        verify(pendingCall).cancel();
+    }
+
+    @Test
+    public void cancelOfBotApiFuturePropagatedToCallTest() throws Exception {
+        when(retrofitMock.deleteRichMenu(any())).thenReturn(pendingVoidCall);
+        final CompletableFuture<BotApiResponse> future = target.deleteRichMenu("RICH_MENU_ID");
+
+        // Do
+        future.cancel(false);
+
+        // Verify
+        verify(pendingVoidCall).cancel();
+    }
+
+    @Test
+    public void cancelPropagatedThroughInterceptorsTest() throws Exception {
+        target = new LineMessagingClientImpl(retrofitMock, singletonList(new RateLimitingInterceptor(
+                ApiRateLimiter.builder().build())), null, null, null, new ExceptionConverter(), 0);
+        when(retrofitMock.pushMessage(any())).thenReturn(pendingCall);
+        final CompletableFuture<BotApiResponse> future =
+                target.pushMessage(new PushMessage("TO", new TextMessage("text")));
+
+        // Do
+        future.completeExceptionally(new IllegalStateException("Given up"));
+
+        // Verify
+        verify(pendingCall).cancel();
+    }
+
+    @Test
+    public void callTimeoutTest() throws Exception {
+        target = new LineMessagingClientImpl(retrofitMock, emptyList(), null, null, null, new ExceptionConverter(),
+                                             10);
+        when(retrofitMock.pushMessage(any())).thenReturn(pendingCall);
+
+        // Do
+        final CompletableFuture<BotApiResponse> future =
+                target.pushMessage(new PushMessage("TO", new TextMessage("text")));
+
+        // Verify
+        assertThatThrownBy(future::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(CallTimeoutException.class);
+        verify(pendingCall).cancel();
+    }
+
     private static <T> void whenCall(Call<T> call, T value) {
         final OngoingStubbing<Call<T>> callOngoingStubbing = when(call);
         callOngoingStubbing.thenReturn(enqueue(value));
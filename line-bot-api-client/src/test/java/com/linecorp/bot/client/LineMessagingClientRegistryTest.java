@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class LineMessagingClientRegistryTest {
+    @Test
+    public void registerTest() {
+        final List<String> customized = new ArrayList<>();
+        final LineMessagingClientRegistry target = LineMessagingClientRegistry
+                .builder()
+                .maxRequests(32)
+                .clientCustomizer((channelId, builder) -> customized.add(channelId))
+                .build();
+
+        // Do
+        final LineMessagingClient first = target.register("CHANNEL1", FixedChannelTokenSupplier.of("TOKEN1"));
+        final LineMessagingClient second = target.register("CHANNEL2", FixedChannelTokenSupplier.of("TOKEN2"));
+
+        // Verify
+        assertThat(first).isNotSameAs(second);
+        assertThat(target.getClient("CHANNEL1")).isSameAs(first);
+        assertThat(target.getClient("CHANNEL2")).isSameAs(second);
+        assertThat(target.getClient("UNKNOWN")).isNull();
+        assertThat(target.getChannelIds()).containsOnly("CHANNEL1", "CHANNEL2");
+        assertThat(customized).containsExactly("CHANNEL1", "CHANNEL2");
+        assertThat(target.getDispatcher().getMaxRequests()).isEqualTo(32);
+        assertThat(target.getDispatcher().getMaxRequestsPerHost()).isEqualTo(32);
+    }
+
+    @Test
+    public void registerTwiceTest() {
+        final LineMessagingClientRegistry target = LineMessagingClientRegistry.builder().build();
+        target.register("CHANNEL", FixedChannelTokenSupplier.of("TOKEN"));
+
+        // Do & Verify
+        assertThatThrownBy(() -> target.register("CHANNEL", FixedChannelTokenSupplier.of("TOKEN")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void unregisterTest() {
+        final LineMessagingClientRegistry target = LineMessagingClientRegistry.builder().build();
+        target.register("CHANNEL", FixedChannelTokenSupplier.of("TOKEN"));
+
+        // Do
+        final boolean result = target.unregister("CHANNEL");
+
+        // Verify
+        assertThat(result).isTrue();
+        assertThat(target.getClient("CHANNEL")).isNull();
+        assertThat(target.unregister("CHANNEL")).isFalse();
+
+        // Do: can be registered again.
+        target.register("CHANNEL", FixedChannelTokenSupplier.of("TOKEN"));
+
+        // Verify
+        assertThat(target.getChannelIds()).containsOnly("CHANNEL");
+    }
+}
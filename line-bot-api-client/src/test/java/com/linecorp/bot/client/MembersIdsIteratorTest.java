@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.linecorp.bot.client.exception.GeneralLineMessagingException;
+import com.linecorp.bot.model.profile.MembersIdsResponse;
+
+public class MembersIdsIteratorTest {
+    @Rule
+    public final Timeout timeoutRule = Timeout.seconds(1);
+
+    // Requested pages by continuation token. "" for the first page.
+    private final Map<String, CompletableFuture<MembersIdsResponse>> requested = new ConcurrentHashMap<>();
+
+    @Test
+    public void prefetchBoundedTest() throws Exception {
+        // Do
+        final MembersIdsIterator target = new MembersIdsIterator(this::load, 2);
+        requested.get("").complete(new MembersIdsResponse(asList("A", "B"), "2"));
+        requested.get("2").complete(new MembersIdsResponse(asList("C"), "3"));
+
+        // Verify: 2 pages are buffered. 3rd page is not requested yet.
+        assertThat(requested).containsOnlyKeys("", "2");
+
+        // Do
+        assertThat(target.next()).isEqualTo("A");
+
+        // Verify: consuming a page requests next one.
+        assertThat(requested).containsOnlyKeys("", "2", "3");
+
+        // Do
+        requested.get("3").complete(new MembersIdsResponse(asList("D"), null));
+
+        // Verify
+        assertThat(target.next()).isEqualTo("B");
+        assertThat(target.next()).isEqualTo("C");
+        assertThat(target.next()).isEqualTo("D");
+        assertThat(target.hasNext()).isFalse();
+    }
+
+    @Test
+    public void streamTest() throws Exception {
+        final Map<String, MembersIdsResponse> pages = new ConcurrentHashMap<>();
+        pages.put("", new MembersIdsResponse(asList("A", "B"), "2"));
+        pages.put("2", new MembersIdsResponse(asList("C"), null));
+
+        // Do
+        final String result = MembersIdsIterator
+                .stream(start -> CompletableFuture.completedFuture(pages.get(start == null ? "" : start)), 1)
+                .collect(Collectors.joining(","));
+
+        // Verify
+        assertThat(result).isEqualTo("A,B,C");
+    }
+
+    @Test
+    public void failureTest() throws Exception {
+        final MembersIdsIterator target = new MembersIdsIterator(this::load, 2);
+        final GeneralLineMessagingException failure = new GeneralLineMessagingException("Timeout", null, null);
+
+        // Do
+        requested.get("").completeExceptionally(failure);
+        final Throwable thrown = catchThrowable(target::hasNext);
+
+        // Verify
+        assertThat(thrown).isInstanceOf(CompletionException.class)
+                          .hasCause(failure);
+    }
+
+    private CompletableFuture<MembersIdsResponse> load(final String start) {
+        final CompletableFuture<MembersIdsResponse> future = new CompletableFuture<>();
+        requested.put(start == null ? "" : start, future);
+        return future;
+    }
+}
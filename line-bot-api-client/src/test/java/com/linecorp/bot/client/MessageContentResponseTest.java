@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.concurrent.CompletionException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MessageContentResponseTest {
+    private static final byte[] CONTENT = "0123456789".getBytes(UTF_8);
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void transferToPathTest() throws Exception {
+        final Path target = temporaryFolder.getRoot().toPath().resolve("content.bin");
+        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+        // Do
+        final Path result = response(CONTENT.length).transferTo(target, 10, digest);
+
+        // Verify
+        assertThat(result).isEqualTo(target);
+        assertThat(Files.readAllBytes(target)).isEqualTo(CONTENT);
+        assertThat(digest.digest()).isEqualTo(MessageDigest.getInstance("SHA-256").digest(CONTENT));
+    }
+
+    @Test
+    public void transferToChannelTest() throws Exception {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Do
+        final long transferred = response(CONTENT.length).transferTo(Channels.newChannel(outputStream));
+
+        // Verify
+        assertThat(transferred).isEqualTo(CONTENT.length);
+        assertThat(outputStream.toByteArray()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void maxSizeExceededByLengthTest() throws Exception {
+        final Path target = temporaryFolder.getRoot().toPath().resolve("content.bin");
+
+        // Do
+        final Throwable thrown = catchThrowable(() -> response(CONTENT.length).transferTo(target, 5, null));
+
+        // Verify: fails before creating the file.
+        assertThat(thrown).isInstanceOf(IOException.class);
+        assertThat(target).doesNotExist();
+    }
+
+    @Test
+    public void maxSizeExceededWhileTransferTest() throws Exception {
+        final Path target = temporaryFolder.getRoot().toPath().resolve("content.bin");
+
+        // Do: length is unknown.
+        final Throwable thrown = catchThrowable(() -> response(-1).transferTo(target, 5, null));
+
+        // Verify: partially written file is deleted.
+        assertThat(thrown).isInstanceOf(IOException.class);
+        assertThat(target).doesNotExist();
+    }
+
+    @Test
+    public void transferToAsyncTest() throws Exception {
+        final Path target = temporaryFolder.getRoot().toPath().resolve("content.bin");
+
+        // Do
+        final Path result = response(CONTENT.length).transferToAsync(target, Runnable::run).get();
+
+        // Verify
+        assertThat(Files.readAllBytes(result)).isEqualTo(CONTENT);
+
+        // Do
+        final Throwable thrown = catchThrowable(
+                () -> response(CONTENT.length).transferToAsync(target, 5, null, Runnable::run).join());
+
+        // Verify
+        assertThat(thrown).isInstanceOf(CompletionException.class)
+                          .hasCauseInstanceOf(IOException.class);
+    }
+
+    private static MessageContentResponse response(final long length) {
+        return MessageContentResponse.builder()
+                                     .length(length)
+                                     .mimeType("application/octet-stream")
+                                     .allHeaders(Collections.emptyMap())
+                                     .stream(new ByteArrayInputStream(CONTENT))
+                                     .build();
+    }
+}
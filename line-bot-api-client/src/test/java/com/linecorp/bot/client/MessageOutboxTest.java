@@ -0,0 +1,217 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singleton;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+import org.mockito.ArgumentCaptor;
+
+import com.linecorp.bot.client.exception.BadRequestException;
+import com.linecorp.bot.client.exception.LineServerException;
+import com.linecorp.bot.model.Multicast;
+import com.linecorp.bot.model.PushMessage;
+import com.linecorp.bot.model.message.TextMessage;
+import com.linecorp.bot.model.response.BotApiResponse;
+
+public class MessageOutboxTest {
+    private static final BotApiResponse OK = new BotApiResponse("", emptyList());
+
+    @Rule
+    public final Timeout timeoutRule = Timeout.seconds(5);
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+    private LineMessagingClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = temporaryFolder.newFolder().toPath();
+        client = mock(LineMessagingClient.class);
+    }
+
+    @Test
+    public void pushTest() throws Exception {
+        when(client.pushMessage(any(PushMessage.class))).thenReturn(CompletableFuture.completedFuture(OK));
+        when(client.multicast(any(Multicast.class))).thenReturn(CompletableFuture.completedFuture(OK));
+
+        try (MessageOutbox target = MessageOutbox.builder(client, directory).build()) {
+            // Do
+            final BotApiResponse pushResponse =
+                    target.push(new PushMessage("U1", new TextMessage("push"))).get();
+            final BotApiResponse multicastResponse =
+                    target.multicast(new Multicast(singleton("U2"), new TextMessage("multicast"))).get();
+
+            // Verify
+            assertThat(pushResponse).isEqualTo(OK);
+            assertThat(multicastResponse).isEqualTo(OK);
+            assertThat(target.getPendingCount()).isZero();
+            verify(client).pushMessage(new PushMessage("U1", new TextMessage("push")));
+            verify(client).multicast(new Multicast(singleton("U2"), new TextMessage("multicast")));
+        }
+    }
+
+    @Test
+    public void replayTest() throws Exception {
+        when(client.pushMessage(any(PushMessage.class))).thenReturn(new CompletableFuture<>());
+        try (MessageOutbox target = MessageOutbox.builder(client, directory).build()) {
+            target.push(new PushMessage("U1", new TextMessage("first")));
+            target.push(new PushMessage("U2", new TextMessage("second")));
+            assertThat(target.getPendingCount()).isEqualTo(2);
+        }
+
+        final LineMessagingClient restarted = mock(LineMessagingClient.class);
+        when(restarted.pushMessage(any(PushMessage.class))).thenReturn(CompletableFuture.completedFuture(OK));
+
+        // Do
+        try (MessageOutbox target = MessageOutbox.builder(restarted, directory).build()) {
+            // Verify
+            final ArgumentCaptor<PushMessage> captor = ArgumentCaptor.forClass(PushMessage.class);
+            verify(restarted, times(2)).pushMessage(captor.capture());
+            assertThat(captor.getAllValues())
+                    .containsExactly(new PushMessage("U1", new TextMessage("first")),
+                                     new PushMessage("U2", new TextMessage("second")));
+            assertThat(target.getPendingCount()).isZero();
+        }
+
+        // Verify: acknowledged messages are not sent again.
+        final LineMessagingClient restartedAgain = mock(LineMessagingClient.class);
+        try (MessageOutbox target = MessageOutbox.builder(restartedAgain, directory).build()) {
+            assertThat(target.getPendingCount()).isZero();
+            verify(restartedAgain, times(0)).pushMessage(any(PushMessage.class));
+        }
+    }
+
+    @Test
+    public void retryTest() throws Exception {
+        final CompletableFuture<BotApiResponse> failure = new CompletableFuture<>();
+        failure.completeExceptionally(new LineServerException("error", null));
+        when(client.pushMessage(any(PushMessage.class)))
+                .thenReturn(failure)
+                .thenReturn(CompletableFuture.completedFuture(OK));
+
+        try (MessageOutbox target = MessageOutbox.builder(client, directory).initialBackoff(1).build()) {
+            // Do
+            final BotApiResponse response = target.push(new PushMessage("U1", new TextMessage("text"))).get();
+
+            // Verify
+            assertThat(response).isEqualTo(OK);
+            verify(client, times(2)).pushMessage(any(PushMessage.class));
+        }
+    }
+
+    @Test
+    public void permanentFailureTest() throws Exception {
+        final BadRequestException cause = new BadRequestException("error", null);
+        final CompletableFuture<BotApiResponse> failure = new CompletableFuture<>();
+        failure.completeExceptionally(cause);
+        when(client.pushMessage(any(PushMessage.class))).thenReturn(failure);
+
+        try (MessageOutbox target = MessageOutbox.builder(client, directory).build()) {
+            // Do
+            final CompletableFuture<BotApiResponse> future = target.push(
+                    new PushMessage("U1", new TextMessage("text")));
+
+            // Verify
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isSameAs(cause);
+            }
+            assertThat(future).isCompletedExceptionally();
+            assertThat(target.getPendingCount()).isZero();
+            verify(client, times(1)).pushMessage(any(PushMessage.class));
+        }
+    }
+
+    @Test
+    public void undecodableRecordTest() throws Exception {
+        try (OutboxLog outboxLog = new OutboxLog(directory, 1024)) {
+            outboxLog.readAll();
+            outboxLog.append(OutboxLog.TYPE_PUSH, 0, "{\"broken".getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Do
+        try (MessageOutbox target = MessageOutbox.builder(client, directory).build()) {
+            // Verify: acknowledged without being sent or retried.
+            assertThat(target.getPendingCount()).isZero();
+            verify(client, times(0)).pushMessage(any(PushMessage.class));
+        }
+    }
+
+    @Test
+    public void compactionTest() throws Exception {
+        final List<CompletableFuture<BotApiResponse>> calls = new ArrayList<>();
+        when(client.pushMessage(any(PushMessage.class))).thenAnswer(invocation -> {
+            final CompletableFuture<BotApiResponse> call = new CompletableFuture<>();
+            calls.add(call);
+            return call;
+        });
+
+        try (MessageOutbox target = MessageOutbox.builder(client, directory)
+                                                 .segmentSize(256)
+                                                 .maxSegments(3)
+                                                 .maxInFlight(1000)
+                                                 .build()) {
+            // First message stays pending forever.
+            target.push(new PushMessage("STUCK", new TextMessage("text")));
+
+            // Do
+            for (int i = 0; i < 100; i++) {
+                target.push(new PushMessage("U" + i, new TextMessage("text")));
+                calls.get(i + 1).complete(OK);
+            }
+
+            // Verify
+            assertThat(target.getPendingCount()).isEqualTo(1);
+            assertThat(target.getSegmentCount()).isLessThanOrEqualTo(3);
+            // Deleted segments are recycled instead of growing the directory.
+            try (Stream<Path> files = Files.list(directory)) {
+                assertThat(files.count()).isLessThanOrEqualTo(4);
+            }
+        }
+
+        // Verify: the stuck message survives compaction.
+        final LineMessagingClient restarted = mock(LineMessagingClient.class);
+        when(restarted.pushMessage(any(PushMessage.class))).thenReturn(CompletableFuture.completedFuture(OK));
+        try (MessageOutbox target = MessageOutbox.builder(restarted, directory).build()) {
+            verify(restarted, times(1)).pushMessage(new PushMessage("STUCK", new TextMessage("text")));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.linecorp.bot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class MicrometerApiMetricsListenerTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MicrometerApiMetricsListener target = new MicrometerApiMetricsListener(registry);
+
+    @Test
+    public void recordTest() {
+        // Do
+        target.onCallStarted(ApiEndpoint.PUSH_MESSAGE);
+        target.onCallStarted(ApiEndpoint.PUSH_MESSAGE);
+        target.onCallStarted(ApiEndpoint.PUSH_MESSAGE);
+        target.onCallCompleted(ApiEndpoint.PUSH_MESSAGE, TimeUnit.MILLISECONDS.toNanos(5), 200, null);
+        target.onCallCompleted(ApiEndpoint.PUSH_MESSAGE, TimeUnit.MILLISECONDS.toNanos(15), 200, null);
+        target.onCallCompleted(ApiEndpoint.PUSH_MESSAGE, TimeUnit.MILLISECONDS.toNanos(100), -1,
+                               SocketTimeoutException.class);
+
+        // Verify
+        final Timer succeeded = registry.find("line.bot.api.calls")
+                                        .tags("endpoint", "PUSH_MESSAGE", "status", "200", "exception", "none")
+                                        .timer();
+        assertThat(succeeded.count()).isEqualTo(2);
+        assertThat(succeeded.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(20);
+
+        final Timer failed = registry.find("line.bot.api.calls")
+                                     .tags("status", "-1", "exception", "SocketTimeoutException")
+                                     .timer();
+        assertThat(failed.count()).isEqualTo(1);
+
+        assertThat(registry.find("line.bot.api.calls.in.flight").tags("endpoint", "PUSH_MESSAGE")
+                           .gauge().value()).isEqualTo(0);
+    }
+
+    @Test
+    public void inFlightTest() {
+        // Do
+        target.onCallStarted(ApiEndpoint.REPLY_MESSAGE);
+
+        // Verify
+        assertThat(registry.find("line.bot.api.calls.in.flight").tags("endpoint", "REPLY_MESSAGE")
+                           .gauge().value()).isEqualTo(1);
+        assertThat(registry.find("line.bot.api.calls.in.flight").tags("endpoint", "PUSH_MESSAGE")
+                           .gauge().value()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.linecorp.bot.client.exception.DeadlineExceededException;
+import com.linecorp.bot.model.event.Event;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+public class OutboundSchedulerTest {
+    private static final Instant NOW = Instant.parse("2018-01-01T00:00:00Z");
+
+    @Rule
+    public final MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private Call<String> call;
+
+    @Mock
+    private Event event;
+
+    private final OutboundScheduler target = OutboundScheduler
+            .builder()
+            .maxConcurrentCalls(1)
+            .replyTokenTimeout(30_000)
+            .clock(Clock.fixed(NOW, ZoneOffset.UTC))
+            .build();
+    private final List<ApiEndpoint> proceeded = new ArrayList<>();
+    private final List<CompletableFuture<Response<String>>> responses = new ArrayList<>();
+    private final List<TestChain> chains = new ArrayList<>();
+
+    @Test
+    public void replyDeadlineOfTest() {
+        when(event.getTimestamp()).thenReturn(NOW);
+
+        // Do
+        final Instant result = target.replyDeadlineOf(event);
+
+        // Verify
+        assertThat(result).isEqualTo(NOW.plusSeconds(30));
+    }
+
+    @Test
+    public void priorityOrderTest() throws Exception {
+        intercept(ApiEndpoint.GET_RICH_MENU_LIST, null);
+        intercept(ApiEndpoint.SET_RICH_MENU_IMAGE, null);
+        intercept(ApiEndpoint.MULTICAST, null);
+        intercept(ApiEndpoint.PUSH_MESSAGE, NOW.plusSeconds(20));
+        intercept(ApiEndpoint.PUSH_MESSAGE, NOW.plusSeconds(10));
+        intercept(ApiEndpoint.REPLY_MESSAGE, NOW.plusSeconds(30));
+
+        // Do
+        for (int i = 0; i < 5; i++) {
+            responses.get(i).complete(Response.success("OK"));
+        }
+
+        // Verify
+        assertThat(proceeded).containsExactly(ApiEndpoint.GET_RICH_MENU_LIST,
+                                              ApiEndpoint.REPLY_MESSAGE,
+                                              ApiEndpoint.PUSH_MESSAGE,
+                                              ApiEndpoint.PUSH_MESSAGE,
+                                              ApiEndpoint.MULTICAST,
+                                              ApiEndpoint.SET_RICH_MENU_IMAGE);
+        assertThat(chains.get(2).deadline()).isEqualTo(NOW.plusSeconds(10));
+    }
+
+    @Test
+    public void expiredReplyDroppedTest() throws Exception {
+        intercept(ApiEndpoint.PUSH_MESSAGE, null);
+        final CompletableFuture<Response<String>> expired =
+                intercept(ApiEndpoint.REPLY_MESSAGE, NOW.minusMillis(1));
+        final CompletableFuture<Response<String>> expiredPush =
+                intercept(ApiEndpoint.PUSH_MESSAGE, NOW.minusMillis(1));
+
+        // Do
+        responses.get(0).complete(Response.success("OK"));
+
+        // Verify: the reply is dropped, while the push is sent anyway.
+        assertThat(proceeded).containsExactly(ApiEndpoint.PUSH_MESSAGE, ApiEndpoint.PUSH_MESSAGE);
+        assertThat(expired).isCompletedExceptionally();
+        try {
+            expired.get();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(DeadlineExceededException.class);
+        }
+        assertThat(expiredPush).isNotDone();
+    }
+
+    @Test
+    public void expiredReplyDroppedWithoutWaitingTest() throws Exception {
+        // Do
+        final CompletableFuture<Response<String>> expired =
+                intercept(ApiEndpoint.REPLY_MESSAGE, NOW.minusMillis(1));
+
+        // Verify
+        assertThat(proceeded).isEmpty();
+        assertThat(expired).isCompletedExceptionally();
+
+        // Do: the slot is released.
+        intercept(ApiEndpoint.PUSH_MESSAGE, null);
+
+        // Verify
+        assertThat(proceeded).containsExactly(ApiEndpoint.PUSH_MESSAGE);
+    }
+
+    private CompletableFuture<Response<String>> intercept(final ApiEndpoint endpoint, final Instant deadline) {
+        return target.interceptor().intercept(new TestChain(endpoint, deadline));
+    }
+
+    private final class TestChain implements ApiCallInterceptor.Chain<String> {
+        private final ApiEndpoint endpoint;
+        private final Instant deadline;
+
+        TestChain(final ApiEndpoint endpoint, final Instant deadline) {
+            this.endpoint = endpoint;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public ApiEndpoint endpoint() {
+            return endpoint;
+        }
+
+        @Override
+        public Instant deadline() {
+            return deadline;
+        }
+
+        @Override
+        public Call<String> call() {
+            return call;
+        }
+
+        @Override
+        public CompletableFuture<Response<String>> proceed(final Call<String> call) {
+            final CompletableFuture<Response<String>> future = new CompletableFuture<>();
+            proceeded.add(endpoint);
+            chains.add(this);
+            responses.add(future);
+            return future;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.linecorp.bot.model.message.Message;
+import com.linecorp.bot.model.message.TextMessage;
+
+public class PreparedMessagesTest {
+    @Test
+    public void serializeTest() {
+        // Do
+        final PreparedMessages target = PreparedMessages.of(singletonList(new TextMessage("serialize")));
+
+        // Verify
+        assertThat(new String(target.json(), UTF_8))
+                .isEqualTo("[{\"type\":\"text\",\"text\":\"serialize\"}]");
+        assertThat(target.getMessages()).containsExactly(new TextMessage("serialize"));
+        assertThat(target.getDigest()).hasSize(64);
+    }
+
+    @Test
+    public void contentAddressedTest() {
+        final List<Message> messages = new ArrayList<>();
+        messages.add(new TextMessage("content"));
+
+        // Do
+        final PreparedMessages first = PreparedMessages.of(messages);
+        final PreparedMessages second = PreparedMessages.of(singletonList(new TextMessage("content")));
+        messages.add(new TextMessage("modified"));
+        final PreparedMessages third = PreparedMessages.of(messages);
+
+        // Verify
+        assertThat(second).isSameAs(first);
+        assertThat(first.getMessages()).hasSize(1);
+        assertThat(third).isNotEqualTo(first);
+        assertThat(third.getDigest()).isNotEqualTo(first.getDigest());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyMessagesTest() {
+        PreparedMessages.of(emptyList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooManyMessagesTest() {
+        final List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            messages.add(new TextMessage("text" + i));
+        }
+        PreparedMessages.of(messages);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import com.linecorp.bot.client.exception.GeneralLineMessagingException;
+import com.linecorp.bot.client.exception.NotFoundException;
+import com.linecorp.bot.model.profile.UserProfileResponse;
+
+public class ProfileCacheTest {
+    private static final UserProfileResponse PROFILE =
+            new UserProfileResponse("displayName", "USER_ID", "pictureUrl", "statusMessage");
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final AtomicInteger loadCount = new AtomicInteger();
+    private final ProfileCache target = ProfileCache.builder()
+                                                    .maximumSize(2)
+                                                    .ttl(1000)
+                                                    .negativeTtl(100)
+                                                    .ticker(nanoTime::get)
+                                                    .build();
+
+    @Test
+    public void cacheHitTest() throws Exception {
+        // Do
+        target.get("A", loader(CompletableFuture.completedFuture(PROFILE))).get();
+        final UserProfileResponse result = target.get("A", loader(new CompletableFuture<>())).get();
+
+        // Verify
+        assertThat(result).isEqualTo(PROFILE);
+        assertThat(loadCount).hasValue(1);
+        assertThat(target.getHitCount()).isEqualTo(1);
+        assertThat(target.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void concurrentMissesCoalescedTest() throws Exception {
+        final CompletableFuture<UserProfileResponse> inFlight = new CompletableFuture<>();
+
+        // Do
+        final CompletableFuture<UserProfileResponse> first = target.get("A", loader(inFlight));
+        final CompletableFuture<UserProfileResponse> second = target.get("A", loader(inFlight));
+        first.cancel(true);
+        inFlight.complete(PROFILE);
+
+        // Verify: cancelling a copy doesn't affect others.
+        assertThat(loadCount).hasValue(1);
+        assertThat(second.get()).isEqualTo(PROFILE);
+    }
+
+    @Test
+    public void expirationTest() throws Exception {
+        target.get("A", loader(CompletableFuture.completedFuture(PROFILE))).get();
+
+        // Do
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        target.get("A", loader(CompletableFuture.completedFuture(PROFILE))).get();
+
+        // Verify
+        assertThat(loadCount).hasValue(2);
+        assertThat(target.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void negativeCacheTest() throws Exception {
+        final NotFoundException notFound = new NotFoundException("Not found", null);
+
+        // Do
+        final CompletableFuture<UserProfileResponse> first = target.get("A", loader(failed(notFound)));
+        final CompletableFuture<UserProfileResponse> second = target.get("A", loader(failed(notFound)));
+
+        // Verify
+        assertThat(first).isCompletedExceptionally();
+        assertThat(second).isCompletedExceptionally();
+        assertThat(loadCount).hasValue(1);
+
+        // Do
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        target.get("A", loader(CompletableFuture.completedFuture(PROFILE)));
+
+        // Verify
+        assertThat(loadCount).hasValue(2);
+    }
+
+    @Test
+    public void otherFailureNotCachedTest() throws Exception {
+        final GeneralLineMessagingException failure = new GeneralLineMessagingException("Timeout", null, null);
+
+        // Do
+        target.get("A", loader(failed(failure)));
+        final UserProfileResponse result =
+                target.get("A", loader(CompletableFuture.completedFuture(PROFILE))).get();
+
+        // Verify
+        assertThat(result).isEqualTo(PROFILE);
+        assertThat(loadCount).hasValue(2);
+    }
+
+    @Test
+    public void sizeEvictionTest() throws Exception {
+        // Do
+        target.get("A", loader(CompletableFuture.completedFuture(PROFILE)));
+        target.get("B", loader(CompletableFuture.completedFuture(PROFILE)));
+        target.get("A", loader(CompletableFuture.completedFuture(PROFILE)));
+        target.get("C", loader(CompletableFuture.completedFuture(PROFILE)));
+
+        // Verify: least recently used "B" is evicted.
+        assertThat(target.size()).isEqualTo(2);
+        assertThat(target.getEvictionCount()).isEqualTo(1);
+        target.get("B", loader(CompletableFuture.completedFuture(PROFILE)));
+        assertThat(loadCount).hasValue(4);
+    }
+
+    private Supplier<CompletableFuture<UserProfileResponse>> loader(
+            final CompletableFuture<UserProfileResponse> result) {
+        return () -> {
+            loadCount.incrementAndGet();
+            return result;
+        };
+    }
+
+    private static CompletableFuture<UserProfileResponse> failed(final Throwable t) {
+        final CompletableFuture<UserProfileResponse> future = new CompletableFuture<>();
+        future.completeExceptionally(t);
+        return future;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.linecorp.bot.client.exception.BadRequestException;
+import com.linecorp.bot.client.exception.LineServerException;
+import com.linecorp.bot.model.PushMessage;
+import com.linecorp.bot.model.message.Message;
+import com.linecorp.bot.model.message.TextMessage;
+import com.linecorp.bot.model.response.BotApiResponse;
+
+public class PushCoalescerTest {
+    private static final BotApiResponse RESPONSE = new BotApiResponse("", null);
+
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    private final ScheduledFuture<?> flushTask = mock(ScheduledFuture.class);
+    private final List<PushMessage> sent = new ArrayList<>();
+    private final List<CompletableFuture<BotApiResponse>> responses = new ArrayList<>();
+    private PushCoalescer target;
+
+    @Before
+    public void setUp() {
+        doReturn(flushTask).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        target = PushCoalescer.builder().window(10).scheduler(scheduler).build();
+    }
+
+    @Test
+    public void mergeWithinWindowTest() throws Exception {
+        // Do
+        final CompletableFuture<BotApiResponse> first = push("USER1", text("1"));
+        final CompletableFuture<BotApiResponse> second = push("USER1", text("2"), text("3"));
+        final CompletableFuture<BotApiResponse> other = push("USER2", text("A"));
+
+        // Verify
+        assertThat(sent).isEmpty();
+        assertThat(target.getPendingCount()).isEqualTo(2);
+
+        // Do
+        final ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, times(2))
+                .schedule(flush.capture(), eq(10L), eq(TimeUnit.MILLISECONDS));
+        flush.getAllValues().get(0).run();
+
+        // Verify
+        assertThat(sent).containsExactly(new PushMessage("USER1", Arrays.asList(text("1"), text("2"), text("3"))));
+        assertThat(target.getPendingCount()).isEqualTo(1);
+
+        // Do
+        responses.get(0).complete(RESPONSE);
+
+        // Verify
+        assertThat(first.get()).isSameAs(RESPONSE);
+        assertThat(second.get()).isSameAs(RESPONSE);
+        assertThat(other).isNotDone();
+    }
+
+    @Test
+    public void sendWhenFullTest() throws Exception {
+        // Do
+        push("USER", text("1"), text("2"));
+        push("USER", text("3"), text("4"), text("5"));
+
+        // Verify: sent without waiting for the window.
+        assertThat(sent).containsExactly(
+                new PushMessage("USER", Arrays.asList(text("1"), text("2"), text("3"), text("4"), text("5"))));
+        assertThat(target.getPendingCount()).isZero();
+        verify(flushTask).cancel(false);
+    }
+
+    @Test
+    public void overflowStartsNextBatchTest() throws Exception {
+        // Do
+        push("USER", text("1"), text("2"), text("3"));
+        final CompletableFuture<BotApiResponse> overflow = push("USER", text("4"), text("5"), text("6"));
+
+        // Verify
+        assertThat(sent).containsExactly(new PushMessage("USER", Arrays.asList(text("1"), text("2"), text("3"))));
+        assertThat(target.getPendingCount()).isEqualTo(1);
+
+        // Do
+        final ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, times(2))
+                .schedule(flush.capture(), anyLong(), any(TimeUnit.class));
+        flush.getAllValues().get(0).run();
+
+        // Verify: the flush task of the sent batch does nothing.
+        assertThat(sent).hasSize(1);
+
+        // Do
+        flush.getAllValues().get(1).run();
+        responses.get(1).completeExceptionally(new LineServerException("error", null));
+
+        // Verify
+        assertThat(sent).hasSize(2);
+        assertThat(sent.get(1)).isEqualTo(new PushMessage("USER", Arrays.asList(text("4"), text("5"), text("6"))));
+        try {
+            overflow.get();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(LineServerException.class);
+        }
+        assertThat(overflow).isCompletedExceptionally();
+    }
+
+    @Test
+    public void splitOnBadRequestTest() throws Exception {
+        final CompletableFuture<BotApiResponse> valid = push("USER", text("1"));
+        final CompletableFuture<BotApiResponse> invalid = push("USER", text(""));
+        final ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(flush.capture(), anyLong(), any(TimeUnit.class));
+        flush.getValue().run();
+
+        // Do
+        responses.get(0).completeExceptionally(new BadRequestException("invalid", null));
+
+        // Verify: sent again one by one.
+        assertThat(sent).hasSize(3);
+        assertThat(sent.get(1)).isEqualTo(new PushMessage("USER", Arrays.asList(text("1"))));
+        assertThat(sent.get(2)).isEqualTo(new PushMessage("USER", Arrays.asList(text(""))));
+        assertThat(valid).isNotDone();
+
+        // Do
+        responses.get(1).complete(RESPONSE);
+        responses.get(2).completeExceptionally(new BadRequestException("invalid", null));
+
+        // Verify
+        assertThat(valid.get()).isSameAs(RESPONSE);
+        assertThat(invalid).isCompletedExceptionally();
+    }
+
+    @Test
+    public void cancelHeldPushTest() throws Exception {
+        final CompletableFuture<BotApiResponse> cancelled = push("USER", text("1"));
+        push("USER", text("2"));
+
+        // Do
+        cancelled.cancel(false);
+        final ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(flush.capture(), anyLong(), any(TimeUnit.class));
+        flush.getValue().run();
+
+        // Verify: withdrawn from the batch.
+        assertThat(sent).containsExactly(new PushMessage("USER", Arrays.asList(text("2"))));
+    }
+
+    @Test
+    public void cancelLastHeldPushTest() throws Exception {
+        // Do
+        push("USER", text("1")).cancel(false);
+
+        // Verify
+        assertThat(target.getPendingCount()).isZero();
+        verify(flushTask).cancel(false);
+    }
+
+    @Test
+    public void cancelSentPushTest() throws Exception {
+        final CompletableFuture<BotApiResponse> future = push("USER", text("1"));
+        final ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(flush.capture(), anyLong(), any(TimeUnit.class));
+        flush.getValue().run();
+
+        // Do
+        future.cancel(false);
+
+        // Verify: the call of a push sent alone is cancelled too.
+        assertThat(responses.get(0)).isCompletedExceptionally();
+    }
+
+    @Test
+    public void fivePushedImmediatelyTest() throws Exception {
+        // Do
+        push("USER", text("1"), text("2"), text("3"), text("4"), text("5"));
+
+        // Verify
+        assertThat(sent).hasSize(1);
+        assertThat(target.getPendingCount()).isZero();
+    }
+
+    private CompletableFuture<BotApiResponse> push(final String to, final Message... messages) {
+        return target.push(new PushMessage(to, Arrays.asList(messages)), pushMessage -> {
+            final CompletableFuture<BotApiResponse> future = new CompletableFuture<>();
+            sent.add(pushMessage);
+            responses.add(future);
+            return future;
+        });
+    }
+
+    private static Message text(final String text) {
+        return new TextMessage(text);
+    }
+}
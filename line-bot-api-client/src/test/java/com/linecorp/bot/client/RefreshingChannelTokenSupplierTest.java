@@ -0,0 +1,215 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class RefreshingChannelTokenSupplierTest {
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final List<CompletableFuture<IssuedChannelToken>> loads = new ArrayList<>();
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    private RefreshingChannelTokenSupplier target;
+
+    @Before
+    public void setUp() {
+        doReturn(mock(ScheduledFuture.class))
+                .when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        target = RefreshingChannelTokenSupplier
+                .builder(() -> {
+                    final CompletableFuture<IssuedChannelToken> future = new CompletableFuture<>();
+                    loads.add(future);
+                    return future;
+                })
+                .refreshAheadRatio(0.2)
+                .retryInterval(1_000)
+                .initialTimeout(100)
+                .scheduler(scheduler)
+                .ticker(nanoTime::get)
+                .build();
+    }
+
+    @Test
+    public void loadOnBuildTest() throws Exception {
+        // Verify
+        assertThat(loads).hasSize(1);
+
+        // Do
+        loads.get(0).complete(new IssuedChannelToken("TOKEN", 100));
+
+        // Verify
+        assertThat(target.get()).isEqualTo("TOKEN");
+        assertThat(target.authorizationHeader()).isEqualTo("Bearer TOKEN");
+        assertThat(loads).hasSize(1);
+        verify(scheduler).schedule(any(Runnable.class),
+                                   eq(TimeUnit.SECONDS.toNanos(80)), eq(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void firstLoadTimeoutTest() throws Exception {
+        // Do & Verify
+        assertThatThrownBy(() -> target.get())
+                .isInstanceOf(UncheckedIOException.class)
+                .hasCauseInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void refreshInBackgroundTest() throws Exception {
+        loads.get(0).complete(new IssuedChannelToken("TOKEN1", 100));
+        final ArgumentCaptor<Runnable> refreshTask = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(refreshTask.capture(), anyLong(), any(TimeUnit.class));
+
+        // Do
+        refreshTask.getValue().run();
+        refreshTask.getValue().run();
+
+        // Verify: coalesced, and the old token is returned while loading.
+        assertThat(loads).hasSize(2);
+        assertThat(target.get()).isEqualTo("TOKEN1");
+
+        // Do
+        loads.get(1).complete(new IssuedChannelToken("TOKEN2", 100));
+
+        // Verify
+        assertThat(target.get()).isEqualTo("TOKEN2");
+        assertThat(target.authorizationHeader()).isEqualTo("Bearer TOKEN2");
+    }
+
+    @Test
+    public void refreshOnGetAfterRefreshTimeTest() throws Exception {
+        loads.get(0).complete(new IssuedChannelToken("TOKEN1", 100));
+
+        // Do
+        nanoTime.set(TimeUnit.SECONDS.toNanos(81));
+        final String result = target.get();
+
+        // Verify
+        assertThat(result).isEqualTo("TOKEN1");
+        assertThat(loads).hasSize(2);
+    }
+
+    @Test
+    public void keepTokenOnRefreshFailureTest() throws Exception {
+        loads.get(0).complete(new IssuedChannelToken("TOKEN1", 100));
+        nanoTime.set(TimeUnit.SECONDS.toNanos(81));
+        target.get();
+
+        // Do
+        loads.get(1).completeExceptionally(new IOException("failed"));
+
+        // Verify
+        assertThat(target.get()).isEqualTo("TOKEN1");
+        verify(scheduler).schedule(any(Runnable.class),
+                                   eq(TimeUnit.SECONDS.toNanos(1)), eq(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void firstLoadFailureTest() throws Exception {
+        // Do
+        loads.get(0).completeExceptionally(new IllegalStateException("failed"));
+
+        // Verify: fails fast until the retry interval passes.
+        assertThatThrownBy(() -> target.authorizationHeader())
+                .isInstanceOf(IOException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(loads).hasSize(1);
+
+        // Do
+        nanoTime.set(TimeUnit.SECONDS.toNanos(1));
+        assertThatThrownBy(() -> target.authorizationHeader())
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Timed out");
+
+        // Verify: reloaded and waited for it.
+        assertThat(loads).hasSize(2);
+    }
+
+    @Test
+    public void noReloadOnGetWithinRetryIntervalTest() throws Exception {
+        loads.get(0).complete(new IssuedChannelToken("TOKEN1", 100));
+        nanoTime.set(TimeUnit.SECONDS.toNanos(81));
+        target.get();
+        loads.get(1).completeExceptionally(new IOException("failed"));
+
+        // Do
+        for (int i = 0; i < 10; i++) {
+            target.get();
+        }
+
+        // Verify
+        assertThat(loads).hasSize(2);
+
+        // Do
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        target.get();
+
+        // Verify
+        assertThat(loads).hasSize(3);
+    }
+
+    @Test
+    public void nonPositiveExpiresInTest() throws Exception {
+        // Do
+        loads.get(0).complete(new IssuedChannelToken("TOKEN", 0));
+
+        // Verify: treated as a failed load, retried after the interval.
+        assertThatThrownBy(() -> target.authorizationHeader())
+                .isInstanceOf(IOException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(loads).hasSize(1);
+        verify(scheduler).schedule(any(Runnable.class),
+                                   eq(TimeUnit.SECONDS.toNanos(1)), eq(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void shortLifetimeTest() throws Exception {
+        // Do
+        loads.get(0).complete(new IssuedChannelToken("TOKEN", 1));
+
+        // Verify: not reloaded more often than the retry interval.
+        assertThat(target.get()).isEqualTo("TOKEN");
+        verify(scheduler).schedule(any(Runnable.class),
+                                   eq(TimeUnit.SECONDS.toNanos(1)), eq(TimeUnit.NANOSECONDS));
+
+        // Do
+        nanoTime.set(TimeUnit.MILLISECONDS.toNanos(999));
+        target.get();
+
+        // Verify
+        assertThat(loads).hasSize(1);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+public class RetryPolicyTest {
+    @Rule
+    public final MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    @Mock
+    private Call<String> call;
+
+    private final RetryPolicy target = RetryPolicy.builder()
+                                                  .maxAttempts(3)
+                                                  .initialBackoff(100)
+                                                  .random(() -> 1.0)
+                                                  .clock(Clock.fixed(Instant.parse("2018-01-01T00:00:00Z"),
+                                                                     ZoneOffset.UTC))
+                                                  .build();
+
+    @Test
+    public void exponentialBackoffTest() {
+        final IOException failure = new IOException();
+
+        assertThat(target.computeDelay(1, null, failure)).isEqualTo(100);
+        assertThat(target.computeDelay(2, null, failure)).isEqualTo(200);
+        assertThat(target.computeDelay(3, null, failure)).isEqualTo(-1);
+
+        assertThat(target.computeDelay(1, errorResponse(503, null), null)).isEqualTo(100);
+        assertThat(RetryPolicy.builder().initialBackoff(100).maxAttempts(5).random(() -> 1.0).build()
+                              .computeDelay(3, null, failure)).isEqualTo(400);
+    }
+
+    @Test
+    public void notRetryableTest() {
+        assertThat(target.computeDelay(1, Response.success("OK"), null)).isEqualTo(-1);
+        assertThat(target.computeDelay(1, errorResponse(400, null), null)).isEqualTo(-1);
+        assertThat(target.computeDelay(1, null, new IllegalStateException())).isEqualTo(-1);
+    }
+
+    @Test
+    public void retryAfterTest() {
+        assertThat(target.computeDelay(1, errorResponse(429, "3"), null)).isEqualTo(3000);
+        assertThat(target.computeDelay(1, errorResponse(503, "Mon, 01 Jan 2018 00:00:05 GMT"), null))
+                .isEqualTo(5000);
+
+        // Longer than maxBackoff
+        assertThat(target.computeDelay(1, errorResponse(503, "60"), null)).isEqualTo(-1);
+    }
+
+    @Test
+    public void retryBudgetTest() {
+        final IOException failure = new IOException();
+
+        // Do: budget is 10 tokens. Retry is suppressed when it's not more than half.
+        for (int i = 0; i < 4; i++) {
+            assertThat(target.computeDelay(1, null, failure)).isPositive();
+        }
+
+        // Verify
+        assertThat(target.computeDelay(1, null, failure)).isEqualTo(-1);
+        assertThat(target.getBudgetTokens()).isEqualTo(5.0);
+    }
+
+    @Test
+    public void interceptorRetriesIdempotentCallTest() throws Exception {
+        final RetryPolicy retryPolicy = RetryPolicy.builder()
+                                                   .random(() -> 1.0)
+                                                   .scheduler(scheduler)
+                                                   .build();
+        final Deque<CompletableFuture<Response<String>>> attempts = new ArrayDeque<>();
+        when(call.clone()).thenReturn(call);
+
+        // Do
+        final CompletableFuture<Response<String>> result =
+                new RetryInterceptor(retryPolicy).intercept(chain(ApiEndpoint.GET_PROFILE, attempts));
+        attempts.getLast().completeExceptionally(new IOException());
+
+        // Verify
+        final ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(retry.capture(), eq(200L), eq(TimeUnit.MILLISECONDS));
+        assertThat(result).isNotDone();
+
+        // Do
+        retry.getValue().run();
+        attempts.getLast().complete(Response.success("OK"));
+
+        // Verify
+        assertThat(attempts).hasSize(2);
+        assertThat(result.get().body()).isEqualTo("OK");
+    }
+
+    @Test
+    public void interceptorIgnoresNonIdempotentCallTest() throws Exception {
+        final RetryPolicy retryPolicy = RetryPolicy.builder().scheduler(scheduler).build();
+        final Deque<CompletableFuture<Response<String>>> attempts = new ArrayDeque<>();
+
+        // Do
+        final CompletableFuture<Response<String>> result =
+                new RetryInterceptor(retryPolicy).intercept(chain(ApiEndpoint.PUSH_MESSAGE, attempts));
+        attempts.getLast().complete(errorResponse(503, null));
+
+        // Verify
+        verify(scheduler, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        assertThat(result.get().code()).isEqualTo(503);
+    }
+
+    private ApiCallInterceptor.Chain<String> chain(
+            final ApiEndpoint endpoint, final Deque<CompletableFuture<Response<String>>> attempts) {
+        return new ApiCallInterceptor.Chain<String>() {
+            @Override
+            public ApiEndpoint endpoint() {
+                return endpoint;
+            }
+
+            @Override
+            public Call<String> call() {
+                return call;
+            }
+
+            @Override
+            public CompletableFuture<Response<String>> proceed(final Call<String> call) {
+                final CompletableFuture<Response<String>> future = new CompletableFuture<>();
+                attempts.add(future);
+                return future;
+            }
+        };
+    }
+
+    private static Response<String> errorResponse(final int code, final String retryAfter) {
+        final okhttp3.Response.Builder rawResponse =
+                new okhttp3.Response.Builder()
+                        .code(code)
+                        .message("")
+                        .request(new Request.Builder().get().url("https://api.line.me/v2/bot/profile/1").build())
+                        .protocol(Protocol.HTTP_1_1);
+        if (retryAfter != null) {
+            rawResponse.addHeader("Retry-After", retryAfter);
+        }
+        return Response.error(ResponseBody.create(MediaType.parse("application/json"), "{}"),
+                              rawResponse.build());
+    }
+}
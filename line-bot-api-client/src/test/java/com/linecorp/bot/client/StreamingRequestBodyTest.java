@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+
+public class StreamingRequestBodyTest {
+    private static final MediaType IMAGE_PNG = MediaType.parse("image/png");
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void pathTest() throws Exception {
+        final Path path = temporaryFolder.newFile().toPath();
+        Files.write(path, "CONTENT".getBytes(UTF_8));
+
+        // Do
+        final RequestBody target = StreamingRequestBody.of(IMAGE_PNG, path);
+
+        // Verify
+        assertThat(target.contentType()).isEqualTo(IMAGE_PNG);
+        assertThat(target.contentLength()).isEqualTo(7);
+        assertThat(write(target)).isEqualTo("CONTENT");
+        // Repeatable.
+        assertThat(write(target)).isEqualTo("CONTENT");
+    }
+
+    @Test
+    public void fileChannelTest() throws Exception {
+        final Path path = temporaryFolder.newFile().toPath();
+        Files.write(path, "HEADERCONTENT".getBytes(UTF_8));
+
+        try (FileChannel channel = FileChannel.open(path)) {
+            channel.position(6);
+
+            // Do
+            final RequestBody target = StreamingRequestBody.of(IMAGE_PNG, channel);
+
+            // Verify
+            assertThat(target.contentLength()).isEqualTo(7);
+            assertThat(write(target)).isEqualTo("CONTENT");
+            assertThat(write(target)).isEqualTo("CONTENT");
+            assertThat(channel.isOpen()).isTrue();
+            assertThat(channel.position()).isEqualTo(6);
+        }
+    }
+
+    @Test
+    public void inputStreamTest() throws Exception {
+        final InputStream stream = new ByteArrayInputStream("CONTENTTRAILER".getBytes(UTF_8));
+
+        // Do
+        final RequestBody target = StreamingRequestBody.of(IMAGE_PNG, stream, 7);
+
+        // Verify
+        assertThat(target.contentLength()).isEqualTo(7);
+        assertThat(write(target)).isEqualTo("CONTENT");
+        assertThat(stream.available()).isEqualTo(7);
+    }
+
+    private static String write(final RequestBody requestBody) throws Exception {
+        final Buffer buffer = new Buffer();
+        requestBody.writeTo(buffer);
+        return buffer.readUtf8();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.slf4j.Logger;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.logging.HttpLoggingInterceptor.Level;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class WireLoggingInterceptorTest {
+    @Rule
+    public final MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private Logger logger;
+
+    private final MockWebServer mockWebServer = new MockWebServer();
+    private WireLoggingInterceptor target;
+    private OkHttpClient okHttpClient;
+
+    @Before
+    public void setUp() {
+        target = new WireLoggingInterceptor(logger);
+        okHttpClient = new OkHttpClient.Builder().addInterceptor(target).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    public void nothingLoggedWhenDisabledTest() throws Exception {
+        when(logger.isInfoEnabled()).thenReturn(false);
+        mockWebServer.enqueue(new MockResponse().setBody("{}"));
+
+        // Do
+        execute(new Request.Builder().url(mockWebServer.url("/")).build());
+
+        // Verify
+        verify(logger, never()).info(anyString(), any(Object.class));
+    }
+
+    @Test
+    public void bodyLoggedTest() throws Exception {
+        when(logger.isInfoEnabled()).thenReturn(true);
+        mockWebServer.enqueue(new MockResponse().setHeader("Content-Type", "application/json")
+                                                .setBody("{\"message\":\"OK\"}"));
+
+        // Do
+        execute(new Request.Builder()
+                        .url(mockWebServer.url("/v2/bot/message/push"))
+                        .header("Authorization", "Bearer SECRET")
+                        .post(RequestBody.create(MediaType.parse("application/json"), "{\"to\":\"U\"}"))
+                        .build());
+
+        // Verify
+        final ArgumentCaptor<Object> messages = ArgumentCaptor.forClass(Object.class);
+        verify(logger, times(2)).info(anyString(), messages.capture());
+        final List<Object> logged = messages.getAllValues();
+        assertThat(logged.get(0).toString())
+                .contains("--> POST", "{\"to\":\"U\"}", "Authorization: <redacted>")
+                .doesNotContain("SECRET");
+        assertThat(logged.get(1).toString()).contains("<-- 200", "{\"message\":\"OK\"}");
+    }
+
+    @Test
+    public void historyTest() throws Exception {
+        final WireLogHistory history = new WireLogHistory(2);
+        target.setHistory(history).setMaxBodySize(4);
+        mockWebServer.enqueue(new MockResponse().setHeader("Content-Type", "application/json")
+                                                .setBody("{\"message\":\"OK\"}"));
+        mockWebServer.enqueue(new MockResponse().setHeader("Content-Type", "image/jpeg")
+                                                .setBody("JPEG"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(404));
+
+        // Do
+        final Response first = okHttpClient.newCall(new Request.Builder().url(mockWebServer.url("/1")).build())
+                                           .execute();
+        execute(new Request.Builder().url(mockWebServer.url("/2")).build());
+        execute(new Request.Builder().url(mockWebServer.url("/3")).build());
+
+        // Verify: logged body doesn't consume the response.
+        assertThat(first.body().string()).isEqualTo("{\"message\":\"OK\"}");
+
+        // Verify: oldest one is dropped.
+        final List<WireLogHistory.Exchange> exchanges = history.getExchanges();
+        assertThat(exchanges).hasSize(2);
+        assertThat(exchanges.get(0).getResponseBody()).isEqualTo("(binary body omitted)");
+        assertThat(exchanges.get(1).getCode()).isEqualTo(404);
+    }
+
+    @Test
+    public void truncatedBodyTest() throws Exception {
+        final WireLogHistory history = new WireLogHistory(1);
+        target.setHistory(history).setMaxBodySize(4);
+        mockWebServer.enqueue(new MockResponse().setHeader("Content-Type", "application/json")
+                                                .setBody("{\"message\":\"OK\"}"));
+
+        // Do
+        execute(new Request.Builder().url(mockWebServer.url("/")).build());
+
+        // Verify
+        assertThat(history.getExchanges().get(0).getResponseBody()).isEqualTo("{\"me...(truncated)");
+    }
+
+    @Test
+    public void notSampledTest() throws Exception {
+        final WireLogHistory history = new WireLogHistory(1);
+        target.setHistory(history).setSampleRate(0).setLevel(Level.BODY);
+        mockWebServer.enqueue(new MockResponse().setHeader("Content-Type", "application/json")
+                                                .setBody("{}"));
+
+        // Do
+        execute(new Request.Builder().url(mockWebServer.url("/")).build());
+
+        // Verify
+        assertThat(history.getExchanges().get(0).getResponseBody()).isNull();
+    }
+
+    private void execute(final Request request) throws Exception {
+        okHttpClient.newCall(request).execute().close();
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.bot.model.objectmapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+
+/**
+ * Isolates references to the optional Afterburner dependency,
+ * so {@link ModelObjectMapper} can be loaded without it.
+ */
+final class AfterburnerSupport {
+    private AfterburnerSupport() {
+    }
+
+    static ObjectMapper register(final ObjectMapper objectMapper) {
+        return objectMapper.registerModule(new AfterburnerModule());
+    }
+}
@@ -1,10 +1,21 @@
 package com.linecorp.bot.model.objectmapper;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
 
+import com.linecorp.bot.model.event.CallbackRequest;
+import com.linecorp.bot.model.event.Event;
+import com.linecorp.bot.model.event.message.MessageContent;
+import com.linecorp.bot.model.event.source.Source;
+import com.linecorp.bot.model.message.Message;
+
 import lombok.experimental.UtilityClass;
 
 @UtilityClass
@@ -17,7 +28,93 @@ public class ModelObjectMapper {
             .registerModule(new JavaTimeModule())
             .configure(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS, false);
 
+    /**
+     * Polymorphic model types pre-warmed by {@link #prewarm(ObjectMapper)} with their subtypes.
+     */
+    private static final List<Class<?>> PREWARMED_BASE_TYPES =
+            Arrays.asList(Event.class, MessageContent.class, Source.class, Message.class);
+
+    private static final String AFTERBURNER_MODULE_CLASS =
+            "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+
     public ObjectMapper createNewObjectMapper() {
         return OBJECT_MAPPER.copy();
     }
+
+    /**
+     * Create a new {@link ObjectMapper} which binds model classes through generated bytecode instead of
+     * reflection, with (de)serializers of model classes already built by {@link #prewarm(ObjectMapper)}.
+     *
+     * <p>Requires {@code com.fasterxml.jackson.module:jackson-module-afterburner} in the class path,
+     * which is an optional dependency of this library. The instance is expensive to create,
+     * so share it instead of creating one for each use.
+     *
+     * @throws IllegalStateException if Afterburner is not available.
+     * @see #isAccelerationAvailable()
+     * @see #getSharedAcceleratedObjectMapper()
+     */
+    public ObjectMapper createAcceleratedObjectMapper() {
+        if (!isAccelerationAvailable()) {
+            throw new IllegalStateException(AFTERBURNER_MODULE_CLASS + " is not in the class path.");
+        }
+        final ObjectMapper objectMapper = AfterburnerSupport.register(OBJECT_MAPPER.copy());
+        prewarm(objectMapper);
+        return objectMapper;
+    }
+
+    /**
+     * Returns the accelerated {@link ObjectMapper} shared by the API client and the webhook parser,
+     * created by {@link #createAcceleratedObjectMapper()} on the first call. Don't reconfigure it.
+     *
+     * @throws IllegalStateException if Afterburner is not available.
+     */
+    public ObjectMapper getSharedAcceleratedObjectMapper() {
+        if (!isAccelerationAvailable()) {
+            throw new IllegalStateException(AFTERBURNER_MODULE_CLASS + " is not in the class path.");
+        }
+        return SharedAcceleratedObjectMapperHolder.INSTANCE;
+    }
+
+    /**
+     * Returns true if {@link #createAcceleratedObjectMapper()} is available.
+     */
+    public boolean isAccelerationAvailable() {
+        try {
+            Class.forName(AFTERBURNER_MODULE_CLASS, false, ModelObjectMapper.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Build and cache serializers and deserializers of {@link CallbackRequest} and of all subtypes
+     * of {@link Event}, {@link MessageContent}, {@link Source} and {@link Message},
+     * so the first webhook or API call doesn't pay for introspection.
+     */
+    public void prewarm(final ObjectMapper objectMapper) {
+        final List<Class<?>> types = new ArrayList<>();
+        types.add(CallbackRequest.class);
+        for (Class<?> baseType : PREWARMED_BASE_TYPES) {
+            types.add(baseType);
+            final JsonSubTypes subTypes = baseType.getAnnotation(JsonSubTypes.class);
+            if (subTypes != null) {
+                for (JsonSubTypes.Type subType : subTypes.value()) {
+                    types.add(subType.value());
+                }
+            }
+        }
+
+        for (Class<?> type : types) {
+            objectMapper.canSerialize(type);
+            objectMapper.canDeserialize(objectMapper.constructType(type));
+        }
+    }
+
+    /**
+     * Creates the shared instance on first access.
+     */
+    private static final class SharedAcceleratedObjectMapperHolder {
+        static final ObjectMapper INSTANCE = ModelObjectMapper.createAcceleratedObjectMapper();
+    }
 }
@@ -7,6 +7,10 @@ import org.junit.Test;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 
+import com.linecorp.bot.model.event.CallbackRequest;
+import com.linecorp.bot.model.message.Message;
+import com.linecorp.bot.model.message.TextMessage;
+
 public class ModelObjectMapperTest {
     @Test
     public void createdInstanceIsIsolatedTest() {
@@ -26,4 +30,44 @@ public class ModelObjectMapperTest {
         assertThat(first.getPropertyNamingStrategy())
                 .isNotEqualTo(second.getPropertyNamingStrategy());
     }
+
+    @Test
+    public void acceleratedObjectMapperTest() throws Exception {
+        // Precondition
+        assertThat(ModelObjectMapper.isAccelerationAvailable()).isTrue();
+
+        // Do
+        final ObjectMapper target = ModelObjectMapper.createAcceleratedObjectMapper();
+
+        // Verify
+        final String json = target.writeValueAsString(new TextMessage("text"));
+        assertThat(json).isEqualTo("{\"type\":\"text\",\"text\":\"text\"}");
+        assertThat(target.readValue(json, Message.class)).isEqualTo(new TextMessage("text"));
+    }
+
+    @Test
+    public void sharedAcceleratedObjectMapperTest() throws Exception {
+        // Do
+        final ObjectMapper target = ModelObjectMapper.getSharedAcceleratedObjectMapper();
+
+        // Verify: created once.
+        assertThat(ModelObjectMapper.getSharedAcceleratedObjectMapper()).isSameAs(target);
+        assertThat(target.readValue("{\"type\":\"text\",\"text\":\"text\"}", Message.class))
+                .isEqualTo(new TextMessage("text"));
+    }
+
+    @Test
+    public void prewarmTest() throws Exception {
+        final ObjectMapper target = ModelObjectMapper.createNewObjectMapper();
+
+        // Do
+        ModelObjectMapper.prewarm(target);
+
+        // Verify
+        final CallbackRequest callbackRequest = target.readValue(
+                "{\"events\":[{\"type\":\"follow\",\"replyToken\":\"TOKEN\","
+                + "\"source\":{\"type\":\"user\",\"userId\":\"U\"},\"timestamp\":0}]}",
+                CallbackRequest.class);
+        assertThat(callbackRequest.getEvents()).hasSize(1);
+    }
 }
@@ -33,7 +33,7 @@ import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class LineBotCallbackRequestParser {
-    private final ObjectMapper objectMapper = ModelObjectMapper.createNewObjectMapper();
+    private final ObjectMapper objectMapper;
     private final LineSignatureValidator lineSignatureValidator;
 
     /**
@@ -43,7 +43,21 @@ public class LineBotCallbackRequestParser {
      */
     public LineBotCallbackRequestParser(
             @NonNull LineSignatureValidator lineSignatureValidator) {
+        this(lineSignatureValidator, ModelObjectMapper.createNewObjectMapper());
+    }
+
+    /**
+     * Create new instance which parses requests by given {@link ObjectMapper},
+     * e.g. {@link ModelObjectMapper#getSharedAcceleratedObjectMapper()}.
+     *
+     * @param lineSignatureValidator LINE messaging API's signature validator
+     * @param objectMapper configured for model classes like {@link ModelObjectMapper#createNewObjectMapper()}
+     */
+    public LineBotCallbackRequestParser(
+            @NonNull LineSignatureValidator lineSignatureValidator,
+            @NonNull ObjectMapper objectMapper) {
         this.lineSignatureValidator = lineSignatureValidator;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -17,8 +17,11 @@
 package com.linecorp.bot.spring.boot;
 
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
@@ -27,17 +30,24 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
+import com.linecorp.bot.client.ChannelTokenLoader;
 import com.linecorp.bot.client.ChannelTokenSupplier;
 import com.linecorp.bot.client.FixedChannelTokenSupplier;
 import com.linecorp.bot.client.LineMessagingClient;
 import com.linecorp.bot.client.LineMessagingClientImpl;
 import com.linecorp.bot.client.LineMessagingServiceBuilder;
 import com.linecorp.bot.client.LineSignatureValidator;
+import com.linecorp.bot.client.RefreshingChannelTokenSupplier;
+import com.linecorp.bot.model.objectmapper.ModelObjectMapper;
 import com.linecorp.bot.servlet.LineBotCallbackRequestParser;
+import com.linecorp.bot.spring.boot.LineBotProperties.ChannelTokenSupplyMode;
 import com.linecorp.bot.spring.boot.interceptor.LineBotServerInterceptor;
 import com.linecorp.bot.spring.boot.support.LineBotServerArgumentProcessor;
 import com.linecorp.bot.spring.boot.support.LineMessageHandlerSupport;
 
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+
 @Configuration
 @AutoConfigureAfter(LineBotWebMvcConfigurer.class)
 @EnableConfigurationProperties(LineBotProperties.class)
@@ -49,19 +59,65 @@ public class LineBotAutoConfiguration {
     @Bean
     @SuppressWarnings("deprecation")
     public com.linecorp.bot.client.LineMessagingService lineMessagingService(
-            final ChannelTokenSupplier channelTokenSupplier) {
+            final ChannelTokenSupplier channelTokenSupplier,
+            @Qualifier("lineBotDispatcher") final Dispatcher lineBotDispatcher,
+            @Qualifier("lineBotConnectionPool") final ConnectionPool lineBotConnectionPool) {
         return LineMessagingServiceBuilder
                 .create(channelTokenSupplier)
                 .apiEndPoint(lineBotProperties.getApiEndPoint())
                 .connectTimeout(lineBotProperties.getConnectTimeout())
                 .readTimeout(lineBotProperties.getReadTimeout())
                 .writeTimeout(lineBotProperties.getWriteTimeout())
+                .dispatcher(lineBotDispatcher)
+                .connectionPool(lineBotConnectionPool)
+                .http2Enabled(lineBotProperties.isHttp2Enabled())
+                .jacksonAcceleration(lineBotProperties.isJacksonAcceleration())
                 .build();
     }
 
+    /**
+     * Dispatcher of API calls. Inject it to monitor queued and running calls at runtime,
+     * or define a bean of the same name to replace it.
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "lineBotDispatcher")
+    public Dispatcher lineBotDispatcher() {
+        final Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(lineBotProperties.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(lineBotProperties.getMaxRequestsPerHost());
+        return dispatcher;
+    }
+
+    /**
+     * Connection pool of API calls. Inject it to monitor connections at runtime,
+     * or define a bean of the same name to replace it.
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "lineBotConnectionPool")
+    public ConnectionPool lineBotConnectionPool() {
+        return new ConnectionPool(lineBotProperties.getMaxIdleConnections(),
+                                  lineBotProperties.getKeepAliveDuration(),
+                                  TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Supplier of channel token. In {@code SUPPLIER} mode, define a {@link ChannelTokenLoader} bean
+     * to have tokens cached and refreshed by {@link RefreshingChannelTokenSupplier},
+     * or define a {@link ChannelTokenSupplier} bean to replace this one.
+     */
     @Bean
     @ConditionalOnMissingBean(ChannelTokenSupplier.class)
-    public ChannelTokenSupplier channelTokenSupplier() {
+    public ChannelTokenSupplier channelTokenSupplier(final ObjectProvider<ChannelTokenLoader> channelTokenLoader) {
+        if (lineBotProperties.getChannelTokenSupplyMode() == ChannelTokenSupplyMode.SUPPLIER) {
+            final ChannelTokenLoader loader = channelTokenLoader.getIfAvailable();
+            if (loader == null) {
+                throw new IllegalStateException(
+                        "ChannelTokenSupplier or ChannelTokenLoader bean is required "
+                        + "if channelTokenSupplyMode = SUPPLIER");
+            }
+            return RefreshingChannelTokenSupplier.builder(loader).build();
+        }
+
         final String channelToken = lineBotProperties.getChannelToken();
         return FixedChannelTokenSupplier.of(channelToken);
     }
@@ -96,6 +152,11 @@ public class LineBotAutoConfiguration {
     @ConditionalOnWebApplication
     public LineBotCallbackRequestParser lineBotCallbackRequestParser(
             LineSignatureValidator lineSignatureValidator) {
+        if (lineBotProperties.isJacksonAcceleration()) {
+            // Shares the mapper with the API client.
+            return new LineBotCallbackRequestParser(lineSignatureValidator,
+                                                    ModelObjectMapper.getSharedAcceleratedObjectMapper());
+        }
         return new LineBotCallbackRequestParser(lineSignatureValidator);
     }
 }
@@ -82,6 +82,45 @@ public class LineBotProperties {
     @NotNull
     private long writeTimeout = LineMessagingServiceBuilder.DEFAULT_WRITE_TIMEOUT;
 
+    /**
+     * Max number of concurrent requests
+     */
+    @Valid
+    @NotNull
+    private int maxRequests = LineMessagingServiceBuilder.DEFAULT_MAX_REQUESTS;
+
+    /**
+     * Max number of concurrent requests to API end point host
+     */
+    @Valid
+    @NotNull
+    private int maxRequestsPerHost = LineMessagingServiceBuilder.DEFAULT_MAX_REQUESTS_PER_HOST;
+
+    /**
+     * Max number of idle connections in connection pool
+     */
+    @Valid
+    @NotNull
+    private int maxIdleConnections = LineMessagingServiceBuilder.DEFAULT_MAX_IDLE_CONNECTIONS;
+
+    /**
+     * Keep-alive duration of idle connections in milliseconds
+     */
+    @Valid
+    @NotNull
+    private long keepAliveDuration = LineMessagingServiceBuilder.DEFAULT_KEEP_ALIVE_DURATION;
+
+    /**
+     * Prefer HTTP/2 when API end point supports it
+     */
+    private boolean http2Enabled = LineMessagingServiceBuilder.DEFAULT_HTTP2_ENABLED;
+
+    /**
+     * Bind API bodies and webhook events through Jackson Afterburner instead of reflection.
+     * Requires jackson-module-afterburner in the class path.
+     */
+    private boolean jacksonAcceleration;
+
     /**
      * Configuration for {@link LineMessageHandler} and {@link EventMapping}.
      */
@@ -114,6 +153,9 @@ public class LineBotProperties {
         /**
          * Supply channel token via channel token supplier for specific business partners.
          *
+         * <p>Define a {@link com.linecorp.bot.client.ChannelTokenLoader} bean to issue tokens, which are
+         * cached and refreshed before expiry, or a {@link com.linecorp.bot.client.ChannelTokenSupplier} bean.
+         *
          * @see <a href="https://devdocs.line.me/#issue-channel-access-token"
          * >//devdocs.line.me/#issue-channel-access-token</a>
          */
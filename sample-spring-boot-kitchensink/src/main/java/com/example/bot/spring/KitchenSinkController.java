@@ -17,9 +17,7 @@
 package com.example.bot.spring;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.UncheckedIOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -34,8 +32,6 @@ import com.linecorp.bot.model.message.template.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import com.google.common.io.ByteStreams;
-
 import com.linecorp.bot.client.LineMessagingClient;
 import com.linecorp.bot.client.MessageContentResponse;
 import com.linecorp.bot.model.ReplyMessage;
@@ -443,8 +439,8 @@ public class KitchenSinkController {
         log.info("Got content-type: {}", responseBody);
 
         DownloadedContent tempFile = createTempFile(ext);
-        try (OutputStream outputStream = Files.newOutputStream(tempFile.path)) {
-            ByteStreams.copy(responseBody.getStream(), outputStream);
+        try {
+            responseBody.transferTo(tempFile.path);
             log.info("Saved {}: {}", ext, tempFile);
             return tempFile;
         } catch (IOException e) {